@@ -0,0 +1,33 @@
+-- =====================================================
+-- MIGRAÇÃO: Livro de comissões (lançamentos e estornos)
+-- Execute cada comando separadamente no seu cliente SQL
+-- (o Hibernate com ddl-auto=update também cria as estruturas)
+-- =====================================================
+
+-- 1. Uma linha por serviço de agendamento pago; estornos entram com valores negativos
+CREATE TABLE IF NOT EXISTS comissao_lancamento (
+    id BIGSERIAL PRIMARY KEY,
+    agendamento_id BIGINT NOT NULL,
+    profissional_id BIGINT NOT NULL,
+    data DATE NOT NULL,
+    servico_id BIGINT,
+    fixo BOOLEAN NOT NULL,
+    forma_pagamento VARCHAR(255),
+    percentual DOUBLE PRECISION NOT NULL,
+    taxa DOUBLE PRECISION NOT NULL,
+    valor_servico DOUBLE PRECISION NOT NULL,
+    valor_comissao DOUBLE PRECISION NOT NULL,
+    valor_desconto_taxa DOUBLE PRECISION NOT NULL,
+    tipo VARCHAR(20) NOT NULL,
+    criado_em TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- 2. Índices: soma por profissional/período, estorno por agendamento e reconciliação dos dias recentes
+CREATE INDEX IF NOT EXISTS idx_comissao_lancamento_profissional_data ON comissao_lancamento (profissional_id, data);
+CREATE INDEX IF NOT EXISTS idx_comissao_lancamento_agendamento ON comissao_lancamento (agendamento_id);
+CREATE INDEX IF NOT EXISTS idx_comissao_lancamento_data ON comissao_lancamento (data);
+
+-- 3. Preenchimento: na primeira subida com o livro vazio a aplicação lança a comissão
+--    de todos os agendamentos pagos automaticamente. Os lançamentos guardam o percentual
+--    e a taxa vigentes; para relançar tudo com a configuração atual, limpe e reinicie:
+-- TRUNCATE comissao_lancamento;
@@ -0,0 +1,39 @@
+-- =====================================================
+-- MIGRAÇÃO: Métricas diárias do dashboard
+-- Execute cada comando separadamente no seu cliente SQL
+-- (o Hibernate com ddl-auto=update também cria as estruturas)
+-- =====================================================
+
+-- 1. Totais por dia (faturamento, atendimentos pagos, agendamentos, despesas pagas)
+CREATE TABLE IF NOT EXISTS metricas_diarias (
+    data DATE PRIMARY KEY,
+    faturamento DOUBLE PRECISION NOT NULL DEFAULT 0,
+    servicos_pagos INTEGER NOT NULL DEFAULT 0,
+    agendamentos INTEGER NOT NULL DEFAULT 0,
+    clientes_distintos INTEGER NOT NULL DEFAULT 0,
+    despesas_pagas DOUBLE PRECISION NOT NULL DEFAULT 0,
+    atualizado_em TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+-- 2. Agendamentos por dia e hora cheia
+CREATE TABLE IF NOT EXISTS metricas_diarias_hora (
+    id BIGSERIAL PRIMARY KEY,
+    data DATE NOT NULL,
+    hora INTEGER NOT NULL,
+    total BIGINT NOT NULL,
+    CONSTRAINT uk_metricas_diarias_hora UNIQUE (data, hora)
+);
+
+-- 3. Atendimentos pagos por dia e serviço
+CREATE TABLE IF NOT EXISTS metricas_diarias_servico (
+    id BIGSERIAL PRIMARY KEY,
+    data DATE NOT NULL,
+    servico_nome VARCHAR(255) NOT NULL,
+    total BIGINT NOT NULL,
+    CONSTRAINT uk_metricas_diarias_servico UNIQUE (data, servico_nome)
+);
+
+-- 4. Preenchimento: na primeira subida com metricas_diarias vazia a aplicação
+--    recalcula todo o histórico de agendamento e expenses automaticamente.
+--    Para refazer do zero, basta limpar as tabelas e reiniciar:
+-- TRUNCATE metricas_diarias, metricas_diarias_hora, metricas_diarias_servico;
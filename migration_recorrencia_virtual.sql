@@ -0,0 +1,25 @@
+-- =====================================================
+-- MIGRAÇÃO: Modo de recorrência VIRTUAL para agendamentos fixos
+-- Execute cada comando separadamente no seu cliente SQL
+-- (o Hibernate com ddl-auto=update também cria as estruturas)
+-- =====================================================
+
+-- 1. Data original da ocorrência (preenchida quando uma ocorrência é remarcada)
+ALTER TABLE agendamento ADD COLUMN IF NOT EXISTS data_ocorrencia DATE;
+
+-- 2. Ocorrências canceladas de agendamentos fixos
+CREATE TABLE IF NOT EXISTS agendamento_fixo_excecao (
+    id BIGSERIAL PRIMARY KEY,
+    agendamento_fixo_id BIGINT NOT NULL,
+    data_ocorrencia DATE NOT NULL,
+    criado_em TIMESTAMP NOT NULL DEFAULT NOW(),
+    CONSTRAINT uk_agendamento_fixo_excecao UNIQUE (agendamento_fixo_id, data_ocorrencia)
+);
+
+-- 3. Índice para localizar a linha gravada de uma ocorrência
+CREATE INDEX IF NOT EXISTS idx_agendamento_fixo_ocorrencia
+    ON agendamento (agendamento_fixo_id, (COALESCE(data_ocorrencia, data)))
+    WHERE agendamento_fixo_id IS NOT NULL;
+
+-- 4. Para ativar o modo VIRTUAL, defina no ambiente:
+--    AGENDA_RECORRENCIA_MODO=VIRTUAL
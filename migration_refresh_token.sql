@@ -0,0 +1,23 @@
+-- =====================================================
+-- MIGRAÇÃO: Refresh tokens (sessões com token de acesso curto)
+-- Execute cada comando separadamente no seu cliente SQL
+-- (o Hibernate com ddl-auto=update também cria a tabela)
+-- =====================================================
+
+-- 1. Refresh tokens: apenas o SHA-256 do token é gravado
+CREATE TABLE IF NOT EXISTS refresh_token (
+    id BIGSERIAL PRIMARY KEY,
+    profissional_id BIGINT NOT NULL,
+    token_hash VARCHAR(64) NOT NULL UNIQUE,
+    familia VARCHAR(36) NOT NULL,
+    versao_token INTEGER NOT NULL,
+    criado_em TIMESTAMP NOT NULL,
+    expira_em TIMESTAMP NOT NULL,
+    revogado_em TIMESTAMP
+);
+
+-- 2. Revogação da sessão inteira (logout, reuso de token)
+CREATE INDEX IF NOT EXISTS idx_refresh_token_familia ON refresh_token (familia);
+
+-- 3. Para encerrar todas as sessões de um profissional:
+-- UPDATE refresh_token SET revogado_em = NOW() WHERE profissional_id = <id> AND revogado_em IS NULL;
@@ -0,0 +1,14 @@
+-- =====================================================
+-- MIGRAÇÃO: Versão dos tokens JWT por profissional
+-- Execute cada comando separadamente no seu cliente SQL
+-- (o Hibernate com ddl-auto=update também cria a coluna)
+-- =====================================================
+
+-- 1. Versão incrementada a cada troca de login, senha ou role (tokens anteriores deixam de valer)
+ALTER TABLE Profissional ADD COLUMN IF NOT EXISTS token_versao INTEGER DEFAULT 0;
+
+-- 2. Profissionais existentes começam na versão 0
+UPDATE Profissional SET token_versao = 0 WHERE token_versao IS NULL;
+
+-- 3. Para derrubar todas as sessões de um profissional:
+-- UPDATE Profissional SET token_versao = token_versao + 1 WHERE login = '<login>';
@@ -10,6 +10,7 @@ import java.util.stream.Collectors;
 import com.maestria.agenda.cliente.Cliente;
 import com.maestria.agenda.profissional.Profissional;
 import com.maestria.agenda.servico.Servico;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import com.maestria.agenda.financeiro.PagamentoTipo;
@@ -43,6 +44,10 @@ public class Agendamento {
 
     private Long agendamentoFixoId;
 
+    // Data original da ocorrência do agendamento fixo (diferente de "data" quando remarcado)
+    @Column(name = "data_ocorrencia")
+    private LocalDate dataOcorrencia;
+
     // Removemos o campo duracao, pois será obtido do serviço
 
     @Column(columnDefinition = "TEXT")
@@ -89,6 +94,20 @@ public void setAgendamentoFixoId(Long agendamentoFixoId) {
     this.agendamentoFixoId = agendamentoFixoId;
 }
 
+    public LocalDate getDataOcorrencia() {
+        return dataOcorrencia;
+    }
+
+    public void setDataOcorrencia(LocalDate dataOcorrencia) {
+        this.dataOcorrencia = dataOcorrencia;
+    }
+
+    // Data da ocorrência do agendamento fixo que esta linha representa
+    @JsonIgnore
+    public LocalDate getDataOcorrenciaEfetiva() {
+        return dataOcorrencia != null ? dataOcorrencia : data;
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,71 @@
+package com.maestria.agenda.agendamento;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Ocorrência de um agendamento fixo que foi cancelada.
+ * Impede que a ocorrência volte a aparecer (modo VIRTUAL) ou seja gerada
+ * novamente pelo scheduler (modo MATERIALIZADO).
+ */
+@Entity
+@Table(name = "agendamento_fixo_excecao",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"agendamento_fixo_id", "data_ocorrencia"}))
+public class AgendamentoFixoExcecao {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "agendamento_fixo_id", nullable = false)
+    private Long agendamentoFixoId;
+
+    @Column(name = "data_ocorrencia", nullable = false)
+    private LocalDate dataOcorrencia;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm = LocalDateTime.now();
+
+    public AgendamentoFixoExcecao() {
+    }
+
+    public AgendamentoFixoExcecao(Long agendamentoFixoId, LocalDate dataOcorrencia) {
+        this.agendamentoFixoId = agendamentoFixoId;
+        this.dataOcorrencia = dataOcorrencia;
+    }
+
+    // Getters e Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getAgendamentoFixoId() {
+        return agendamentoFixoId;
+    }
+
+    public void setAgendamentoFixoId(Long agendamentoFixoId) {
+        this.agendamentoFixoId = agendamentoFixoId;
+    }
+
+    public LocalDate getDataOcorrencia() {
+        return dataOcorrencia;
+    }
+
+    public void setDataOcorrencia(LocalDate dataOcorrencia) {
+        this.dataOcorrencia = dataOcorrencia;
+    }
+
+    public LocalDateTime getCriadoEm() {
+        return criadoEm;
+    }
+
+    public void setCriadoEm(LocalDateTime criadoEm) {
+        this.criadoEm = criadoEm;
+    }
+}
@@ -0,0 +1,22 @@
+package com.maestria.agenda.agendamento;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface AgendamentoFixoExcecaoRepository extends JpaRepository<AgendamentoFixoExcecao, Long> {
+
+    List<AgendamentoFixoExcecao> findByDataOcorrenciaBetween(LocalDate inicio, LocalDate fim);
+
+    boolean existsByAgendamentoFixoIdAndDataOcorrencia(Long agendamentoFixoId, LocalDate dataOcorrencia);
+
+    @Modifying
+    @Query("DELETE FROM AgendamentoFixoExcecao e WHERE e.agendamentoFixoId = :agendamentoFixoId")
+    void deleteByAgendamentoFixoId(@Param("agendamentoFixoId") Long agendamentoFixoId);
+}
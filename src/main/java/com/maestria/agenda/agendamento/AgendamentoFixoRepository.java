@@ -1,6 +1,7 @@
 package com.maestria.agenda.agendamento;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -65,6 +66,8 @@ List<AgendamentoFixo> findActiveQuinzenalSchedules(@Param("hoje") LocalDate hoje
 
     List<AgendamentoFixo> findByProfissionalIdAndAtivoTrue(Long profissionalId);
 
+    List<AgendamentoFixo> findByProfissionalIdInAndAtivoTrue(Collection<Long> profissionalIds);
+
     // Busca todos os agendamentos fixos ativos (para o scheduler)
     List<AgendamentoFixo> findByAtivoTrue();
 }
\ No newline at end of file
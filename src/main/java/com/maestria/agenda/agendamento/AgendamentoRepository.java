@@ -1,15 +1,23 @@
 package com.maestria.agenda.agendamento;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import com.maestria.agenda.cliente.Cliente;
 import com.maestria.agenda.profissional.Profissional;
 
+import jakarta.persistence.QueryHint;
+
 public interface AgendamentoRepository extends JpaRepository<Agendamento, Long> {
 
         List<Agendamento> findByProfissionalAndDataBetween(Profissional profissional, LocalDate dataInicio,
@@ -37,10 +45,6 @@ public interface AgendamentoRepository extends JpaRepository<Agendamento, Long>
 
         List<Agendamento> findByDataBetween(LocalDate dataInicio, LocalDate dataFim);
 
-        @Query("SELECT MONTH(a.data) AS month, SUM(a.servico.valor) FROM Agendamento a WHERE a.data BETWEEN :dataInicio AND :dataFim AND a.pago = true GROUP BY MONTH(a.data) ORDER BY MONTH(a.data)")
-        List<Object[]> groupRevenueByMonth(@Param("dataInicio") LocalDate dataInicio,
-                        @Param("dataFim") LocalDate dataFim);
-
         @Query("SELECT s.nome, COUNT(a) AS totalAgendamentos " +
                         "FROM Agendamento a JOIN a.servico s " +
                         "WHERE a.data BETWEEN :dataInicio AND :dataFim AND a.pago = true " +
@@ -146,6 +150,26 @@ public interface AgendamentoRepository extends JpaRepository<Agendamento, Long>
         @Query("SELECT a.cliente.id, a.data FROM Agendamento a WHERE a.data BETWEEN :dataInicio AND :dataFim ORDER BY a.data ASC")
         List<Object[]> findClientIdsAndDatesBetween(@Param("dataInicio") LocalDate dataInicio, @Param("dataFim") LocalDate dataFim);
 
+        // Taxa de retorno em uma passada: [clientes no período, clientes que voltaram em até 30 dias]
+        @Query(value = "SELECT COUNT(*), COUNT(*) FILTER (WHERE retornou) FROM (" +
+                        "  SELECT cliente_id, BOOL_OR(anterior >= data - 30) AS retornou FROM (" +
+                        "    SELECT cliente_id, data, LAG(data) OVER (PARTITION BY cliente_id ORDER BY data) AS anterior " +
+                        "    FROM agendamento WHERE data BETWEEN :dataInicio AND :dataFim) d " +
+                        "  GROUP BY cliente_id) c", nativeQuery = true)
+        List<Object[]> contarClientesERetornos(@Param("dataInicio") LocalDate dataInicio,
+                        @Param("dataFim") LocalDate dataFim);
+
+        // Clientes por mês do período: [ano, mês, clientes, novos (primeiro agendamento do período naquele mês)]
+        @Query(value = "SELECT ano, mes, COUNT(*), COUNT(*) FILTER (WHERE ano * 12 + mes = primeiro) FROM (" +
+                        "  SELECT DISTINCT cliente_id, " +
+                        "    CAST(EXTRACT(YEAR FROM data) AS INTEGER) AS ano, CAST(EXTRACT(MONTH FROM data) AS INTEGER) AS mes, " +
+                        "    CAST(EXTRACT(YEAR FROM MIN(data) OVER w) * 12 + EXTRACT(MONTH FROM MIN(data) OVER w) AS INTEGER) AS primeiro " +
+                        "  FROM agendamento WHERE data BETWEEN :dataInicio AND :dataFim " +
+                        "  WINDOW w AS (PARTITION BY cliente_id)) c " +
+                        "GROUP BY ano, mes ORDER BY ano, mes", nativeQuery = true)
+        List<Object[]> contarClientesNovosERecorrentesPorMes(@Param("dataInicio") LocalDate dataInicio,
+                        @Param("dataFim") LocalDate dataFim);
+
 
         // ============================================
         // QUERIES OTIMIZADAS COM FETCH JOIN
@@ -199,6 +223,146 @@ public interface AgendamentoRepository extends JpaRepository<Agendamento, Long>
                         @Param("inicio") LocalDate inicio,
                         @Param("fim") LocalDate fim);
 
+        /**
+         * Busca as ocorrências já geradas por agendamentos fixos no período: [agendamentoFixoId, data da ocorrência].
+         * Usado pelo scheduler e pela expansão virtual para carregar a janela inteira em uma única query,
+         * em vez de um exists por dia/agendamento fixo. A data é a da ocorrência original, então uma
+         * ocorrência remarcada (outro dia ou outra hora) continua marcando o dia como tratado.
+         */
+        @Query("SELECT a.agendamentoFixoId, COALESCE(a.dataOcorrencia, a.data) " +
+                        "FROM Agendamento a " +
+                        "WHERE a.agendamentoFixoId IS NOT NULL " +
+                        "AND COALESCE(a.dataOcorrencia, a.data) BETWEEN :inicio AND :fim")
+        List<Object[]> findOcorrenciasFixasNoPeriodo(
+                        @Param("inicio") LocalDate inicio,
+                        @Param("fim") LocalDate fim);
+
+        /**
+         * Data da última ocorrência gravada de cada agendamento fixo: [agendamentoFixoId, data].
+         * No modo MATERIALIZADO é o horizonte até onde o scheduler já gerou as linhas.
+         */
+        @Query("SELECT a.agendamentoFixoId, MAX(COALESCE(a.dataOcorrencia, a.data)) " +
+                        "FROM Agendamento a " +
+                        "WHERE a.agendamentoFixoId IN :agendamentoFixoIds " +
+                        "GROUP BY a.agendamentoFixoId")
+        List<Object[]> findUltimaOcorrenciaGravada(
+                        @Param("agendamentoFixoIds") Collection<Long> agendamentoFixoIds);
+
+        // Paginação por cursor (keyset) em (data, hora, id), do mais recente para o mais antigo.
+        // Comparação por row value, que o Postgres resolve com um único range scan nos índices
+        // idx_agendamento_cursor / idx_agendamento_profissional_cursor. Hora nula entra como 00:00
+        // (CursorAgendamento.HORA_NULA), ficando por último no dia. O Pageable é usado apenas como LIMIT.
+        @Query(value = "SELECT a.* FROM agendamento a " +
+                        "ORDER BY a.data DESC, COALESCE(a.hora, TIME '00:00:00') DESC, a.id DESC", nativeQuery = true)
+        List<Agendamento> findPrimeiraPagina(Pageable limite);
+
+        @Query(value = "SELECT a.* FROM agendamento a " +
+                        "WHERE (a.data, COALESCE(a.hora, TIME '00:00:00'), a.id) < (:data, :hora, :id) " +
+                        "ORDER BY a.data DESC, COALESCE(a.hora, TIME '00:00:00') DESC, a.id DESC", nativeQuery = true)
+        List<Agendamento> findPaginaApos(
+                        @Param("data") LocalDate data,
+                        @Param("hora") LocalTime hora,
+                        @Param("id") Long id,
+                        Pageable limite);
+
+        @Query(value = "SELECT a.* FROM agendamento a WHERE a.profissional_id = :profissionalId " +
+                        "ORDER BY a.data DESC, COALESCE(a.hora, TIME '00:00:00') DESC, a.id DESC", nativeQuery = true)
+        List<Agendamento> findPrimeiraPaginaPorProfissional(
+                        @Param("profissionalId") Long profissionalId,
+                        Pageable limite);
+
+        @Query(value = "SELECT a.* FROM agendamento a WHERE a.profissional_id = :profissionalId " +
+                        "AND (a.data, COALESCE(a.hora, TIME '00:00:00'), a.id) < (:data, :hora, :id) " +
+                        "ORDER BY a.data DESC, COALESCE(a.hora, TIME '00:00:00') DESC, a.id DESC", nativeQuery = true)
+        List<Agendamento> findPaginaAposPorProfissional(
+                        @Param("profissionalId") Long profissionalId,
+                        @Param("data") LocalDate data,
+                        @Param("hora") LocalTime hora,
+                        @Param("id") Long id,
+                        Pageable limite);
+
+        /**
+         * Agendamentos dos profissionais no período com a duração de cada serviço
+         * (uma linha por serviço; a última coluna é o serviço legado, para agendamentos antigos)
+         * Usado pelo cálculo de disponibilidade, sem carregar as entidades
+         */
+        @Query("SELECT a.id, a.profissional.id, a.data, a.hora, sv.duracao, legado.duracao " +
+                        "FROM Agendamento a " +
+                        "LEFT JOIN a.servicos s " +
+                        "LEFT JOIN s.servico sv " +
+                        "LEFT JOIN a.servico legado " +
+                        "WHERE a.profissional.id IN :profissionalIds " +
+                        "AND a.data BETWEEN :inicio AND :fim")
+        List<Object[]> findDuracoesPorProfissionaisEPeriodo(
+                        @Param("profissionalIds") Collection<Long> profissionalIds,
+                        @Param("inicio") LocalDate inicio,
+                        @Param("fim") LocalDate fim);
+
+        /**
+         * Colunas das listagens resumidas (ver AgendamentoResumo.agrupar):
+         * uma linha por serviço do agendamento, com o serviço legado nas colunas 12-15
+         */
+        String SELECT_RESUMO = "SELECT a.id, a.data, a.hora, c.id, c.nome, c.telefone, p.id, p.nome, " +
+                        "sv.id, sv.nome, sv.duracao, sv.valor, " +
+                        "legado.id, legado.nome, legado.duracao, legado.valor, " +
+                        "a.pago, a.formaPagamento, a.dataPagamento, a.agendamentoFixoId, a.observacao " +
+                        "FROM Agendamento a " +
+                        "JOIN a.cliente c " +
+                        "JOIN a.profissional p " +
+                        "LEFT JOIN a.servicos s " +
+                        "LEFT JOIN s.servico sv " +
+                        "LEFT JOIN a.servico legado ";
+
+        String ORDEM_RESUMO = "ORDER BY a.data ASC, a.hora ASC, a.id ASC, s.ordem ASC";
+
+        @Query(SELECT_RESUMO + "WHERE a.data BETWEEN :inicio AND :fim " + ORDEM_RESUMO)
+        List<Object[]> findResumosPorPeriodo(
+                        @Param("inicio") LocalDate inicio,
+                        @Param("fim") LocalDate fim);
+
+        @Query(SELECT_RESUMO + "WHERE p.id = :profissionalId AND a.data BETWEEN :inicio AND :fim " + ORDEM_RESUMO)
+        List<Object[]> findResumosPorProfissionalEPeriodo(
+                        @Param("profissionalId") Long profissionalId,
+                        @Param("inicio") LocalDate inicio,
+                        @Param("fim") LocalDate fim);
+
+        @Query(SELECT_RESUMO + "WHERE p.id = :profissionalId " + ORDEM_RESUMO)
+        List<Object[]> findResumosPorProfissional(@Param("profissionalId") Long profissionalId);
+
+        /**
+         * Mesmas linhas de findResumosPorPeriodo, lidas do cursor do banco em lotes.
+         * Precisa ser consumido dentro de uma transação e fechado ao final.
+         */
+        @QueryHints({
+                        @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+                        @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+        })
+        @Query(SELECT_RESUMO + "WHERE a.data BETWEEN :inicio AND :fim " + ORDEM_RESUMO)
+        Stream<Object[]> streamResumosPorPeriodo(
+                        @Param("inicio") LocalDate inicio,
+                        @Param("fim") LocalDate fim);
+
+        @QueryHints({
+                        @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+                        @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+        })
+        @Query(SELECT_RESUMO + "WHERE p.id = :profissionalId AND a.data BETWEEN :inicio AND :fim " + ORDEM_RESUMO)
+        Stream<Object[]> streamResumosPorProfissionalEPeriodo(
+                        @Param("profissionalId") Long profissionalId,
+                        @Param("inicio") LocalDate inicio,
+                        @Param("fim") LocalDate fim);
+
+        /**
+         * Linha gravada para uma ocorrência específica de um agendamento fixo
+         * (considera a data original quando a ocorrência foi remarcada)
+         */
+        @Query("SELECT a FROM Agendamento a " +
+                        "WHERE a.agendamentoFixoId = :agendamentoFixoId " +
+                        "AND COALESCE(a.dataOcorrencia, a.data) = :dataOcorrencia")
+        List<Agendamento> findOcorrenciaMaterializada(
+                        @Param("agendamentoFixoId") Long agendamentoFixoId,
+                        @Param("dataOcorrencia") LocalDate dataOcorrencia);
+
         /**
          * Verifica se já existe um agendamento para evitar duplicação
          * Usado pelo scheduler de agendamentos fixos
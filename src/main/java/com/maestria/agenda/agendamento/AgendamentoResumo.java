@@ -0,0 +1,133 @@
+package com.maestria.agenda.agendamento;
+
+import com.maestria.agenda.financeiro.PagamentoTipo;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Visão resumida de um agendamento para as listagens.
+ * Montada a partir das linhas de uma única consulta com JOIN (uma linha por serviço),
+ * sem carregar as entidades nem disparar lazy loading de cliente/profissional/serviços.
+ */
+public record AgendamentoResumo(
+        Long id,
+        LocalDate data,
+        LocalTime hora,
+        Long clienteId,
+        String clienteNome,
+        String clienteTelefone,
+        Long profissionalId,
+        String profissionalNome,
+        List<Long> servicoIds,
+        List<String> servicos,
+        long duracaoMinutos,
+        double valor,
+        boolean pago,
+        PagamentoTipo formaPagamento,
+        LocalDateTime dataPagamento,
+        Long agendamentoFixoId,
+        String observacao) {
+
+    /**
+     * Agrupa as linhas das consultas {@code findResumos*} do AgendamentoRepository,
+     * mantendo a ordem em que os agendamentos foram retornados.
+     * Agendamentos antigos sem itens em agendamento_servico usam o serviço legado.
+     */
+    public static List<AgendamentoResumo> agrupar(List<Object[]> linhas) {
+        Map<Long, Acumulador> porId = new LinkedHashMap<>();
+        for (Object[] linha : linhas) {
+            porId.computeIfAbsent((Long) linha[0], id -> new Acumulador(linha)).adicionar(linha);
+        }
+        List<AgendamentoResumo> resumos = new ArrayList<>(porId.size());
+        for (Acumulador acumulador : porId.values()) {
+            resumos.add(acumulador.resumo());
+        }
+        return resumos;
+    }
+
+    /**
+     * Versão em fluxo de {@link #agrupar}: as linhas chegam ordenadas por agendamento,
+     * então cada resumo é entregue assim que o id muda, sem manter a lista em memória.
+     */
+    public static void agruparEmSequencia(Stream<Object[]> linhas, Consumer<AgendamentoResumo> destino) {
+        Acumulador atual = null;
+        for (Object[] linha : (Iterable<Object[]>) linhas::iterator) {
+            if (atual == null || !atual.base[0].equals(linha[0])) {
+                if (atual != null) {
+                    destino.accept(atual.resumo());
+                }
+                atual = new Acumulador(linha);
+            }
+            atual.adicionar(linha);
+        }
+        if (atual != null) {
+            destino.accept(atual.resumo());
+        }
+    }
+
+    private static final class Acumulador {
+
+        private final Object[] base;
+        private final List<Long> servicoIds = new ArrayList<>();
+        private final List<String> servicos = new ArrayList<>();
+        private Duration duracao = Duration.ZERO;
+        private double valor;
+
+        Acumulador(Object[] base) {
+            this.base = base;
+        }
+
+        void adicionar(Object[] linha) {
+            if (linha[8] != null) {
+                servicoIds.add((Long) linha[8]);
+                servicos.add((String) linha[9]);
+                somar((String) linha[10], (Double) linha[11]);
+            }
+        }
+
+        AgendamentoResumo resumo() {
+            // Compatibilidade: sem serviços múltiplos, vale o serviço único
+            if (servicoIds.isEmpty() && base[12] != null) {
+                servicoIds.add((Long) base[12]);
+                servicos.add((String) base[13]);
+                somar((String) base[14], (Double) base[15]);
+            }
+            return new AgendamentoResumo(
+                    (Long) base[0],
+                    (LocalDate) base[1],
+                    (LocalTime) base[2],
+                    (Long) base[3],
+                    (String) base[4],
+                    (String) base[5],
+                    (Long) base[6],
+                    (String) base[7],
+                    servicoIds,
+                    servicos,
+                    duracao.toMinutes(),
+                    valor,
+                    Boolean.TRUE.equals(base[16]),
+                    (PagamentoTipo) base[17],
+                    (LocalDateTime) base[18],
+                    (Long) base[19],
+                    (String) base[20]);
+        }
+
+        private void somar(String duracaoServico, Double valorServico) {
+            if (duracaoServico != null && !duracaoServico.isEmpty()) {
+                duracao = duracao.plus(Duration.parse(duracaoServico));
+            }
+            if (valorServico != null) {
+                valor += valorServico;
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.maestria.agenda.agendamento;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+/**
+ * Posição da paginação por cursor de agendamentos: último (data, hora, id) retornado.
+ * Trafega como texto opaco (Base64 URL-safe) para o cliente apenas repassar.
+ */
+public record CursorAgendamento(LocalDate data, LocalTime hora, Long id) {
+
+    // Valor usado no lugar de hora nula, igual ao COALESCE das consultas de paginação
+    public static final LocalTime HORA_NULA = LocalTime.MIDNIGHT;
+
+    public CursorAgendamento {
+        if (hora == null) {
+            hora = HORA_NULA;
+        }
+    }
+
+    public static CursorAgendamento de(Agendamento agendamento) {
+        return new CursorAgendamento(agendamento.getData(), agendamento.getHora(), agendamento.getId());
+    }
+
+    public String codificar() {
+        String valor = data + "|" + hora + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorAgendamento decodificar(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = valor.split("\\|");
+            return new CursorAgendamento(LocalDate.parse(partes[0]), LocalTime.parse(partes[1]), Long.valueOf(partes[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido.");
+        }
+    }
+}
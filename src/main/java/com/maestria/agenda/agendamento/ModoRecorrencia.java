@@ -0,0 +1,11 @@
+package com.maestria.agenda.agendamento;
+
+/**
+ * Forma de armazenar as ocorrências dos agendamentos fixos (propriedade agenda.recorrencia.modo)
+ */
+public enum ModoRecorrencia {
+    // O scheduler grava uma linha em "agendamento" para cada ocorrência dos próximos 60 dias
+    MATERIALIZADO,
+    // As ocorrências são calculadas na leitura; só exceções (pagas, remarcadas, canceladas) são gravadas
+    VIRTUAL
+}
@@ -0,0 +1,158 @@
+package com.maestria.agenda.agendamento;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Motor único de expansão das regras de repetição de {@link AgendamentoFixo}.
+ *
+ * Em vez de testar cada dia do calendário, calcula diretamente a próxima data
+ * válida a partir de uma data qualquer, de modo que expandir uma janela de
+ * vários anos custa O(ocorrências) e não O(dias).
+ *
+ * Regras:
+ * - DIARIA: a cada {@code intervaloRepeticao} dias desde a data de início
+ * - SEMANAL: dias marcados no bitmask {@code valorRepeticao} (1=Dom, 2=Seg, 4=Ter, ..., 64=Sáb),
+ *   em semanas (contadas a partir da data de início) múltiplas de {@code intervaloRepeticao}
+ * - QUINZENAL: a cada 15 dias desde a data de início
+ * - MENSAL: a cada {@code intervaloRepeticao} meses, no {@code diaDoMes} ou no último dia
+ *   do mês quando {@code valorRepeticao == -1}; meses sem o dia (ex: 31) são pulados
+ */
+public final class RegraRecorrencia {
+
+    private static final int DIAS_QUINZENA = 15;
+    private static final int DIAS_SEMANA = 7;
+
+    private RegraRecorrencia() {
+    }
+
+    /**
+     * Stream lazy das ocorrências do agendamento fixo entre {@code de} e {@code ate} (inclusive),
+     * respeitando o período de validade (dataInicio/dataFim) do próprio agendamento fixo.
+     */
+    public static Stream<LocalDate> ocorrencias(AgendamentoFixo fixo, LocalDate de, LocalDate ate) {
+        LocalDate limite = limiteSuperior(fixo, ate);
+        LocalDate primeira = proximaOcorrencia(fixo, de, limite);
+        if (primeira == null) {
+            return Stream.empty();
+        }
+        return Stream.iterate(primeira, Objects::nonNull, data -> proximaOcorrencia(fixo, data.plusDays(1), limite));
+    }
+
+    /**
+     * Verifica se o agendamento fixo tem ocorrência na data informada
+     */
+    public static boolean ocorreEm(AgendamentoFixo fixo, LocalDate data) {
+        return data.equals(proximaOcorrencia(fixo, data, data));
+    }
+
+    /**
+     * Primeira ocorrência em {@code [aPartirDe, ate]}, ou {@code null} se não houver
+     */
+    public static LocalDate proximaOcorrencia(AgendamentoFixo fixo, LocalDate aPartirDe, LocalDate ate) {
+        LocalDate inicio = fixo.getDataInicio();
+        if (inicio == null || fixo.getTipoRepeticao() == null) {
+            return null;
+        }
+
+        LocalDate limite = limiteSuperior(fixo, ate);
+        LocalDate data = aPartirDe.isBefore(inicio) ? inicio : aPartirDe;
+        if (data.isAfter(limite)) {
+            return null;
+        }
+
+        LocalDate proxima = switch (fixo.getTipoRepeticao()) {
+            case DIARIA -> proximaPorPasso(inicio, data, intervalo(fixo));
+            case QUINZENAL -> proximaPorPasso(inicio, data, DIAS_QUINZENA);
+            case SEMANAL -> proximaSemanal(fixo, inicio, data, limite);
+            case MENSAL -> proximaMensal(fixo, inicio, data, limite);
+        };
+
+        return proxima != null && !proxima.isAfter(limite) ? proxima : null;
+    }
+
+    /**
+     * Próxima data da sequência {@code inicio + k * passo} que seja >= data
+     */
+    private static LocalDate proximaPorPasso(LocalDate inicio, LocalDate data, int passo) {
+        long dias = ChronoUnit.DAYS.between(inicio, data);
+        long resto = dias % passo;
+        return resto == 0 ? data : data.plusDays(passo - resto);
+    }
+
+    private static LocalDate proximaSemanal(AgendamentoFixo fixo, LocalDate inicio, LocalDate data, LocalDate limite) {
+        int mascara = fixo.getValorRepeticao() != null ? fixo.getValorRepeticao() & 0x7F : 0;
+        if (mascara == 0) {
+            return null;
+        }
+        int intervalo = intervalo(fixo);
+
+        while (!data.isAfter(limite)) {
+            long semana = ChronoUnit.DAYS.between(inicio, data) / DIAS_SEMANA;
+            long resto = semana % intervalo;
+            if (resto != 0) {
+                // Pula direto para o início da próxima semana válida
+                data = inicio.plusDays((semana + intervalo - resto) * DIAS_SEMANA);
+                continue;
+            }
+
+            // Procura o próximo dia marcado dentro desta semana (no máximo 7 dias)
+            LocalDate fimSemana = inicio.plusDays(semana * DIAS_SEMANA + DIAS_SEMANA - 1);
+            for (LocalDate dia = data; !dia.isAfter(fimSemana); dia = dia.plusDays(1)) {
+                if ((mascara & bitDoDia(dia.getDayOfWeek())) != 0) {
+                    return dia;
+                }
+            }
+            data = fimSemana.plusDays(1);
+        }
+        return null;
+    }
+
+    private static LocalDate proximaMensal(AgendamentoFixo fixo, LocalDate inicio, LocalDate data, LocalDate limite) {
+        int intervalo = intervalo(fixo);
+        boolean ultimoDia = fixo.getValorRepeticao() != null && fixo.getValorRepeticao() == -1;
+        int diaDoMes = fixo.getDiaDoMes() != null ? fixo.getDiaDoMes() : 1;
+
+        YearMonth mesInicio = YearMonth.from(inicio);
+        YearMonth mes = YearMonth.from(data);
+        long resto = ChronoUnit.MONTHS.between(mesInicio, mes) % intervalo;
+        if (resto != 0) {
+            mes = mes.plusMonths(intervalo - resto);
+        }
+
+        YearMonth mesLimite = YearMonth.from(limite);
+        while (!mes.isAfter(mesLimite)) {
+            LocalDate candidata = null;
+            if (ultimoDia) {
+                candidata = mes.atEndOfMonth();
+            } else if (mes.isValidDay(diaDoMes)) {
+                candidata = mes.atDay(diaDoMes);
+            }
+            if (candidata != null && !candidata.isBefore(data)) {
+                return candidata;
+            }
+            mes = mes.plusMonths(intervalo);
+        }
+        return null;
+    }
+
+    /**
+     * Bit do dia da semana no bitmask de repetição semanal (1=Dom, 2=Seg, ..., 64=Sáb)
+     */
+    public static int bitDoDia(DayOfWeek diaDaSemana) {
+        return 1 << (diaDaSemana.getValue() % 7);
+    }
+
+    private static int intervalo(AgendamentoFixo fixo) {
+        Integer intervalo = fixo.getIntervaloRepeticao();
+        return intervalo == null || intervalo < 1 ? 1 : intervalo;
+    }
+
+    private static LocalDate limiteSuperior(AgendamentoFixo fixo, LocalDate ate) {
+        return fixo.getDataFim() != null && fixo.getDataFim().isBefore(ate) ? fixo.getDataFim() : ate;
+    }
+}
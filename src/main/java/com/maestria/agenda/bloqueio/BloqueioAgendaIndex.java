@@ -0,0 +1,222 @@
+package com.maestria.agenda.bloqueio;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Índice em memória dos bloqueios de agenda, por profissional.
+ *
+ * Cada profissional tem um snapshot imutável com os bloqueios ordenados pela data
+ * de início e o maior fim acumulado (prefixo), o que permite responder
+ * "o horário está bloqueado?" e "bloqueios no período" com busca binária,
+ * sem ir ao banco. Os snapshots são carregados sob demanda, atualizados pelo
+ * BloqueioAgendaController ao criar/excluir e recarregados após o TTL
+ * (proteção para alterações feitas fora da aplicação).
+ */
+@Component
+public class BloqueioAgendaIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(BloqueioAgendaIndex.class);
+
+    private final BloqueioAgendaRepository bloqueioRepository;
+    private final Duration ttl;
+    private final Map<Long, IndiceProfissional> indices = new ConcurrentHashMap<>();
+
+    public BloqueioAgendaIndex(
+            BloqueioAgendaRepository bloqueioRepository,
+            @Value("${agenda.bloqueio.indice.ttl-minutos:30}") long ttlMinutos) {
+        this.bloqueioRepository = bloqueioRepository;
+        this.ttl = Duration.ofMinutes(ttlMinutos);
+    }
+
+    /**
+     * Verifica se o horário está bloqueado para o profissional na data informada
+     */
+    public boolean estaBloqueado(Long profissionalId, LocalDate data, LocalTime hora) {
+        for (BloqueioAgenda bloqueio : indice(profissionalId).noPeriodo(data, data)) {
+            if (bloqueio.isDiaTodo()) {
+                return true;
+            }
+            if (!hora.isBefore(bloqueio.getHoraInicio()) && !hora.isAfter(bloqueio.getHoraFim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bloqueios do profissional que tocam o período informado (inclusive)
+     */
+    public List<BloqueioAgenda> bloqueiosNoPeriodo(Long profissionalId, LocalDate inicio, LocalDate fim) {
+        return indice(profissionalId).noPeriodo(inicio, fim);
+    }
+
+    /**
+     * Carrega de uma vez os índices que ainda não estão em memória (uma única query)
+     */
+    public void aquecer(Collection<Long> profissionalIds) {
+        Set<Long> faltantes = profissionalIds.stream()
+                .filter(id -> !valido(indices.get(id)))
+                .collect(Collectors.toSet());
+        if (faltantes.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<BloqueioAgenda>> porProfissional = new HashMap<>();
+        faltantes.forEach(id -> porProfissional.put(id, new ArrayList<>()));
+        for (BloqueioAgenda bloqueio : bloqueioRepository.findByProfissionalIdIn(faltantes)) {
+            porProfissional.get(bloqueio.getProfissional().getId()).add(bloqueio);
+        }
+
+        porProfissional.forEach((id, bloqueios) ->
+                indices.compute(id, (k, atual) -> valido(atual) ? atual : IndiceProfissional.de(bloqueios)));
+        logger.debug("📇 Índice de bloqueios carregado para {} profissionais", faltantes.size());
+    }
+
+    /**
+     * Inclui (ou substitui) um bloqueio no índice do profissional, se ele já estiver carregado
+     */
+    public void registrar(BloqueioAgenda bloqueio) {
+        indices.computeIfPresent(bloqueio.getProfissional().getId(),
+                (id, atual) -> atual.comBloqueio(bloqueio));
+    }
+
+    /**
+     * Remove um bloqueio do índice do profissional, se ele já estiver carregado
+     */
+    public void remover(BloqueioAgenda bloqueio) {
+        indices.computeIfPresent(bloqueio.getProfissional().getId(),
+                (id, atual) -> atual.semBloqueio(bloqueio.getId()));
+    }
+
+    /**
+     * Descarta todos os índices (serão recarregados sob demanda)
+     */
+    public void invalidar() {
+        indices.clear();
+    }
+
+    private IndiceProfissional indice(Long profissionalId) {
+        IndiceProfissional indice = indices.get(profissionalId);
+        if (valido(indice)) {
+            return indice;
+        }
+        return indices.compute(profissionalId, (id, atual) -> valido(atual)
+                ? atual
+                : IndiceProfissional.de(bloqueioRepository.findByProfissionalId(id)));
+    }
+
+    private boolean valido(IndiceProfissional indice) {
+        return indice != null && indice.carregadoEm.plus(ttl).isAfter(Instant.now());
+    }
+
+    /**
+     * Snapshot imutável dos bloqueios de um profissional, ordenados por data de início
+     */
+    private static final class IndiceProfissional {
+
+        private final BloqueioAgenda[] bloqueios;
+        private final long[] inicios;
+        // Maior data de fim entre os bloqueios [0..i]
+        private final long[] maiorFim;
+        private final Instant carregadoEm;
+
+        private IndiceProfissional(BloqueioAgenda[] bloqueios, Instant carregadoEm) {
+            this.bloqueios = bloqueios;
+            this.inicios = new long[bloqueios.length];
+            this.maiorFim = new long[bloqueios.length];
+            this.carregadoEm = carregadoEm;
+            long maior = Long.MIN_VALUE;
+            for (int i = 0; i < bloqueios.length; i++) {
+                inicios[i] = bloqueios[i].getDataInicio().toEpochDay();
+                maior = Math.max(maior, fim(bloqueios[i]));
+                maiorFim[i] = maior;
+            }
+        }
+
+        static IndiceProfissional de(Collection<BloqueioAgenda> bloqueios) {
+            return new IndiceProfissional(ordenar(bloqueios.stream()
+                    .filter(b -> b.getDataInicio() != null)
+                    .toArray(BloqueioAgenda[]::new)), Instant.now());
+        }
+
+        IndiceProfissional comBloqueio(BloqueioAgenda bloqueio) {
+            List<BloqueioAgenda> lista = Arrays.stream(bloqueios)
+                    .filter(b -> !b.getId().equals(bloqueio.getId()))
+                    .collect(Collectors.toCollection(ArrayList::new));
+            if (bloqueio.getDataInicio() != null) {
+                lista.add(bloqueio);
+            }
+            return new IndiceProfissional(ordenar(lista.toArray(BloqueioAgenda[]::new)), carregadoEm);
+        }
+
+        IndiceProfissional semBloqueio(Long bloqueioId) {
+            return new IndiceProfissional(Arrays.stream(bloqueios)
+                    .filter(b -> !b.getId().equals(bloqueioId))
+                    .toArray(BloqueioAgenda[]::new), carregadoEm);
+        }
+
+        List<BloqueioAgenda> noPeriodo(LocalDate inicio, LocalDate fim) {
+            long de = inicio.toEpochDay();
+            long ate = fim.toEpochDay();
+
+            // Último bloqueio que começa até o fim do período
+            int i = ultimoInicioAte(ate);
+            List<BloqueioAgenda> resultado = new ArrayList<>();
+            // Volta enquanto ainda pode haver bloqueio terminando dentro do período
+            for (; i >= 0 && maiorFim[i] >= de; i--) {
+                if (fim(bloqueios[i]) >= de) {
+                    resultado.add(bloqueios[i]);
+                }
+            }
+            if (resultado.size() > 1) {
+                resultado.sort(Comparator.comparing(BloqueioAgenda::getDataInicio));
+            }
+            return resultado;
+        }
+
+        private int ultimoInicioAte(long data) {
+            int baixo = 0;
+            int alto = inicios.length - 1;
+            int resultado = -1;
+            while (baixo <= alto) {
+                int meio = (baixo + alto) >>> 1;
+                if (inicios[meio] <= data) {
+                    resultado = meio;
+                    baixo = meio + 1;
+                } else {
+                    alto = meio - 1;
+                }
+            }
+            return resultado;
+        }
+
+        private static BloqueioAgenda[] ordenar(BloqueioAgenda[] bloqueios) {
+            Arrays.sort(bloqueios, Comparator.comparing(BloqueioAgenda::getDataInicio));
+            return bloqueios;
+        }
+
+        // Bloqueios antigos podem não ter data de fim: valem apenas para a data de início
+        private static long fim(BloqueioAgenda bloqueio) {
+            LocalDate fim = bloqueio.getDataFim() != null ? bloqueio.getDataFim() : bloqueio.getDataInicio();
+            return fim.toEpochDay();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.maestria.agenda.bloqueio;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -37,5 +38,10 @@ public interface BloqueioAgendaRepository extends JpaRepository<BloqueioAgenda,
         @Param("dataFim") LocalDate dataFim
     );
 
+    // Usados para carregar o BloqueioAgendaIndex
+    List<BloqueioAgenda> findByProfissionalId(Long profissionalId);
+
+    List<BloqueioAgenda> findByProfissionalIdIn(Collection<Long> profissionalIds);
+
     boolean existsByProfissionalAndDataInicio(Profissional profissional, LocalDate dataInicio);
 }
\ No newline at end of file
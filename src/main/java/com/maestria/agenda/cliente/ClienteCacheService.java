@@ -1,7 +1,9 @@
 package com.maestria.agenda.cliente;
 
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -11,6 +13,7 @@ import java.util.Optional;
 /**
  * Serviço com cache para Clientes
  * Reduz queries ao banco de dados
+ * Escritas atualizam apenas a chave do cliente e a lista ('all')
  */
 @Service
 public class ClienteCacheService {
@@ -19,9 +22,9 @@ public class ClienteCacheService {
     private ClienteRepository clienteRepository;
 
     /**
-     * Busca cliente por ID com cache
+     * Busca cliente por ID com cache (ausentes não são cacheados)
      */
-    @Cacheable(value = "clientes", key = "#id")
+    @Cacheable(value = "clientes", key = "#id", unless = "#result == null")
     public Optional<Cliente> findById(Long id) {
         return clienteRepository.findById(id);
     }
@@ -35,17 +38,22 @@ public class ClienteCacheService {
     }
 
     /**
-     * Limpa o cache quando um cliente é atualizado
+     * Salva o cliente, atualiza sua chave e invalida a lista
      */
-    @CacheEvict(value = "clientes", allEntries = true)
+    @Caching(
+            put = @CachePut(value = "clientes", key = "#result.id"),
+            evict = @CacheEvict(value = "clientes", key = "'all'"))
     public Cliente save(Cliente cliente) {
         return clienteRepository.save(cliente);
     }
 
     /**
-     * Limpa o cache quando um cliente é deletado
+     * Remove o cliente e suas chaves do cache
      */
-    @CacheEvict(value = "clientes", allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = "clientes", key = "#id"),
+            @CacheEvict(value = "clientes", key = "'all'")
+    })
     public void deleteById(Long id) {
         clienteRepository.deleteById(id);
     }
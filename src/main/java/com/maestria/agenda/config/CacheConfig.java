@@ -1,44 +1,105 @@
 package com.maestria.agenda.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.maestria.agenda.service.MetricsService;
+import com.maestria.agenda.service.PeriodoMetricas;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Configuração de cache com Caffeine para melhorar performance
- * Cache expira automaticamente após 5 minutos
+ *
+ * Cada cache tem sua própria spec do Caffeine, sobrescrevível pela propriedade
+ * agenda.cache.specs.&lt;nome&gt; (ex.: maximumSize=500,expireAfterWrite=30m).
+ * Os caches de métricas são recalculados em segundo plano (refreshAfterWrite):
+ * quem lê recebe o valor atual enquanto o novo é calculado. As entradas afetadas por uma
+ * escrita são removidas pelo MetricasCacheInvalidador.
+ * maximumWeight limita pelo total de itens das listas guardadas em vez do número de entradas.
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(CacheConfig.class);
+
+    public static final String PROPRIEDADE_SPEC = "agenda.cache.specs.";
+
+    // Caches de métricas: chave PeriodoMetricas, recalculáveis pelo MetricsService
+    public static final Set<String> CACHES_METRICAS = Set.of(
+            "metricas", "faturamento", "servicosData", "horarios", "clientesData");
+
+    private static final Map<String, String> SPECS_PADRAO = new LinkedHashMap<>();
+
+    static {
+        // Entidades de referência: mudam pouco e são invalidadas nas escritas
+        SPECS_PADRAO.put("profissionais", "maximumSize=500,expireAfterWrite=30m");
+        SPECS_PADRAO.put("clientes", "maximumSize=5000,expireAfterWrite=30m");
+        SPECS_PADRAO.put("servicos", "maximumSize=1000,expireAfterWrite=30m");
+        // Métricas: períodos arbitrários, então limitadas à parte para não expulsar as demais.
+        // TTL longo: as escritas publicam AlteracaoFinanceiraEvent e invalidam só os períodos afetados
+        SPECS_PADRAO.put("metricas", "maximumSize=100,expireAfterWrite=6h,refreshAfterWrite=15m");
+        SPECS_PADRAO.put("faturamento", "maximumSize=100,expireAfterWrite=6h,refreshAfterWrite=15m");
+        SPECS_PADRAO.put("servicosData", "maximumWeight=20000,expireAfterWrite=6h,refreshAfterWrite=15m");
+        SPECS_PADRAO.put("horarios", "maximumSize=100,expireAfterWrite=6h,refreshAfterWrite=15m");
+        SPECS_PADRAO.put("clientesData", "maximumSize=100,expireAfterWrite=6h,refreshAfterWrite=15m");
+    }
+
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
-                "profissionais",
-                "clientes", 
-                "servicos",
-                "taxasPagamento",
-                "metricas",        // Cache para métricas gerais
-                "faturamento",     // Cache para faturamento mensal
-                "horarios",        // Cache para horários mais procurados
-                "clientesData"     // Cache para dados de clientes novos/recorrentes
-        );
-        
+    public CacheManager cacheManager(Environment environment, ObjectProvider<MetricsService> metricsService) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Caches não declarados acima (criados sob demanda)
         cacheManager.setCaffeine(Caffeine.newBuilder()
-            // Cache expira após 5 minutos (mesmo tempo do React Query)
-            .expireAfterWrite(5, TimeUnit.MINUTES)
-            // Máximo 200 entradas no cache
-            .maximumSize(200)
-            // Estatísticas para monitoramento
-            .recordStats()
-        );
-        
+                .expireAfterWrite(Duration.ofMinutes(5))
+                .maximumSize(200)
+                .recordStats());
+
+        SPECS_PADRAO.forEach((nome, padrao) -> {
+            String spec = environment.getProperty(PROPRIEDADE_SPEC + nome, padrao);
+            Caffeine<Object, Object> builder = construtor(spec);
+            Cache<Object, Object> cache = CACHES_METRICAS.contains(nome)
+                    ? builder.build(chave -> metricsService.getObject().recalcular(nome, (PeriodoMetricas) chave))
+                    : builder.build();
+            cacheManager.registerCustomCache(nome, cache);
+            logger.info("🗄️ Cache {} configurado: {}", nome, spec);
+        });
+
         return cacheManager;
     }
+
+    /**
+     * Chave dos caches de métricas a partir dos parâmetros (dataInicio, dataFim)
+     */
+    @Bean
+    public KeyGenerator periodoMetricasKeyGenerator() {
+        return (alvo, metodo, parametros) -> new PeriodoMetricas((LocalDate) parametros[0], (LocalDate) parametros[1]);
+    }
+
+    private static Caffeine<Object, Object> construtor(String spec) {
+        Caffeine<Object, Object> builder = Caffeine.from(spec);
+        if (spec.contains("maximumWeight")) {
+            // Listas pesam pelo número de itens; demais valores pesam 1
+            builder.weigher((chave, valor) -> valor instanceof Collection<?> colecao ? Math.max(1, colecao.size()) : 1);
+        }
+        if (!spec.contains("recordStats")) {
+            // Estatísticas para monitoramento (Actuator/Micrometer e /cache/estatisticas)
+            builder.recordStats();
+        }
+        return builder;
+    }
 }
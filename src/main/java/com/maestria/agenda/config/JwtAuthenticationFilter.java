@@ -1,10 +1,13 @@
 package com.maestria.agenda.config;
 
+import com.maestria.agenda.profissional.ModoAutenticacao;
+import com.maestria.agenda.profissional.PrincipalCache;
+import com.maestria.agenda.profissional.ProfissionalAutenticado;
+import com.maestria.agenda.profissional.VersaoTokenCache;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -17,19 +20,26 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    @Value("${jwt.secret}")
-    private String SECRET_KEY;
-
     private final UserDetailsService userDetailsService;
+    private final JwtService jwtService;
+    private final PrincipalCache principalCache;
+    private final VersaoTokenCache versaoTokenCache;
+    private final ModoAutenticacao modo;
 
     // Construtor com injeção de dependência
-    public JwtAuthenticationFilter(UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(UserDetailsService userDetailsService, JwtService jwtService,
+            PrincipalCache principalCache, VersaoTokenCache versaoTokenCache,
+            @Value("${agenda.auth.modo:CONSULTA}") ModoAutenticacao modo) {
         this.userDetailsService = userDetailsService;
+        this.jwtService = jwtService;
+        this.principalCache = principalCache;
+        this.versaoTokenCache = versaoTokenCache;
+        this.modo = modo;
     }
 
     @Override
@@ -44,18 +54,35 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             token = token.substring(7);  // Removendo "Bearer " do início
 
             try {
-                // Usando a chave secreta para validar o token JWT
-                Claims claims = Jwts.parserBuilder()
-                        .setSigningKey(Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8)))
-                        .build()
-                        .parseClaimsJws(token)
-                        .getBody();
+                // Validando assinatura e expiração com o parser montado na subida
+                Claims claims = jwtService.validar(token);
 
                 String username = claims.getSubject();  // Obtendo o nome de usuário do token
 
                 // Verificando se o usuário não está autenticado ainda
                 if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                    // Tokens com id e versão: recusados se o profissional mudou login/senha/role ou foi excluído
+                    Long profissionalId = claims.get(JwtService.CLAIM_PROFISSIONAL, Long.class);
+                    Integer versao = claims.get(JwtService.CLAIM_VERSAO, Integer.class);
+                    String role = claims.get(JwtService.CLAIM_ROLE, String.class);
+                    boolean versionado = profissionalId != null && versao != null;
+                    if (versionado && !versaoTokenCache.valida(profissionalId, versao)) {
+                        throw new RuntimeException("Token revogado");
+                    }
+
+                    // Tokens de acesso (revogados pela versão acima) dispensam o banco em qualquer modo
+                    boolean acesso = JwtService.TIPO_ACESSO.equals(claims.get(JwtService.CLAIM_TIPO, String.class));
+
+                    UserDetails userDetails;
+                    if ((modo == ModoAutenticacao.TOKEN || acesso) && versionado && role != null) {
+                        // Usuário montado das claims assinadas, sem consulta ao banco
+                        userDetails = new ProfissionalAutenticado(profissionalId, username, "",
+                                List.of(new SimpleGrantedAuthority(role)));
+                    } else {
+                        // Profissional carregado uma vez por token (depois vem do cache)
+                        userDetails = principalCache.obter(username, claims.getIssuedAt(),
+                                claims.getExpiration(), userDetailsService::loadUserByUsername);
+                    }
 
                     // Criando o token de autenticação
                     UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
@@ -0,0 +1,73 @@
+package com.maestria.agenda.config;
+
+import com.maestria.agenda.profissional.Profissional;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emissão e validação dos tokens JWT.
+ *
+ * A chave HMAC e o JwtParser são montados uma vez na subida (o parser é imutável e
+ * pode ser usado por várias threads), em vez de a cada requisição no filtro.
+ * Os tokens de acesso têm validade curta (renovados com o refresh token) e levam a claim
+ * "typ" = "access", que permite ao filtro autenticar só pelas claims.
+ */
+@Component
+public class JwtService {
+
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_PROFISSIONAL = "pid";
+    public static final String CLAIM_VERSAO = "ver";
+    public static final String CLAIM_TIPO = "typ";
+    public static final String TIPO_ACESSO = "access";
+
+    private final SecretKey chave;
+    private final JwtParser parser;
+    private final long validadeAcessoMs;
+
+    public JwtService(@Value("${jwt.secret}") String segredo,
+            @Value("${agenda.auth.access-token.minutos:1440}") long minutosAcesso) {
+        this.chave = Keys.hmacShaKeyFor(segredo.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(chave).build();
+        this.validadeAcessoMs = TimeUnit.MINUTES.toMillis(minutosAcesso);
+    }
+
+    public long getValidadeAcessoSegundos() {
+        return TimeUnit.MILLISECONDS.toSeconds(validadeAcessoMs);
+    }
+
+    /**
+     * Valida assinatura e expiração e devolve as claims (lança JwtException se inválido)
+     */
+    public Claims validar(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Token de acesso com login (subject), role, id do profissional ("pid"), versão do
+     * token ("ver") e tipo ("typ")
+     */
+    public String gerarToken(Profissional profissional) {
+        long agora = System.currentTimeMillis();
+        return Jwts.builder()
+                .setSubject(profissional.getLogin())
+                .claim(CLAIM_ROLE, profissional.getRole())
+                .claim(CLAIM_PROFISSIONAL, profissional.getId())
+                .claim(CLAIM_VERSAO, profissional.getTokenVersao())
+                .claim(CLAIM_TIPO, TIPO_ACESSO)
+                .setIssuedAt(new Date(agora))
+                .setExpiration(new Date(agora + validadeAcessoMs))
+                .signWith(chave, SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
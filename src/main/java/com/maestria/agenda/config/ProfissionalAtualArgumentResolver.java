@@ -0,0 +1,71 @@
+package com.maestria.agenda.config;
+
+import com.maestria.agenda.profissional.CurrentProfissional;
+import com.maestria.agenda.profissional.Profissional;
+import com.maestria.agenda.profissional.ProfissionalAutenticado;
+import com.maestria.agenda.profissional.ProfissionalCacheService;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.Optional;
+
+/**
+ * Resolve os parâmetros @CurrentProfissional.
+ *
+ * O profissional é buscado pelo id do principal (claims do token ou CustomUserDetailsService)
+ * ou, para tokens antigos, pelo login; as duas buscas passam pelo cache de profissionais.
+ * O resultado (inclusive a ausência) fica guardado como atributo da requisição, então
+ * filtros, controllers e serviços da mesma requisição não repetem a busca.
+ */
+@Component
+public class ProfissionalAtualArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String ATRIBUTO = ProfissionalAtualArgumentResolver.class.getName() + ".profissional";
+
+    private final ProfissionalCacheService profissionalCacheService;
+
+    public ProfissionalAtualArgumentResolver(ProfissionalCacheService profissionalCacheService) {
+        this.profissionalCacheService = profissionalCacheService;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentProfissional.class)
+                && Profissional.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+            NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Object memorizado = webRequest.getAttribute(ATRIBUTO, RequestAttributes.SCOPE_REQUEST);
+        if (memorizado == null) {
+            memorizado = Optional.ofNullable(carregar());
+            webRequest.setAttribute(ATRIBUTO, memorizado, RequestAttributes.SCOPE_REQUEST);
+        }
+        return ((Optional<Profissional>) memorizado).orElse(null);
+    }
+
+    private Profissional carregar() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return null;
+        }
+        if (authentication.getPrincipal() instanceof ProfissionalAutenticado autenticado
+                && autenticado.getProfissionalId() != null) {
+            return profissionalCacheService.findById(autenticado.getProfissionalId()).orElse(null);
+        }
+        if (authentication.getPrincipal() instanceof UserDetails userDetails) {
+            return profissionalCacheService.findByLogin(userDetails.getUsername());
+        }
+        return null;
+    }
+}
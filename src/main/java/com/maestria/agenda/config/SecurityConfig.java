@@ -1,5 +1,6 @@
 package com.maestria.agenda.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -7,6 +8,7 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -15,6 +17,7 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 public class SecurityConfig {
@@ -28,8 +31,10 @@ public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthenticat
         .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
         .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/ping").permitAll()
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                .requestMatchers("/actuator/**").hasAuthority("ADMIN")
                 .requestMatchers("/api/whatsapp/webhook/**").permitAll()
-                .requestMatchers("/auth/login", "/auth/register", "/public/**", "/generate-password", "/h2-console/**").permitAll()
+                .requestMatchers("/auth/login", "/auth/refresh", "/auth/logout", "/auth/register", "/public/**", "/generate-password", "/h2-console/**").permitAll()
                 .requestMatchers("/agendamento/amanha").permitAll()
                 .requestMatchers("/auth/me", "/agendamento/**").hasAnyAuthority("ADMIN", "PROFISSIONAL")
                 .requestMatchers("/cliente/**").hasAnyAuthority("ADMIN", "PROFISSIONAL")
@@ -60,9 +65,17 @@ public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthenticat
         return authenticationConfiguration.getAuthenticationManager();
     }
 
+    /**
+     * Senhas novas são gravadas como {bcrypt} com o custo configurado. Hashes antigos, sem
+     * prefixo, continuam aceitos e o LoginService os regrava no próximo login correto
+     * (assim como os de custo menor que o atual).
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${agenda.auth.bcrypt.custo:10}") int custo) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(custo);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
 
     @Bean
@@ -77,7 +90,7 @@ public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthenticat
         ));
         corsConfig.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         corsConfig.setAllowedHeaders(List.of("*"));
-        corsConfig.setExposedHeaders(List.of("Authorization"));
+        corsConfig.setExposedHeaders(List.of("Authorization", "X-Proximo-Cursor"));
         corsConfig.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
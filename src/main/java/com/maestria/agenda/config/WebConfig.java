@@ -0,0 +1,22 @@
+package com.maestria.agenda.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ProfissionalAtualArgumentResolver profissionalAtualArgumentResolver;
+
+    public WebConfig(ProfissionalAtualArgumentResolver profissionalAtualArgumentResolver) {
+        this.profissionalAtualArgumentResolver = profissionalAtualArgumentResolver;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(profissionalAtualArgumentResolver);
+    }
+}
@@ -4,21 +4,33 @@ import com.maestria.agenda.agendamento.Agendamento;
 import com.maestria.agenda.agendamento.AgendamentoFixo;
 import com.maestria.agenda.agendamento.AgendamentoFixoRepository;
 import com.maestria.agenda.agendamento.AgendamentoRepository;
+import com.maestria.agenda.agendamento.AgendamentoResumo;
+import com.maestria.agenda.agendamento.CursorAgendamento;
 import com.maestria.agenda.agendamento.DadosCadastroAgendamento;
 import com.maestria.agenda.agendamento.DadosCadastroAgendamentoFixo;
-import com.maestria.agenda.bloqueio.BloqueioAgenda;
-import com.maestria.agenda.bloqueio.BloqueioAgendaRepository;
+import com.maestria.agenda.agendamento.RegraRecorrencia;
+import com.maestria.agenda.bloqueio.BloqueioAgendaIndex;
 import com.maestria.agenda.cliente.Cliente;
+import com.maestria.agenda.cliente.ClienteCacheService;
 import com.maestria.agenda.cliente.ClienteRepository;
 import com.maestria.agenda.financeiro.PagamentoTipo;
+import com.maestria.agenda.profissional.CurrentProfissional;
 import com.maestria.agenda.profissional.Profissional;
+import com.maestria.agenda.profissional.ProfissionalCacheService;
 import com.maestria.agenda.profissional.ProfissionalRepository;
 import com.maestria.agenda.servico.Servico;
-import com.maestria.agenda.servico.ServicoRepository;
+import com.maestria.agenda.servico.ServicoCacheService;
+import com.maestria.agenda.service.AgendamentoAlteradoEvent;
 import com.maestria.agenda.service.AgendamentoFixoSchedulerService;
+import com.maestria.agenda.service.AlteracaoFinanceiraEvent;
+import com.maestria.agenda.service.ConflitoAgendamentoService;
+import com.maestria.agenda.service.OcorrenciaFixaService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -28,11 +40,13 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.Objects;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/agendamento")
@@ -40,13 +54,23 @@ public class AgendamentoController {
 
     private static final Logger logger = LoggerFactory.getLogger(AgendamentoController.class);
 
+    // Paginação por cursor de GET /agendamento e /agendamento/profissional
+    public static final String HEADER_PROXIMO_CURSOR = "X-Proximo-Cursor";
+    private static final int TAMANHO_PAGINA_PADRAO = 100;
+    private static final int TAMANHO_PAGINA_MAXIMO = 500;
+
     private final AgendamentoRepository agendamentoRepository;
     private final AgendamentoFixoRepository agendamentoFixoRepository;
     private final ClienteRepository clienteRepository;
     private final ProfissionalRepository profissionalRepository;
-    private final ServicoRepository servicoRepository;
-    private final BloqueioAgendaRepository bloqueioRepository;
+    private final ClienteCacheService clienteCacheService;
+    private final ProfissionalCacheService profissionalCacheService;
+    private final ServicoCacheService servicoCacheService;
+    private final ApplicationEventPublisher eventos;
+    private final BloqueioAgendaIndex bloqueioIndex;
     private final AgendamentoFixoSchedulerService schedulerService;
+    private final OcorrenciaFixaService ocorrenciaFixaService;
+    private final ConflitoAgendamentoService conflitoService;
 
     // Removida a injeção da comissão global pois agora cada serviço tem sua própria comissão
 
@@ -54,16 +78,26 @@ public class AgendamentoController {
             AgendamentoFixoRepository agendamentoFixoRepository,
             ClienteRepository clienteRepository,
             ProfissionalRepository profissionalRepository,
-            ServicoRepository servicoRepository,
-            BloqueioAgendaRepository bloqueioRepository,
-            AgendamentoFixoSchedulerService schedulerService) {
+            ClienteCacheService clienteCacheService,
+            ProfissionalCacheService profissionalCacheService,
+            ServicoCacheService servicoCacheService,
+            BloqueioAgendaIndex bloqueioIndex,
+            AgendamentoFixoSchedulerService schedulerService,
+            OcorrenciaFixaService ocorrenciaFixaService,
+            ConflitoAgendamentoService conflitoService,
+            ApplicationEventPublisher eventos) {
         this.agendamentoRepository = agendamentoRepository;
         this.agendamentoFixoRepository = agendamentoFixoRepository;
         this.clienteRepository = clienteRepository;
         this.profissionalRepository = profissionalRepository;
-        this.servicoRepository = servicoRepository;
-        this.bloqueioRepository = bloqueioRepository;
+        this.clienteCacheService = clienteCacheService;
+        this.profissionalCacheService = profissionalCacheService;
+        this.servicoCacheService = servicoCacheService;
+        this.bloqueioIndex = bloqueioIndex;
         this.schedulerService = schedulerService;
+        this.ocorrenciaFixaService = ocorrenciaFixaService;
+        this.conflitoService = conflitoService;
+        this.eventos = eventos;
     }
 
     @PostMapping("/fixo")
@@ -76,11 +110,11 @@ public class AgendamentoController {
                 return ResponseEntity.status(403).body("Acesso negado. Apenas ADMIN pode criar agendamentos fixos.");
             }
 
-            Cliente cliente = clienteRepository.findById(dados.clienteId())
+            Cliente cliente = clienteCacheService.findById(dados.clienteId())
                     .orElseThrow(() -> new RuntimeException("Cliente não encontrado"));
-            Profissional profissional = profissionalRepository.findById(dados.profissionalId())
+            Profissional profissional = profissionalCacheService.findById(dados.profissionalId())
                     .orElseThrow(() -> new RuntimeException("Profissional não encontrado"));
-            Servico servico = servicoRepository.findById(dados.servicoId())
+            Servico servico = servicoCacheService.findById(dados.servicoId())
                     .orElseThrow(() -> new RuntimeException("Serviço não encontrado"));
 
             AgendamentoFixo agendamentoFixo = new AgendamentoFixo();
@@ -103,50 +137,25 @@ public class AgendamentoController {
 
             agendamentoFixoRepository.save(agendamentoFixo);
 
+            if (ocorrenciaFixaService.isVirtual()) {
+                logger.info("✅ Agendamento fixo criado (modo VIRTUAL, ocorrências calculadas na leitura).");
+                return ResponseEntity.ok(agendamentoFixo);
+            }
+
             LocalDate dataFimGeracao = LocalDate.now().plusDays(30);
-            LocalDate dataAtual = agendamentoFixo.getDataInicio().isAfter(LocalDate.now())
-                    ? agendamentoFixo.getDataInicio()
-                    : LocalDate.now();
+            List<LocalDate> datas = RegraRecorrencia
+                    .ocorrencias(agendamentoFixo, LocalDate.now(), dataFimGeracao)
+                    .toList();
 
             int ocorrenciasCriadas = 0;
-            while (!dataAtual.isAfter(dataFimGeracao)) {
-                if (!dataAtual.isBefore(agendamentoFixo.getDataInicio()) &&
-                        (agendamentoFixo.getDataFim() == null || !dataAtual.isAfter(agendamentoFixo.getDataFim()))) {
-
-                    boolean gerarOcorrencia = false;
-                    switch (agendamentoFixo.getTipoRepeticao()) {
-                        case DIARIA:
-                            gerarOcorrencia = (dataAtual.toEpochDay() - agendamentoFixo.getDataInicio().toEpochDay())
-                                    % agendamentoFixo.getIntervaloRepeticao() == 0;
-                            break;
-                        case SEMANAL:
-                            int diaDaSemana = dataAtual.getDayOfWeek().getValue() % 7 + 1;
-                            gerarOcorrencia = (agendamentoFixo.getValorRepeticao() & (1 << (diaDaSemana - 1))) != 0;
-                            break;
-                        case MENSAL:
-                            if (agendamentoFixo.getValorRepeticao() == -1) {
-                                gerarOcorrencia = dataAtual.getDayOfMonth() == dataAtual.lengthOfMonth();
-                            } else {
-                                gerarOcorrencia = agendamentoFixo.getDiaDoMes() == dataAtual.getDayOfMonth();
-                            }
-                            break;
-                        case QUINZENAL:
-                            long diasDesdeInicio = dataAtual.toEpochDay()
-                                    - agendamentoFixo.getDataInicio().toEpochDay();
-                            gerarOcorrencia = diasDesdeInicio % 15 == 0;
-                            break;
-                        default:
-                            break;
-                    }
-
-                    if (gerarOcorrencia) {
-                        criarAgendamentoAPartirDeFixo(agendamentoFixo, dataAtual);
-                        ocorrenciasCriadas++;
-                    }
-                }
-                dataAtual = dataAtual.plusDays(1);
+            for (LocalDate data : datas) {
+                criarAgendamentoAPartirDeFixo(agendamentoFixo, data);
+                ocorrenciasCriadas++;
             }
 
+            if (ocorrenciasCriadas > 0) {
+                eventos.publishEvent(AlteracaoFinanceiraEvent.noPeriodo(LocalDate.now(), dataFimGeracao, "agendamento-fixo"));
+            }
             logger.info("✅ Foram geradas {} ocorrências para o agendamento fixo.", ocorrenciasCriadas);
             return ResponseEntity.ok(agendamentoFixo);
 
@@ -159,26 +168,27 @@ public class AgendamentoController {
     @GetMapping("/todos/{id}")
     public ResponseEntity<?> listarTodosAgendamentosPorProfissional(
             @PathVariable Long id,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissionalAtual) {
         if (!userDetails.getAuthorities().contains(new SimpleGrantedAuthority("ADMIN"))) {
-            Profissional profissional = profissionalRepository.findByLogin(userDetails.getUsername());
-            if (profissional == null || profissional.getId() != id.longValue()) {
+            if (profissionalAtual == null || profissionalAtual.getId() != id.longValue()) {
                 return ResponseEntity.status(403).body("Acesso negado.");
             }
         }
 
         try {
-            Profissional profissional = profissionalRepository.findById(id)
+            Profissional profissional = profissionalCacheService.findById(id)
                     .orElseThrow(() -> new RuntimeException("Profissional não encontrado"));
 
-            List<Agendamento> normais = agendamentoRepository.findByProfissional(profissional);
+            List<AgendamentoResumo> normais = AgendamentoResumo.agrupar(
+                    agendamentoRepository.findResumosPorProfissional(id));
             List<AgendamentoFixo> fixos = agendamentoFixoRepository.findByProfissional(profissional);
 
             List<Map<String, Object>> agendamentos = new ArrayList<>();
-            for (Agendamento a : normais) {
+            for (AgendamentoResumo a : normais) {
                 Map<String, Object> item = new HashMap<>();
                 // Valida se o agendamento possui agendamentoFixoId
-                item.put("isFixo", a.getAgendamentoFixoId() != null);
+                item.put("isFixo", a.agendamentoFixoId() != null);
                 item.put("agendamento", a);
                 agendamentos.add(item);
             }
@@ -197,7 +207,8 @@ public class AgendamentoController {
     }
 
     @GetMapping("/fixo")
-    public ResponseEntity<?> listarAgendamentosFixos(@AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<?> listarAgendamentosFixos(@AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissionalAtual) {
         logger.info("🔍 Solicitação para listar agendamentos fixos por: {}", userDetails.getUsername());
         try {
             List<AgendamentoFixo> agendamentosFixos;
@@ -205,7 +216,7 @@ public class AgendamentoController {
                 agendamentosFixos = agendamentoFixoRepository.findAll();
                 logger.info("✅ ADMIN listando todos os {} agendamentos fixos", agendamentosFixos.size());
             } else {
-                Profissional profissional = profissionalRepository.findByLogin(userDetails.getUsername());
+                Profissional profissional = profissionalAtual;
                 if (profissional == null) {
                     logger.warn("❌ Profissional não encontrado: {}", userDetails.getUsername());
                     return ResponseEntity.status(403).body("Profissional não encontrado.");
@@ -237,14 +248,14 @@ public class AgendamentoController {
     }
 
     private boolean isHorarioBloqueado(Profissional profissional, LocalDate data, LocalTime hora) {
-        List<BloqueioAgenda> bloqueios = bloqueioRepository.findByProfissionalAndData(profissional, data);
-        for (BloqueioAgenda bloqueio : bloqueios) {
-            if (bloqueio.isDiaTodo() ||
-                    (!hora.isBefore(bloqueio.getHoraInicio()) && !hora.isAfter(bloqueio.getHoraFim()))) {
-                return true;
-            }
-        }
-        return false;
+        return bloqueioIndex.estaBloqueado(profissional.getId(), data, hora);
+    }
+
+    private Duration duracaoTotal(List<Servico> servicos) {
+        return servicos.stream()
+                .filter(s -> s.getDuracao() != null)
+                .map(Servico::getDuracaoAsObject)
+                .reduce(Duration.ZERO, Duration::plus);
     }
 
     private void criarAgendamentoAPartirDeFixo(AgendamentoFixo agendamentoFixo, LocalDate data) {
@@ -277,11 +288,11 @@ public class AgendamentoController {
             AgendamentoFixo agendamentoFixo = agendamentoFixoRepository.findById(id)
                     .orElseThrow(() -> new RuntimeException("Agendamento fixo não encontrado"));
 
-            Cliente cliente = clienteRepository.findById(dados.clienteId())
+            Cliente cliente = clienteCacheService.findById(dados.clienteId())
                     .orElseThrow(() -> new RuntimeException("Cliente não encontrado"));
-            Profissional profissional = profissionalRepository.findById(dados.profissionalId())
+            Profissional profissional = profissionalCacheService.findById(dados.profissionalId())
                     .orElseThrow(() -> new RuntimeException("Profissional não encontrado"));
-            Servico servico = servicoRepository.findById(dados.servicoId())
+            Servico servico = servicoCacheService.findById(dados.servicoId())
                     .orElseThrow(() -> new RuntimeException("Serviço não encontrado"));
 
             agendamentoFixo.setCliente(cliente);
@@ -303,6 +314,12 @@ public class AgendamentoController {
 
             agendamentoFixoRepository.save(agendamentoFixo);
 
+            if (ocorrenciaFixaService.isVirtual()) {
+                // No modo VIRTUAL as ocorrências futuras são derivadas da série; as linhas gravadas são exceções
+                logger.info("✅ Agendamento fixo ID {} atualizado (modo VIRTUAL, sem reescrita de ocorrências)", id);
+                return ResponseEntity.ok(agendamentoFixo);
+            }
+
             LocalDate hoje = LocalDate.now();
             List<Agendamento> agendamentosGerados = agendamentoRepository.findByAgendamentoFixoId(id);
 
@@ -321,6 +338,11 @@ public class AgendamentoController {
                 agendamento.setObservacao(agendamentoFixo.getObservacao());
                 agendamentoRepository.save(agendamento);
             }
+            eventos.publishEvent(AgendamentoAlteradoEvent.de(
+                    agendamentosFuturos.stream().map(Agendamento::getId).collect(Collectors.toList())));
+            agendamentosFuturos.stream().map(Agendamento::getData).max(LocalDate::compareTo)
+                    .ifPresent(ultima -> eventos.publishEvent(
+                            AlteracaoFinanceiraEvent.noPeriodo(hoje, ultima, "agendamento-fixo")));
 
             return ResponseEntity.ok(agendamentoFixo);
 
@@ -345,6 +367,7 @@ public class AgendamentoController {
                     .orElseThrow(() -> new RuntimeException("Agendamento fixo não encontrado"));
 
             excluirAgendamentosGeradosPorFixo(id);
+            ocorrenciaFixaService.removerExcecoes(id);
 
             agendamentoFixoRepository.delete(agendamentoFixo);
             logger.info("✅ Agendamento fixo deletado com sucesso: {}", agendamentoFixo);
@@ -365,6 +388,12 @@ public class AgendamentoController {
                         agendamentosGerados.size(), agendamentoFixoId);
 
                 agendamentoRepository.deleteAll(agendamentosGerados);
+                eventos.publishEvent(AgendamentoAlteradoEvent.de(
+                        agendamentosGerados.stream().map(Agendamento::getId).collect(Collectors.toList())));
+                eventos.publishEvent(AlteracaoFinanceiraEvent.noPeriodo(
+                        agendamentosGerados.stream().map(Agendamento::getData).min(LocalDate::compareTo).get(),
+                        agendamentosGerados.stream().map(Agendamento::getData).max(LocalDate::compareTo).get(),
+                        "agendamento-fixo"));
 
                 logger.info("✅ {} agendamentos gerados foram excluídos com sucesso", agendamentosGerados.size());
             } else {
@@ -392,10 +421,13 @@ public class AgendamentoController {
         }
 
         try {
-            schedulerService.forcarGeracaoManual();
+            AgendamentoFixoSchedulerService.ResultadoGeracao resultado = schedulerService.forcarGeracaoManual();
             return ResponseEntity.ok(Map.of(
                 "mensagem", "Geração de ocorrências futuras executada com sucesso!",
-                "info", "Ocorrências foram criadas para os próximos 60 dias"
+                "info", "Ocorrências foram criadas para os próximos 60 dias",
+                "criadas", resultado.criadas(),
+                "existentes", resultado.existentes(),
+                "bloqueadas", resultado.bloqueadas()
             ));
         } catch (Exception e) {
             logger.error("❌ Erro ao forçar geração manual de ocorrências", e);
@@ -404,57 +436,156 @@ public class AgendamentoController {
         }
     }
 
+    /**
+     * Grava a linha de uma ocorrência de agendamento fixo para que possa receber baixa,
+     * ser remarcada ou editada (necessário no modo VIRTUAL). Idempotente.
+     */
+    @PostMapping("/fixo/{id}/ocorrencias/{data}")
+    public ResponseEntity<?> materializarOcorrencia(
+            @PathVariable Long id,
+            @PathVariable String data,
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissional) {
+        logger.info("🔍 Solicitação para materializar ocorrência {} do agendamento fixo ID {} por {}",
+                data, id, userDetails.getUsername());
+        try {
+            AgendamentoFixo agendamentoFixo = agendamentoFixoRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Agendamento fixo não encontrado"));
+
+            if (!userDetails.getAuthorities().contains(new SimpleGrantedAuthority("ADMIN"))) {
+                if (profissional == null
+                        || !Objects.equals(profissional.getId(), agendamentoFixo.getProfissional().getId())) {
+                    return ResponseEntity.status(403)
+                            .body("Acesso negado. Você só pode acessar seus próprios agendamentos.");
+                }
+            }
+
+            Agendamento agendamento = ocorrenciaFixaService.materializar(id, LocalDate.parse(data));
+            return ResponseEntity.ok(agendamento);
+        } catch (Exception e) {
+            logger.error("❌ Erro ao materializar ocorrência do agendamento fixo", e);
+            return ResponseEntity.status(500).body("Erro ao materializar ocorrência: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cancela uma única ocorrência de um agendamento fixo sem alterar a série.
+     * Apenas ADMIN pode executar.
+     */
+    @DeleteMapping("/fixo/{id}/ocorrencias/{data}")
+    public ResponseEntity<?> cancelarOcorrencia(
+            @PathVariable Long id,
+            @PathVariable String data,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        logger.info("🔍 Solicitação para cancelar ocorrência {} do agendamento fixo ID {} por {}",
+                data, id, userDetails.getUsername());
+
+        if (!userDetails.getAuthorities().contains(new SimpleGrantedAuthority("ADMIN"))) {
+            return ResponseEntity.status(403).body("Acesso negado. Apenas ADMIN pode cancelar ocorrências.");
+        }
+
+        try {
+            if (!agendamentoFixoRepository.existsById(id)) {
+                return ResponseEntity.status(404).body("Agendamento fixo não encontrado.");
+            }
+            ocorrenciaFixaService.cancelarOcorrencia(id, LocalDate.parse(data));
+            return ResponseEntity.ok("Ocorrência cancelada com sucesso.");
+        } catch (Exception e) {
+            logger.error("❌ Erro ao cancelar ocorrência do agendamento fixo", e);
+            return ResponseEntity.status(500).body("Erro ao cancelar ocorrência: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lista agendamentos paginados por cursor (do mais recente para o mais antigo).
+     * O próximo cursor vem no header X-Proximo-Cursor (ausente na última página).
+     */
     @GetMapping
-    public ResponseEntity<?> listarAgendamentos(@AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<?> listarAgendamentos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho,
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissional) {
         logger.info("🔍 Solicitando lista de agendamentos para: {}", userDetails.getUsername());
-        if (userDetails.getAuthorities().contains(new SimpleGrantedAuthority("ADMIN"))) {
-            logger.info("✅ ADMIN solicitou todos os agendamentos.");
-            List<Agendamento> todos = agendamentoRepository.findAll();
-            List<Map<String, Object>> resultado = todos.stream().map(a -> {
-                Map<String, Object> map = new HashMap<>();
-                map.put("isFixo", a.getAgendamentoFixoId() != null);
-                map.put("agendamento", a);
-                return map;
-            }).collect(Collectors.toList());
-            return ResponseEntity.ok(resultado);
-        } else {
-            Profissional profissional = profissionalRepository.findByLogin(userDetails.getUsername());
-            if (profissional == null) {
-                logger.warn("❌ Profissional não encontrado: {}", userDetails.getUsername());
-                return ResponseEntity.status(403).body("Profissional não encontrado.");
+        try {
+            if (userDetails.getAuthorities().contains(new SimpleGrantedAuthority("ADMIN"))) {
+                logger.info("✅ ADMIN solicitou todos os agendamentos.");
+                return paginaDeAgendamentos(null, cursor, tamanho);
+            } else {
+                if (profissional == null) {
+                    logger.warn("❌ Profissional não encontrado: {}", userDetails.getUsername());
+                    return ResponseEntity.status(403).body("Profissional não encontrado.");
+                }
+                logger.info("✅ PROFISSIONAL {} solicitando seus agendamentos.", profissional.getNome());
+                return paginaDeAgendamentos(profissional.getId(), cursor, tamanho);
             }
-            logger.info("✅ PROFISSIONAL {} solicitando seus agendamentos.", profissional.getNome());
-            List<Agendamento> agendamentos = agendamentoRepository.findByProfissional(profissional);
-            List<Map<String, Object>> resultado = agendamentos.stream().map(a -> {
-                Map<String, Object> map = new HashMap<>();
-                map.put("isFixo", a.getAgendamentoFixoId() != null);
-                map.put("agendamento", a);
-                return map;
-            }).collect(Collectors.toList());
-            return ResponseEntity.ok(resultado);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
     @GetMapping("/profissional")
-    public ResponseEntity<?> listarAgendamentosProfissional(@AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<?> listarAgendamentosProfissional(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho,
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissional) {
         logger.info("🔍 PROFISSIONAL {} solicitando seus agendamentos.", userDetails.getUsername());
 
-        Profissional profissional = profissionalRepository.findByLogin(userDetails.getUsername());
-
         if (profissional == null) {
             logger.warn("❌ Profissional não encontrado.");
             return ResponseEntity.status(403).body("Profissional não encontrado.");
         }
 
-        List<Agendamento> agendamentos = agendamentoRepository.findByProfissional(profissional);
+        try {
+            return paginaDeAgendamentos(profissional.getId(), cursor, tamanho);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Busca uma página (keyset em data, hora, id) de agendamentos, de todos ou de um profissional.
+     * O banco faz o corte; busca um registro a mais para saber se há próxima página.
+     */
+    private ResponseEntity<?> paginaDeAgendamentos(Long profissionalId, String cursor, Integer tamanho) {
+        int limite = tamanho == null || tamanho <= 0
+                ? TAMANHO_PAGINA_PADRAO
+                : Math.min(tamanho, TAMANHO_PAGINA_MAXIMO);
+        Pageable pagina = PageRequest.of(0, limite + 1);
+
+        List<Agendamento> agendamentos;
+        if (cursor == null || cursor.isBlank()) {
+            agendamentos = profissionalId == null
+                    ? agendamentoRepository.findPrimeiraPagina(pagina)
+                    : agendamentoRepository.findPrimeiraPaginaPorProfissional(profissionalId, pagina);
+        } else {
+            CursorAgendamento posicao = CursorAgendamento.decodificar(cursor);
+            agendamentos = profissionalId == null
+                    ? agendamentoRepository.findPaginaApos(posicao.data(), posicao.hora(), posicao.id(), pagina)
+                    : agendamentoRepository.findPaginaAposPorProfissional(
+                            profissionalId, posicao.data(), posicao.hora(), posicao.id(), pagina);
+        }
+
+        boolean temMais = agendamentos.size() > limite;
+        if (temMais) {
+            agendamentos = agendamentos.subList(0, limite);
+        }
+
         List<Map<String, Object>> resultado = agendamentos.stream().map(a -> {
             Map<String, Object> map = new HashMap<>();
             map.put("isFixo", a.getAgendamentoFixoId() != null);
             map.put("agendamento", a);
             return map;
         }).collect(Collectors.toList());
-        logger.info("✅ Retornando {} agendamentos para PROFISSIONAL {}", resultado.size(), profissional.getNome());
-        return ResponseEntity.ok(resultado);
+
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok();
+        if (temMais) {
+            resposta.header(HEADER_PROXIMO_CURSOR,
+                    CursorAgendamento.de(agendamentos.get(agendamentos.size() - 1)).codificar());
+        }
+        logger.info("✅ Retornando {} agendamentos (há mais: {})", resultado.size(), temMais);
+        return resposta.body(resultado);
     }
 
     @GetMapping("/profissional/{id}")
@@ -462,12 +593,12 @@ public class AgendamentoController {
             @PathVariable Long id,
             @RequestParam String dataInicio,
             @RequestParam String dataFim,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissional) {
         logger.info("🔍 Solicitando agendamentos para o profissional {} entre {} e {} por {}",
                 id, dataInicio, dataFim, userDetails.getUsername());
 
         if (!userDetails.getAuthorities().contains(new SimpleGrantedAuthority("ADMIN"))) {
-            Profissional profissional = profissionalRepository.findByLogin(userDetails.getUsername());
             if (profissional == null || profissional.getId() != id.longValue()) {
                 logger.warn("❌ Acesso negado para o profissional {}.", id);
                 return ResponseEntity.status(403).body("Acesso negado.");
@@ -480,15 +611,15 @@ public class AgendamentoController {
 
             logger.info("🔍 Parâmetros recebidos: profissionalId={}, dataInicio={}, dataFim={}", id, inicio, fim);
 
-            List<Agendamento> agendamentos = agendamentoRepository.findByProfissionalAndDataBetween(
-                    profissionalRepository.findById(id)
-                            .orElseThrow(() -> new RuntimeException("Profissional não encontrado")),
-                    inicio,
-                    fim);
+            if (!profissionalRepository.existsById(id)) {
+                throw new RuntimeException("Profissional não encontrado");
+            }
+            List<AgendamentoResumo> agendamentos = AgendamentoResumo.agrupar(
+                    agendamentoRepository.findResumosPorProfissionalEPeriodo(id, inicio, fim));
 
             List<Map<String, Object>> resultado = agendamentos.stream().map(a -> {
                 Map<String, Object> map = new HashMap<>();
-                map.put("isFixo", a.getAgendamentoFixoId() != null);
+                map.put("isFixo", a.agendamentoFixoId() != null);
                 map.put("agendamento", a);
                 return map;
             }).collect(Collectors.toList());
@@ -503,20 +634,22 @@ public class AgendamentoController {
 
     @GetMapping("/dia")
     public ResponseEntity<?> listarPorData(@RequestParam String data,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissional) {
         logger.info("🔍 Solicitando agendamentos para o dia {} por {}", data, userDetails.getUsername());
         try {
             LocalDate dataFormatada = LocalDate.parse(data);
-            List<Agendamento> agendamentosNormais;
+            List<AgendamentoResumo> agendamentosNormais;
             if (userDetails.getAuthorities().contains(new SimpleGrantedAuthority("ADMIN"))) {
-                agendamentosNormais = agendamentoRepository.findByData(dataFormatada);
+                agendamentosNormais = AgendamentoResumo.agrupar(
+                        agendamentoRepository.findResumosPorPeriodo(dataFormatada, dataFormatada));
             } else {
-                Profissional profissional = profissionalRepository.findByLogin(userDetails.getUsername());
                 if (profissional == null) {
                     logger.warn("❌ Profissional não encontrado: {}", userDetails.getUsername());
                     return ResponseEntity.status(403).body("Profissional não encontrado.");
                 }
-                agendamentosNormais = agendamentoRepository.findByProfissionalAndData(profissional, dataFormatada);
+                agendamentosNormais = AgendamentoResumo.agrupar(agendamentoRepository
+                        .findResumosPorProfissionalEPeriodo(profissional.getId(), dataFormatada, dataFormatada));
             }
             List<Map<String, Object>> normais = agendamentosNormais.stream().map(a -> {
                 Map<String, Object> map = new HashMap<>();
@@ -527,29 +660,20 @@ public class AgendamentoController {
 
             List<AgendamentoFixo> fixedActive = agendamentoFixoRepository.findActiveSchedulesForDate(dataFormatada);
             if (!userDetails.getAuthorities().contains(new SimpleGrantedAuthority("ADMIN"))) {
-                Profissional profissional = profissionalRepository.findByLogin(userDetails.getUsername());
                 fixedActive = fixedActive.stream()
                         .filter(f -> f.getProfissional().getId() == profissional.getId())
                         .collect(Collectors.toList());
             }
-            List<Map<String, Object>> fixos = fixedActive.stream().filter(fix -> {
-                int currentDay = dataFormatada.getDayOfMonth();
-                int dayOfWeek = dataFormatada.getDayOfWeek().getValue() % 7 + 1;
-                boolean isLastDayOfMonth = (currentDay == dataFormatada.lengthOfMonth());
-                switch (fix.getTipoRepeticao()) {
-                    case DIARIA:
-                        return true;
-                    case SEMANAL:
-                        return (fix.getValorRepeticao() & (1 << (dayOfWeek - 1))) != 0;
-                    case MENSAL:
-                        if (fix.getValorRepeticao() == -1) {
-                            return isLastDayOfMonth;
-                        }
-                        return fix.getDiaDoMes() == currentDay;
-                    default:
-                        return false;
-                }
-            }).map(f -> {
+            // No modo VIRTUAL, descarta as ocorrências que já têm linha gravada ou foram canceladas
+            List<AgendamentoFixo> fixosDoDia = ocorrenciaFixaService.isVirtual()
+                    ? ocorrenciaFixaService.expandir(fixedActive, dataFormatada, dataFormatada).stream()
+                            .map(OcorrenciaFixaService.OcorrenciaVirtual::agendamentoFixo)
+                            .collect(Collectors.toList())
+                    : fixedActive.stream()
+                            .filter(fix -> RegraRecorrencia.ocorreEm(fix, dataFormatada))
+                            .collect(Collectors.toList());
+            List<Map<String, Object>> fixos = fixosDoDia.stream()
+                    .map(f -> {
                 Map<String, Object> map = new HashMap<>();
                 map.put("isFixo", true);
                 map.put("agendamento", f);
@@ -639,30 +763,31 @@ public class AgendamentoController {
     public ResponseEntity<?> listarPorIntervalo(
             @RequestParam String dataInicio,
             @RequestParam String dataFim,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissional) {
         logger.info("🔍 Solicitando agendamentos de {} a {} por {}", dataInicio, dataFim, userDetails.getUsername());
         try {
             LocalDate inicio = LocalDate.parse(dataInicio);
             LocalDate fim = LocalDate.parse(dataFim);
             
             // Buscar agendamentos normais no intervalo
-            List<Agendamento> agendamentosNormais;
+            List<AgendamentoResumo> agendamentosNormais;
             if (userDetails.getAuthorities().contains(new SimpleGrantedAuthority("ADMIN"))) {
-                agendamentosNormais = agendamentoRepository.findByDataBetween(inicio, fim);
+                agendamentosNormais = AgendamentoResumo.agrupar(agendamentoRepository.findResumosPorPeriodo(inicio, fim));
             } else {
-                Profissional profissional = profissionalRepository.findByLogin(userDetails.getUsername());
                 if (profissional == null) {
                     logger.warn("❌ Profissional não encontrado: {}", userDetails.getUsername());
                     return ResponseEntity.status(403).body("Profissional não encontrado.");
                 }
-                agendamentosNormais = agendamentoRepository.findByProfissionalAndDataBetween(profissional, inicio, fim);
+                agendamentosNormais = AgendamentoResumo.agrupar(agendamentoRepository
+                        .findResumosPorProfissionalEPeriodo(profissional.getId(), inicio, fim));
             }
 
             // Processar agendamentos normais
             List<Map<String, Object>> normais = agendamentosNormais.stream().map(a -> {
                 Map<String, Object> map = new HashMap<>();
-                map.put("data", a.getData().toString());
-                map.put("hora", a.getHora().toString());
+                map.put("data", a.data().toString());
+                map.put("hora", a.hora().toString());
                 map.put("isFixo", false);
                 map.put("agendamento", a);
                 return map;
@@ -671,66 +796,50 @@ public class AgendamentoController {
             // Buscar agendamentos fixos ativos - usar a data de início como referência
             List<AgendamentoFixo> fixedActive = agendamentoFixoRepository.findActiveSchedulesForDate(inicio);
             if (!userDetails.getAuthorities().contains(new SimpleGrantedAuthority("ADMIN"))) {
-                Profissional profissional = profissionalRepository.findByLogin(userDetails.getUsername());
                 fixedActive = fixedActive.stream()
                         .filter(f -> f.getProfissional().getId() == profissional.getId())
                         .collect(Collectors.toList());
             }
 
-            // Gerar ocorrências dos agendamentos fixos para cada dia do intervalo
+            // Expandir as ocorrências de cada agendamento fixo no intervalo
+            List<OcorrenciaFixaService.OcorrenciaVirtual> ocorrencias;
+            if (ocorrenciaFixaService.isVirtual()) {
+                // Sem as ocorrências que já têm linha gravada (pagas/remarcadas) ou foram canceladas
+                ocorrencias = ocorrenciaFixaService.expandir(fixedActive, inicio, fim);
+            } else {
+                ocorrencias = new ArrayList<>();
+                for (AgendamentoFixo f : fixedActive) {
+                    RegraRecorrencia.ocorrencias(f, inicio, fim)
+                            .forEach(d -> ocorrencias.add(new OcorrenciaFixaService.OcorrenciaVirtual(f, d)));
+                }
+                // Mantém a ordem cronológica da resposta anterior (dia a dia)
+                ocorrencias.sort(Comparator.comparing(OcorrenciaFixaService.OcorrenciaVirtual::data));
+            }
+
             List<Map<String, Object>> fixos = new ArrayList<>();
-            for (LocalDate data = inicio; !data.isAfter(fim); data = data.plusDays(1)) {
-                final LocalDate dataFinal = data;
-                int currentDay = data.getDayOfMonth();
-                int dayOfWeek = data.getDayOfWeek().getValue() % 7 + 1;
-                boolean isLastDayOfMonth = (currentDay == data.lengthOfMonth());
-
-                fixedActive.stream().filter(fix -> {
-                    // Verificar se está dentro do período ativo
-                    if (fix.getDataInicio() != null && dataFinal.isBefore(fix.getDataInicio())) {
-                        return false;
-                    }
-                    if (fix.getDataFim() != null && dataFinal.isAfter(fix.getDataFim())) {
-                        return false;
-                    }
-
-                    // Verificar padrão de repetição
-                    switch (fix.getTipoRepeticao()) {
-                        case DIARIA:
-                            return true;
-                        case SEMANAL:
-                            return (fix.getValorRepeticao() & (1 << (dayOfWeek - 1))) != 0;
-                        case MENSAL:
-                            if (fix.getValorRepeticao() == -1) {
-                                return isLastDayOfMonth;
-                            }
-                            return fix.getDiaDoMes() == currentDay;
-                        case QUINZENAL:
-                            return (fix.getValorRepeticao() & (1 << (dayOfWeek - 1))) != 0;
-                        default:
-                            return false;
-                    }
-                }).forEach(f -> {
-                    Map<String, Object> map = new HashMap<>();
-                    map.put("data", dataFinal.toString());
-                    map.put("hora", f.getHora().toString());
-                    map.put("isFixo", true);
-                    
-                    // Criar uma cópia do agendamento fixo com a data específica
-                    Map<String, Object> fixoComData = new HashMap<>();
-                    fixoComData.put("id", f.getId());
-                    fixoComData.put("cliente", f.getCliente());
-                    fixoComData.put("profissional", f.getProfissional());
-                    fixoComData.put("servico", f.getServico());
-                    fixoComData.put("hora", f.getHora());
-                    fixoComData.put("duracao", f.getDuracao());
-                    fixoComData.put("valor", f.getValor());
-                    fixoComData.put("observacao", f.getObservacao());
-                    fixoComData.put("data", dataFinal.toString());
-                    
-                    map.put("agendamento", fixoComData);
-                    fixos.add(map);
-                });
+            for (OcorrenciaFixaService.OcorrenciaVirtual ocorrencia : ocorrencias) {
+                AgendamentoFixo f = ocorrencia.agendamentoFixo();
+                String dataOcorrencia = ocorrencia.data().toString();
+
+                Map<String, Object> map = new HashMap<>();
+                map.put("data", dataOcorrencia);
+                map.put("hora", f.getHora().toString());
+                map.put("isFixo", true);
+                
+                // Criar uma cópia do agendamento fixo com a data específica
+                Map<String, Object> fixoComData = new HashMap<>();
+                fixoComData.put("id", f.getId());
+                fixoComData.put("cliente", f.getCliente());
+                fixoComData.put("profissional", f.getProfissional());
+                fixoComData.put("servico", f.getServico());
+                fixoComData.put("hora", f.getHora());
+                fixoComData.put("duracao", f.getDuracao());
+                fixoComData.put("valor", f.getValor());
+                fixoComData.put("observacao", f.getObservacao());
+                fixoComData.put("data", dataOcorrencia);
+                
+                map.put("agendamento", fixoComData);
+                fixos.add(map);
             }
 
             Map<String, Object> resposta = new HashMap<>();
@@ -788,13 +897,14 @@ public class AgendamentoController {
 
     @PostMapping
     public ResponseEntity<?> cadastrar(@RequestBody DadosCadastroAgendamento dados,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissionalAtual) {
         logger.info("🔍 Solicitação para criar agendamento por: {}", userDetails.getUsername());
 
         try {
             boolean isAdmin = userDetails.getAuthorities().contains(new SimpleGrantedAuthority("ADMIN"));
 
-            Cliente cliente = clienteRepository.findById(dados.clienteId())
+            Cliente cliente = clienteCacheService.findById(dados.clienteId())
                     .orElseThrow(() -> new RuntimeException("Cliente não encontrado"));
 
             // Obter lista de IDs de serviços (pode ser um ou múltiplos)
@@ -806,18 +916,18 @@ public class AgendamentoController {
             // Buscar todos os serviços
             List<Servico> servicos = new ArrayList<>();
             for (Long servicoId : servicoIds) {
-                Servico servico = servicoRepository.findById(servicoId)
+                Servico servico = servicoCacheService.findById(servicoId)
                         .orElseThrow(() -> new RuntimeException("Serviço com ID " + servicoId + " não encontrado"));
                 servicos.add(servico);
             }
 
             Profissional profissional;
             if (isAdmin) {
-                profissional = profissionalRepository.findById(dados.profissionalId())
+                profissional = profissionalCacheService.findById(dados.profissionalId())
                         .orElseThrow(() -> new RuntimeException("Profissional não encontrado"));
                 logger.info("✅ ADMIN criando agendamento para o profissional: {}", profissional.getNome());
             } else {
-                profissional = profissionalRepository.findByLogin(userDetails.getUsername());
+                profissional = profissionalAtual;
                 if (profissional == null) {
                     logger.warn("❌ Profissional não encontrado para o usuário: {}", userDetails.getUsername());
                     return ResponseEntity.status(403).body("Profissional não encontrado.");
@@ -856,9 +966,21 @@ public class AgendamentoController {
                 agendamento.setServico(servicos.get(0));
             }
 
-            agendamentoRepository.save(agendamento);
-            logger.info("✅ Agendamento criado com sucesso com {} serviço(s): {}", servicos.size(), agendamento);
-            return ResponseEntity.ok("Agendamento criado com sucesso.");
+            // Verifica sobreposição pela duração total dos serviços e grava sob a trava do profissional/dia
+            Duration duracao = duracaoTotal(servicos);
+            return conflitoService.comTrava(profissional.getId(), dados.data(), () -> {
+                Optional<ConflitoAgendamentoService.Conflito> conflito = conflitoService.verificar(
+                        profissional.getId(), dados.data(), dados.hora(), duracao, null);
+                if (conflito.isPresent()) {
+                    logger.warn("❌ {}", conflito.get().descricao());
+                    return ResponseEntity.status(409).body(conflito.get().descricao());
+                }
+
+                agendamentoRepository.save(agendamento);
+                eventos.publishEvent(AlteracaoFinanceiraEvent.naData(dados.data(), "agendamento"));
+                logger.info("✅ Agendamento criado com sucesso com {} serviço(s): {}", servicos.size(), agendamento);
+                return ResponseEntity.ok("Agendamento criado com sucesso.");
+            });
         } catch (Exception e) {
             logger.error("❌ Erro ao criar agendamento", e);
             return ResponseEntity.status(500).body("Erro ao criar agendamento: " + e.getMessage());
@@ -869,7 +991,8 @@ public class AgendamentoController {
     public ResponseEntity<?> atualizarAgendamento(
             @PathVariable Long id,
             @RequestBody DadosCadastroAgendamento dados,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissionalAtual) {
         logger.info("🔍 Solicitação para atualizar agendamento ID {} por: {}", id, userDetails.getUsername());
 
         try {
@@ -879,7 +1002,7 @@ public class AgendamentoController {
                     .orElseThrow(() -> new RuntimeException("Agendamento não encontrado"));
 
             if (!isAdmin) {
-                Profissional profissional = profissionalRepository.findByLogin(userDetails.getUsername());
+                Profissional profissional = profissionalAtual;
                 if (profissional == null) {
                     logger.warn("❌ Profissional não encontrado para o usuário: {}", userDetails.getUsername());
                     return ResponseEntity.status(403).body("Profissional não encontrado.");
@@ -903,10 +1026,10 @@ public class AgendamentoController {
                 logger.info("✅ ADMIN atualizando agendamento ID {}", id);
             }
 
-            Cliente cliente = clienteRepository.findById(dados.clienteId())
+            Cliente cliente = clienteCacheService.findById(dados.clienteId())
                     .orElseThrow(() -> new RuntimeException("Cliente não encontrado"));
 
-            Profissional profissional = profissionalRepository.findById(dados.profissionalId())
+            Profissional profissional = profissionalCacheService.findById(dados.profissionalId())
                     .orElseThrow(() -> new RuntimeException("Profissional não encontrado"));
 
             // Obter lista de IDs de serviços (pode ser um ou múltiplos)
@@ -918,11 +1041,19 @@ public class AgendamentoController {
             // Buscar todos os serviços
             List<Servico> servicos = new ArrayList<>();
             for (Long servicoId : servicoIds) {
-                Servico servico = servicoRepository.findById(servicoId)
+                Servico servico = servicoCacheService.findById(servicoId)
                         .orElseThrow(() -> new RuntimeException("Serviço com ID " + servicoId + " não encontrado"));
                 servicos.add(servico);
             }
 
+            LocalDate dataAnterior = agendamento.getData();
+
+            // Ocorrência de agendamento fixo remarcada: guarda a data original da ocorrência
+            if (agendamento.getAgendamentoFixoId() != null && agendamento.getDataOcorrencia() == null
+                    && !Objects.equals(agendamento.getData(), dados.data())) {
+                agendamento.setDataOcorrencia(agendamento.getData());
+            }
+
             agendamento.setCliente(cliente);
             agendamento.setProfissional(profissional);
             agendamento.setData(dados.data());
@@ -940,10 +1071,25 @@ public class AgendamentoController {
                 agendamento.setServico(servicos.get(0));
             }
 
-            agendamentoRepository.save(agendamento);
-            String usuarioTipo = isAdmin ? "ADMIN" : "PROFISSIONAL";
-            logger.info("✅ Agendamento atualizado com sucesso por {} com {} serviço(s): {}", usuarioTipo, servicos.size(), agendamento);
-            return ResponseEntity.ok("Agendamento atualizado com sucesso.");
+            Duration duracao = duracaoTotal(servicos);
+            return conflitoService.comTrava(profissional.getId(), dados.data(), () -> {
+                Optional<ConflitoAgendamentoService.Conflito> conflito = conflitoService.verificar(
+                        profissional.getId(), dados.data(), dados.hora(), duracao, id);
+                if (conflito.isPresent()) {
+                    logger.warn("❌ {}", conflito.get().descricao());
+                    return ResponseEntity.status(409).body(conflito.get().descricao());
+                }
+
+                agendamentoRepository.save(agendamento);
+                eventos.publishEvent(AgendamentoAlteradoEvent.de(id));
+                eventos.publishEvent(AlteracaoFinanceiraEvent.naData(dataAnterior, "agendamento"));
+                if (!Objects.equals(dataAnterior, dados.data())) {
+                    eventos.publishEvent(AlteracaoFinanceiraEvent.naData(dados.data(), "agendamento"));
+                }
+                String usuarioTipo = isAdmin ? "ADMIN" : "PROFISSIONAL";
+                logger.info("✅ Agendamento atualizado com sucesso por {} com {} serviço(s): {}", usuarioTipo, servicos.size(), agendamento);
+                return ResponseEntity.ok("Agendamento atualizado com sucesso.");
+            });
         } catch (Exception e) {
             logger.error("❌ Erro ao atualizar agendamento", e);
             return ResponseEntity.status(500).body("Erro ao atualizar agendamento: " + e.getMessage());
@@ -952,7 +1098,8 @@ public class AgendamentoController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> excluirAgendamento(@PathVariable Long id,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissional) {
         logger.info("🔍 Solicitação para excluir agendamento ID {} por: {}", id, userDetails.getUsername());
 
         try {
@@ -966,7 +1113,6 @@ public class AgendamentoController {
             Agendamento agendamento = agendamentoRepository.findById(id).get();
 
             if (!isAdmin) {
-                Profissional profissional = profissionalRepository.findByLogin(userDetails.getUsername());
                 if (profissional == null) {
                     logger.warn("❌ Profissional não encontrado para o usuário: {}", userDetails.getUsername());
                     return ResponseEntity.status(403).body("Profissional não encontrado.");
@@ -983,7 +1129,15 @@ public class AgendamentoController {
                 logger.info("✅ ADMIN excluindo agendamento ID {}", id);
             }
 
+            // Ocorrência de agendamento fixo: registra o cancelamento para que não volte a aparecer
+            if (agendamento.getAgendamentoFixoId() != null) {
+                ocorrenciaFixaService.registrarCancelamento(
+                        agendamento.getAgendamentoFixoId(), agendamento.getDataOcorrenciaEfetiva());
+            }
+
             agendamentoRepository.deleteById(id);
+            eventos.publishEvent(AgendamentoAlteradoEvent.de(id));
+            eventos.publishEvent(AlteracaoFinanceiraEvent.naData(agendamento.getData(), "agendamento"));
             String usuarioTipo = isAdmin ? "ADMIN" : "PROFISSIONAL";
             logger.info("✅ Agendamento excluído com sucesso por {}. ID: {}", usuarioTipo, id);
             return ResponseEntity.ok("Agendamento excluído com sucesso.");
@@ -998,7 +1152,8 @@ public class AgendamentoController {
     public ResponseEntity<?> darBaixaEmAgendamento(
             @PathVariable Long id,
             @RequestParam("formaPagamento") PagamentoTipo formaPagamento,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissional) {
         logger.info("🔄 Solicitação de baixa no agendamento ID {} por {}", id, userDetails.getUsername());
         try {
             Agendamento agendamento = agendamentoRepository.findById(id)
@@ -1007,7 +1162,6 @@ public class AgendamentoController {
             // Permitir apenas ADMIN ou o próprio profissional
             boolean isAdmin = userDetails.getAuthorities().contains(new SimpleGrantedAuthority("ADMIN"));
             if (!isAdmin) {
-                Profissional profissional = profissionalRepository.findByLogin(userDetails.getUsername());
                 if (profissional == null || agendamento.getProfissional() == null || !Objects.equals(profissional.getId(), agendamento.getProfissional().getId())) {
                     return ResponseEntity.status(403).body("Acesso negado. Você só pode dar baixa nos seus próprios agendamentos.");
                 }
@@ -1021,6 +1175,8 @@ public class AgendamentoController {
             agendamento.setDataPagamento(java.time.LocalDateTime.now());
             agendamento.setFormaPagamento(formaPagamento);
             agendamentoRepository.save(agendamento);
+            eventos.publishEvent(AgendamentoAlteradoEvent.de(id));
+            eventos.publishEvent(AlteracaoFinanceiraEvent.naData(agendamento.getData(), "baixa"));
 
             return ResponseEntity.ok("Baixa realizada com sucesso.");
         } catch (Exception e) {
@@ -1033,7 +1189,8 @@ public class AgendamentoController {
     @PutMapping("/{id}/concluir")
     public ResponseEntity<?> marcarComoConcluido(
             @PathVariable Long id,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissional) {
         logger.info("🔄 Solicitação para marcar agendamento ID {} como concluído (pronto para pagamento) por {}", id, userDetails.getUsername());
         try {
             Agendamento agendamento = agendamentoRepository.findById(id)
@@ -1042,7 +1199,6 @@ public class AgendamentoController {
             // Permitir apenas ADMIN ou o próprio profissional
             boolean isAdmin = userDetails.getAuthorities().contains(new SimpleGrantedAuthority("ADMIN"));
             if (!isAdmin) {
-                Profissional profissional = profissionalRepository.findByLogin(userDetails.getUsername());
                 if (profissional == null || agendamento.getProfissional() == null || !Objects.equals(profissional.getId(), agendamento.getProfissional().getId())) {
                     return ResponseEntity.status(403).body("Acesso negado. Você só pode marcar seus próprios agendamentos como concluídos.");
                 }
@@ -1,6 +1,7 @@
 package com.maestria.agenda.controller;
 
 import com.maestria.agenda.profissional.Profissional;
+import com.maestria.agenda.profissional.ProfissionalCacheService;
 import com.maestria.agenda.profissional.ProfissionalRepository;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -18,10 +19,13 @@ import java.util.HashMap;
 public class AuthController {
 
     private final ProfissionalRepository profissionalRepository;
+    private final ProfissionalCacheService profissionalCacheService;
     private final PasswordEncoder passwordEncoder;
 
-    public AuthController(ProfissionalRepository profissionalRepository, PasswordEncoder passwordEncoder) {
+    public AuthController(ProfissionalRepository profissionalRepository,
+            ProfissionalCacheService profissionalCacheService, PasswordEncoder passwordEncoder) {
         this.profissionalRepository = profissionalRepository;
+        this.profissionalCacheService = profissionalCacheService;
         this.passwordEncoder = passwordEncoder;
     }
 
@@ -32,7 +36,7 @@ public class AuthController {
         }
 
         String username = userDetails.getUsername();
-        Optional<Profissional> profissional = Optional.ofNullable(profissionalRepository.findByLogin(username));
+        Optional<Profissional> profissional = Optional.ofNullable(profissionalCacheService.findByLogin(username));
 
         if (profissional.isPresent()) {
             Profissional user = profissional.get();
@@ -62,7 +66,7 @@ public class AuthController {
         profissional.setSenha(passwordEncoder.encode(profissional.getSenha()));
 
         // Salvar o novo profissional
-        profissionalRepository.save(profissional);
+        profissionalCacheService.save(profissional);
 
         return ResponseEntity.ok("Usuário registrado com sucesso!");
     }
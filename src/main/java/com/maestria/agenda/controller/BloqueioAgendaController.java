@@ -1,8 +1,10 @@
 package com.maestria.agenda.controller;
 
 import com.maestria.agenda.bloqueio.BloqueioAgenda;
+import com.maestria.agenda.bloqueio.BloqueioAgendaIndex;
 import com.maestria.agenda.bloqueio.BloqueioAgendaRepository;
 import com.maestria.agenda.bloqueio.DadosCadastroBloqueio;
+import com.maestria.agenda.profissional.CurrentProfissional;
 import com.maestria.agenda.profissional.Profissional;
 import com.maestria.agenda.profissional.ProfissionalRepository;
 
@@ -28,11 +30,14 @@ public class BloqueioAgendaController {
 
     private final BloqueioAgendaRepository bloqueioRepository;
     private final ProfissionalRepository profissionalRepository;
+    private final BloqueioAgendaIndex bloqueioIndex;
 
     public BloqueioAgendaController(BloqueioAgendaRepository bloqueioRepository,
-                                  ProfissionalRepository profissionalRepository) {
+                                  ProfissionalRepository profissionalRepository,
+                                  BloqueioAgendaIndex bloqueioIndex) {
         this.bloqueioRepository = bloqueioRepository;
         this.profissionalRepository = profissionalRepository;
+        this.bloqueioIndex = bloqueioIndex;
     }
 
     /**
@@ -43,7 +48,8 @@ public class BloqueioAgendaController {
     @PostMapping
 public ResponseEntity<?> cadastrarBloqueio(
         @RequestBody Map<String, Object> rawData,
-        @AuthenticationPrincipal UserDetails userDetails) {
+        @AuthenticationPrincipal UserDetails userDetails,
+        @CurrentProfissional Profissional profissionalAtual) {
 
     logger.info("🔍 Solicitação para criar bloqueio de agenda por: {}", userDetails.getUsername());
 
@@ -81,7 +87,7 @@ public ResponseEntity<?> cadastrarBloqueio(
             logger.info("✅ ADMIN criando bloqueio para o profissional: {}", profissional.getNome());
         } else {
             // Profissional só pode bloquear para si mesmo
-            profissional = profissionalRepository.findByLogin(userDetails.getUsername());
+            profissional = profissionalAtual;
             if (profissional == null) {
                 logger.warn("❌ Profissional não encontrado para o usuário: {}", userDetails.getUsername());
                 return ResponseEntity.status(403).body("Profissional não encontrado.");
@@ -116,6 +122,7 @@ public ResponseEntity<?> cadastrarBloqueio(
         
         // Salvar o bloqueio
         bloqueioRepository.save(bloqueio);
+        bloqueioIndex.registrar(bloqueio);
         
         logger.info("✅ Bloqueio de agenda criado com sucesso: {}", bloqueio);
         return ResponseEntity.ok(bloqueio);
@@ -131,7 +138,7 @@ public ResponseEntity<?> cadastrarBloqueio(
      * PROFISSIONAL vê apenas seus próprios bloqueios
      */
     @GetMapping
-    public ResponseEntity<?> listarBloqueios(@AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<?> listarBloqueios(@AuthenticationPrincipal UserDetails userDetails, @CurrentProfissional Profissional profissional) {
         logger.info("🔍 Solicitação para listar bloqueios de agenda por: {}", userDetails.getUsername());
         
         try {
@@ -144,7 +151,6 @@ public ResponseEntity<?> cadastrarBloqueio(
                 logger.info("✅ ADMIN listando todos os {} bloqueios de agenda", bloqueios.size());
             } else {
                 // Profissional vê apenas seus próprios bloqueios
-                Profissional profissional = profissionalRepository.findByLogin(userDetails.getUsername());
                 if (profissional == null) {
                     logger.warn("❌ Profissional não encontrado: {}", userDetails.getUsername());
                     return ResponseEntity.status(403).body("Profissional não encontrado.");
@@ -172,7 +178,8 @@ public ResponseEntity<?> cadastrarBloqueio(
             @RequestParam Long profissionalId,
             @RequestParam String dataInicio,
             @RequestParam String dataFim,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissional) {
         
         logger.info("🔍 Solicitação para buscar bloqueios de {} entre {} e {} por {}", 
                 profissionalId, dataInicio, dataFim, userDetails.getUsername());
@@ -182,7 +189,6 @@ public ResponseEntity<?> cadastrarBloqueio(
             
             // Se não for admin, verificar se está consultando seus próprios bloqueios
             if (!isAdmin) {
-                Profissional profissional = profissionalRepository.findByLogin(userDetails.getUsername());
                 if (profissional == null) {
                     logger.warn("❌ Profissional não encontrado: {}", userDetails.getUsername());
                     return ResponseEntity.status(403).body("Profissional não encontrado.");
@@ -200,8 +206,7 @@ public ResponseEntity<?> cadastrarBloqueio(
             LocalDate inicio = LocalDate.parse(dataInicio);
             LocalDate fim = LocalDate.parse(dataFim);
             
-            List<BloqueioAgenda> bloqueios = bloqueioRepository.findByProfissionalAndPeriodo(
-                    profissionalId, inicio, fim);
+            List<BloqueioAgenda> bloqueios = bloqueioIndex.bloqueiosNoPeriodo(profissionalId, inicio, fim);
             
             String usuarioTipo = isAdmin ? "ADMIN" : "PROFISSIONAL";
             logger.info("✅ {} encontrou {} bloqueios no período solicitado", usuarioTipo, bloqueios.size());
@@ -220,7 +225,8 @@ public ResponseEntity<?> cadastrarBloqueio(
     @GetMapping("/data")
     public ResponseEntity<?> buscarBloqueiosPorData(
             @RequestParam String data,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissional) {
         
         logger.info("🔍 Solicitação para buscar bloqueios na data {} por {}", 
                 data, userDetails.getUsername());
@@ -236,13 +242,12 @@ public ResponseEntity<?> cadastrarBloqueio(
                 logger.info("✅ ADMIN encontrou {} bloqueios para a data {}", bloqueios.size(), data);
             } else {
                 // Profissional vê apenas seus bloqueios da data
-                Profissional profissional = profissionalRepository.findByLogin(userDetails.getUsername());
                 if (profissional == null) {
                     logger.warn("❌ Profissional não encontrado: {}", userDetails.getUsername());
                     return ResponseEntity.status(403).body("Profissional não encontrado.");
                 }
                 
-                bloqueios = bloqueioRepository.findByProfissionalAndData(profissional, dataFormatada);
+                bloqueios = bloqueioIndex.bloqueiosNoPeriodo(profissional.getId(), dataFormatada, dataFormatada);
                 logger.info("✅ PROFISSIONAL {} encontrou {} bloqueios para a data {}", 
                         profissional.getNome(), bloqueios.size(), data);
             }
@@ -262,7 +267,8 @@ public ResponseEntity<?> cadastrarBloqueio(
     @DeleteMapping("/{id}")
     public ResponseEntity<?> excluirBloqueio(
             @PathVariable Long id,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissional) {
         
         logger.info("🔍 Solicitação para excluir bloqueio ID {} por: {}", id, userDetails.getUsername());
         
@@ -280,7 +286,6 @@ public ResponseEntity<?> cadastrarBloqueio(
             
             // Se não é admin, verificar se é o profissional deste bloqueio
             if (!isAdmin) {
-                Profissional profissional = profissionalRepository.findByLogin(userDetails.getUsername());
                 if (profissional == null) {
                     logger.warn("❌ Profissional não encontrado para o usuário: {}", userDetails.getUsername());
                     return ResponseEntity.status(403).body("Profissional não encontrado.");
@@ -298,6 +303,7 @@ public ResponseEntity<?> cadastrarBloqueio(
             }
             
             bloqueioRepository.deleteById(id);
+            bloqueioIndex.remover(bloqueio);
             
             String usuarioTipo = isAdmin ? "ADMIN" : "PROFISSIONAL";
             logger.info("✅ Bloqueio excluído com sucesso por {}. ID: {}", usuarioTipo, id);
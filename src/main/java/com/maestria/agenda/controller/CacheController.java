@@ -0,0 +1,58 @@
+package com.maestria.agenda.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/cache")
+public class CacheController {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheController.class);
+
+    private final CacheManager cacheManager;
+
+    public CacheController(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public record EstatisticasCache(String nome, long tamanho, long acertos, long falhas, double taxaAcerto,
+            long remocoes) {
+    }
+
+    /**
+     * Acertos/falhas de cada cache desde o início da aplicação (apenas ADMIN)
+     */
+    @GetMapping("/estatisticas")
+    public ResponseEntity<?> estatisticas(@AuthenticationPrincipal UserDetails userDetails) {
+        if (!userDetails.getAuthorities().contains(new SimpleGrantedAuthority("ADMIN"))) {
+            logger.warn("❌ Tentativa de acesso às estatísticas de cache sem permissão por {}", userDetails.getUsername());
+            return ResponseEntity.status(403).body("Acesso negado. Apenas ADMIN pode ver as estatísticas de cache.");
+        }
+
+        List<EstatisticasCache> estatisticas = new ArrayList<>();
+        for (String nome : cacheManager.getCacheNames()) {
+            if (cacheManager.getCache(nome) instanceof CaffeineCache cache) {
+                CacheStats stats = cache.getNativeCache().stats();
+                estatisticas.add(new EstatisticasCache(
+                        nome,
+                        cache.getNativeCache().estimatedSize(),
+                        stats.hitCount(),
+                        stats.missCount(),
+                        stats.hitRate(),
+                        stats.evictionCount()));
+            }
+        }
+        return ResponseEntity.ok(estatisticas);
+    }
+}
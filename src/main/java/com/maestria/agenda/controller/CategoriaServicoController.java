@@ -2,6 +2,7 @@ package com.maestria.agenda.controller;
 
 import com.maestria.agenda.servico.CategoriaServico;
 import com.maestria.agenda.servico.CategoriaServicoRepository;
+import com.maestria.agenda.servico.ServicoCacheService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -14,9 +15,12 @@ import java.util.List;
 public class CategoriaServicoController {
 
     private final CategoriaServicoRepository categoriaRepository;
+    private final ServicoCacheService servicoCacheService;
 
-    public CategoriaServicoController(CategoriaServicoRepository categoriaRepository) {
+    public CategoriaServicoController(CategoriaServicoRepository categoriaRepository,
+            ServicoCacheService servicoCacheService) {
         this.categoriaRepository = categoriaRepository;
+        this.servicoCacheService = servicoCacheService;
     }
 
     @GetMapping
@@ -45,7 +49,10 @@ public class CategoriaServicoController {
                         return ResponseEntity.badRequest().body("Já existe uma categoria com este nome.");
                     }
                     existing.setNome(categoria.getNome());
-                    return ResponseEntity.ok(categoriaRepository.save(existing));
+                    CategoriaServico salva = categoriaRepository.save(existing);
+                    // Serviços em cache carregam a categoria: invalida apenas os desta categoria
+                    servicoCacheService.evictCategoria(id);
+                    return ResponseEntity.ok(salva);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
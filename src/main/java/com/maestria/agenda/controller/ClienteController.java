@@ -1,6 +1,7 @@
 package com.maestria.agenda.controller;
 
 import com.maestria.agenda.cliente.Cliente;
+import com.maestria.agenda.cliente.ClienteCacheService;
 import com.maestria.agenda.cliente.ClienteRepository;
 import com.maestria.agenda.cliente.DadosCliente;
 import org.springframework.http.ResponseEntity;
@@ -18,20 +19,22 @@ import java.util.Optional;
 public class ClienteController {
 
     private final ClienteRepository clienteRepository;
+    private final ClienteCacheService clienteCacheService;
 
 
-    public ClienteController(ClienteRepository clienteRepository) {
+    public ClienteController(ClienteRepository clienteRepository, ClienteCacheService clienteCacheService) {
         this.clienteRepository = clienteRepository;
+        this.clienteCacheService = clienteCacheService;
     }
 
     @GetMapping
     public List<Cliente> getAllClientes() {
-        return clienteRepository.findAll();
+        return clienteCacheService.findAll();
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Cliente> getClienteById(@PathVariable Long id) {
-        return clienteRepository.findById(id)
+        return clienteCacheService.findById(id)
                 .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -43,7 +46,7 @@ public class ClienteController {
         cliente.setEmail(dados.email());
         cliente.setTelefone(dados.telefone());
 
-        Cliente savedCliente = clienteRepository.save(cliente);
+        Cliente savedCliente = clienteCacheService.save(cliente);
         return ResponseEntity.ok(savedCliente);
     }
 
@@ -57,7 +60,7 @@ public class ClienteController {
             cliente.setEmail(dados.email());
             cliente.setTelefone(dados.telefone());
 
-            Cliente savedCliente = clienteRepository.save(cliente);
+            Cliente savedCliente = clienteCacheService.save(cliente);
             return ResponseEntity.ok(savedCliente);
         } else {
             return ResponseEntity.status(404).build();
@@ -69,7 +72,7 @@ public class ClienteController {
         if (!clienteRepository.existsById(id)) {
             return ResponseEntity.notFound().build();
         }
-        clienteRepository.deleteById(id);
+        clienteCacheService.deleteById(id);
         return ResponseEntity.noContent().build();
     }
 }
@@ -0,0 +1,117 @@
+package com.maestria.agenda.controller;
+
+import com.maestria.agenda.profissional.CurrentProfissional;
+import com.maestria.agenda.profissional.Profissional;
+import com.maestria.agenda.profissional.ProfissionalRepository;
+import com.maestria.agenda.service.DisponibilidadeService;
+import com.maestria.agenda.servico.Servico;
+import com.maestria.agenda.servico.ServicoRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/agendamento/disponibilidade")
+public class DisponibilidadeController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DisponibilidadeController.class);
+
+    private final DisponibilidadeService disponibilidadeService;
+    private final ProfissionalRepository profissionalRepository;
+    private final ServicoRepository servicoRepository;
+
+    public DisponibilidadeController(DisponibilidadeService disponibilidadeService,
+            ProfissionalRepository profissionalRepository,
+            ServicoRepository servicoRepository) {
+        this.disponibilidadeService = disponibilidadeService;
+        this.profissionalRepository = profissionalRepository;
+        this.servicoRepository = servicoRepository;
+    }
+
+    /**
+     * Horários livres por profissional e dia.
+     * A duração vem da soma dos serviços informados (servicoIds) ou de duracaoMinutos.
+     * ADMIN pode consultar qualquer profissional (todos, se profissionalIds não for informado);
+     * PROFISSIONAL consulta apenas a própria agenda.
+     */
+    @GetMapping
+    public ResponseEntity<?> buscarDisponibilidade(
+            @RequestParam String dataInicio,
+            @RequestParam String dataFim,
+            @RequestParam(required = false) List<Long> profissionalIds,
+            @RequestParam(required = false) List<Long> servicoIds,
+            @RequestParam(required = false) Integer duracaoMinutos,
+            @RequestParam(required = false) String horaAbertura,
+            @RequestParam(required = false) String horaFechamento,
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissional) {
+        logger.info("🔍 Solicitando disponibilidade de {} a {} por {}", dataInicio, dataFim, userDetails.getUsername());
+
+        try {
+            List<Profissional> profissionais;
+            if (userDetails.getAuthorities().contains(new SimpleGrantedAuthority("ADMIN"))) {
+                profissionais = profissionalIds == null || profissionalIds.isEmpty()
+                        ? profissionalRepository.findAll()
+                        : profissionalRepository.findAllById(profissionalIds);
+            } else {
+                if (profissional == null) {
+                    logger.warn("❌ Profissional não encontrado: {}", userDetails.getUsername());
+                    return ResponseEntity.status(403).body("Profissional não encontrado.");
+                }
+                if (profissionalIds != null && profissionalIds.stream().anyMatch(id -> id != profissional.getId())) {
+                    return ResponseEntity.status(403).body("Você só pode consultar sua própria disponibilidade.");
+                }
+                profissionais = List.of(profissional);
+            }
+
+            Duration duracao;
+            if (servicoIds != null && !servicoIds.isEmpty()) {
+                // Um combo pode repetir o mesmo serviço: a duração conta uma vez por id informado
+                Map<Long, Servico> porId = servicoRepository.findAllById(servicoIds).stream()
+                        .collect(Collectors.toMap(Servico::getId, Function.identity()));
+                if (!porId.keySet().containsAll(servicoIds)) {
+                    return ResponseEntity.badRequest().body("Serviço não encontrado.");
+                }
+                duracao = servicoIds.stream()
+                        .map(porId::get)
+                        .filter(s -> s.getDuracao() != null)
+                        .map(Servico::getDuracaoAsObject)
+                        .reduce(Duration.ZERO, Duration::plus);
+            } else if (duracaoMinutos != null && duracaoMinutos > 0) {
+                duracao = Duration.ofMinutes(duracaoMinutos);
+            } else {
+                duracao = Duration.ofMinutes(disponibilidadeService.getGranularidade());
+            }
+
+            List<DisponibilidadeService.HorariosDisponiveis> disponiveis = disponibilidadeService.buscar(
+                    profissionais,
+                    LocalDate.parse(dataInicio),
+                    LocalDate.parse(dataFim),
+                    duracao,
+                    horaAbertura != null ? LocalTime.parse(horaAbertura) : null,
+                    horaFechamento != null ? LocalTime.parse(horaFechamento) : null);
+            return ResponseEntity.ok(disponiveis);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (DateTimeException e) {
+            return ResponseEntity.badRequest().body("Data ou horário inválido. Use AAAA-MM-DD e HH:MM.");
+        } catch (Exception e) {
+            logger.error("❌ Erro ao calcular disponibilidade", e);
+            return ResponseEntity.status(500).body("Erro ao calcular disponibilidade: " + e.getMessage());
+        }
+    }
+}
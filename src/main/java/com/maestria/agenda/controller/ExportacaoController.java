@@ -0,0 +1,95 @@
+package com.maestria.agenda.controller;
+
+import com.maestria.agenda.profissional.CurrentProfissional;
+import com.maestria.agenda.profissional.Profissional;
+import com.maestria.agenda.service.ExportacaoAgendamentoService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+@RestController
+@RequestMapping("/agendamento/exportar")
+public class ExportacaoController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportacaoController.class);
+
+    private final ExportacaoAgendamentoService exportacaoService;
+
+    public ExportacaoController(ExportacaoAgendamentoService exportacaoService) {
+        this.exportacaoService = exportacaoService;
+    }
+
+    /**
+     * Exporta os agendamentos do período em JSON (padrão) ou CSV (formato=csv),
+     * escrevendo a resposta aos poucos em vez de montá-la em memória.
+     * ADMIN exporta todos ou um profissional (profissionalId); PROFISSIONAL apenas os próprios.
+     */
+    @GetMapping
+    public ResponseEntity<?> exportar(
+            @RequestParam String dataInicio,
+            @RequestParam String dataFim,
+            @RequestParam(required = false) Long profissionalId,
+            @RequestParam(defaultValue = "json") String formato,
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissional) {
+        logger.info("🔍 Exportação de agendamentos ({}) de {} a {} solicitada por {}",
+                formato, dataInicio, dataFim, userDetails.getUsername());
+
+        Long filtroProfissional = profissionalId;
+        if (!userDetails.getAuthorities().contains(new SimpleGrantedAuthority("ADMIN"))) {
+            if (profissional == null) {
+                logger.warn("❌ Profissional não encontrado: {}", userDetails.getUsername());
+                return ResponseEntity.status(403).body("Profissional não encontrado.");
+            }
+            if (profissionalId != null && profissionalId != profissional.getId()) {
+                return ResponseEntity.status(403).body("Você só pode exportar seus próprios agendamentos.");
+            }
+            filtroProfissional = profissional.getId();
+        }
+
+        LocalDate inicio;
+        LocalDate fim;
+        try {
+            inicio = LocalDate.parse(dataInicio);
+            fim = LocalDate.parse(dataFim);
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("Datas inválidas. Use o formato AAAA-MM-DD.");
+        }
+        if (fim.isBefore(inicio)) {
+            return ResponseEntity.badRequest().body("A data final deve ser igual ou posterior à data inicial.");
+        }
+
+        boolean csv = "csv".equalsIgnoreCase(formato);
+        if (!csv && !"json".equalsIgnoreCase(formato)) {
+            return ResponseEntity.badRequest().body("Formato inválido. Use json ou csv.");
+        }
+
+        Long idProfissional = filtroProfissional;
+        StreamingResponseBody corpo = saida -> {
+            if (csv) {
+                exportacaoService.exportarCsv(idProfissional, inicio, fim, saida);
+            } else {
+                exportacaoService.exportarJson(idProfissional, inicio, fim, saida);
+            }
+        };
+
+        String arquivo = "agendamentos_" + inicio + "_" + fim + (csv ? ".csv" : ".json");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + arquivo + "\"")
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_JSON)
+                .body(corpo);
+    }
+}
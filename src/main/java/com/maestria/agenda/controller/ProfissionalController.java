@@ -1,6 +1,7 @@
 package com.maestria.agenda.controller;
 
 import com.maestria.agenda.profissional.Profissional;
+import com.maestria.agenda.profissional.ProfissionalCacheService;
 import com.maestria.agenda.profissional.ProfissionalRepository;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -9,6 +10,7 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @RestController
@@ -17,13 +19,16 @@ import java.util.Optional;
 public class ProfissionalController {
 
     private final ProfissionalRepository profissionalRepository;
+    private final ProfissionalCacheService profissionalCacheService;
     private final PasswordEncoder passwordEncoder;
 
     public ProfissionalController(ProfissionalRepository profissionalRepository,
+            ProfissionalCacheService profissionalCacheService,
             PasswordEncoder passwordEncoder,
             com.maestria.agenda.profissional.ComissaoProfissionalRepository comissaoProfissionalRepository,
             com.maestria.agenda.servico.CategoriaServicoRepository categoriaServicoRepository) {
         this.profissionalRepository = profissionalRepository;
+        this.profissionalCacheService = profissionalCacheService;
         this.passwordEncoder = passwordEncoder;
         this.comissaoProfissionalRepository = comissaoProfissionalRepository;
         this.categoriaServicoRepository = categoriaServicoRepository;
@@ -45,14 +50,14 @@ public class ProfissionalController {
     @GetMapping
     @PreAuthorize("hasAnyAuthority('ADMIN', 'PROFISSIONAL')")
     public ResponseEntity<List<Profissional>> listarProfissionais() {
-        return ResponseEntity.ok(profissionalRepository.findAll());
+        return ResponseEntity.ok(profissionalCacheService.findAll());
     }
 
     // ✅ Buscar profissional por ID - Corrigido
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyAuthority('ADMIN', 'PROFISSIONAL')")
     public ResponseEntity<?> buscarProfissionalPorId(@PathVariable Long id) {
-        Optional<Profissional> profissionalOptional = profissionalRepository.findById(id);
+        Optional<Profissional> profissionalOptional = profissionalCacheService.findById(id);
         if (profissionalOptional.isPresent()) {
             return ResponseEntity.ok(profissionalOptional.get());
         } else {
@@ -69,7 +74,7 @@ public class ProfissionalController {
             profissional.setSenha(passwordEncoder.encode(profissional.getSenha()));
         }
 
-        Profissional novoProfissional = profissionalRepository.save(profissional);
+        Profissional novoProfissional = profissionalCacheService.save(profissional);
         return ResponseEntity.ok(novoProfissional);
     }
 
@@ -82,6 +87,10 @@ public class ProfissionalController {
 
         if (profissionalOptional.isPresent()) {
             Profissional profissionalExistente = profissionalOptional.get();
+            String loginAnterior = profissionalExistente.getLogin();
+
+            Profissional.Role roleAnterior = profissionalExistente.getRole();
+            boolean senhaAlterada = false;
 
             // Atualizar dados do profissional
             profissionalExistente.setNome(profissionalAtualizado.getNome());
@@ -91,6 +100,7 @@ public class ProfissionalController {
             if (profissionalAtualizado.getSenha() != null && !profissionalAtualizado.getSenha().isEmpty()) {
                 String senhaCriptografada = passwordEncoder.encode(profissionalAtualizado.getSenha());
                 profissionalExistente.setSenha(senhaCriptografada);
+                senhaAlterada = true;
             }
 
             // Atualizar o role se fornecido
@@ -98,8 +108,17 @@ public class ProfissionalController {
                 profissionalExistente.setRole(profissionalAtualizado.getRole());
             }
 
+            // Login, senha ou role alterados: tokens emitidos antes deixam de valer
+            if (senhaAlterada || roleAnterior != profissionalExistente.getRole()
+                    || !Objects.equals(loginAnterior, profissionalExistente.getLogin())) {
+                profissionalExistente.incrementarTokenVersao();
+            }
+
             // Salvar as alterações
-            Profissional updated = profissionalRepository.save(profissionalExistente);
+            Profissional updated = profissionalCacheService.save(profissionalExistente);
+            if (loginAnterior != null && !loginAnterior.equals(updated.getLogin())) {
+                profissionalCacheService.evictLogin(loginAnterior);
+            }
             return ResponseEntity.ok(updated);
         } else {
             return ResponseEntity.status(404).body("❌ Profissional não encontrado!");
@@ -116,7 +135,7 @@ public class ProfissionalController {
             Profissional profissional = profissionalOptional.get();
             profissional.setDescontarTaxas(request.descontarTaxas());
 
-            Profissional updated = profissionalRepository.save(profissional);
+            Profissional updated = profissionalCacheService.save(profissional);
 
             String status = request.descontarTaxas() ? "COM desconto de taxas" : "SEM desconto de taxas";
             return ResponseEntity.ok(new DescontoTaxasResponse(
@@ -140,8 +159,9 @@ public class ProfissionalController {
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAuthority('ADMIN')")
     public ResponseEntity<String> deletarProfissional(@PathVariable Long id) {
-        if (profissionalRepository.existsById(id)) {
-            profissionalRepository.deleteById(id);
+        Optional<Profissional> profissional = profissionalRepository.findById(id);
+        if (profissional.isPresent()) {
+            profissionalCacheService.delete(profissional.get());
             return ResponseEntity.ok("✅ Profissional deletado!");
         }
         return ResponseEntity.status(404).body("❌ Profissional não encontrado!");
@@ -2,11 +2,14 @@ package com.maestria.agenda.controller;
 
 import com.maestria.agenda.servico.DadosServico;
 import com.maestria.agenda.servico.Servico;
+import com.maestria.agenda.servico.ServicoCacheService;
 import com.maestria.agenda.servico.ServicoRepository;
 import com.maestria.agenda.servico.CategoriaServico;
 import com.maestria.agenda.servico.CategoriaServicoRepository;
+import com.maestria.agenda.service.AlteracaoFinanceiraEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -15,6 +18,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/servico")
@@ -24,23 +28,28 @@ public class ServicoController {
     private static final Logger logger = LoggerFactory.getLogger(ServicoController.class);
 
     private final ServicoRepository servicoRepository;
+    private final ServicoCacheService servicoCacheService;
     private final CategoriaServicoRepository categoriaRepository;
+    private final ApplicationEventPublisher eventos;
 
-    public ServicoController(ServicoRepository servicoRepository, CategoriaServicoRepository categoriaRepository) {
+    public ServicoController(ServicoRepository servicoRepository, ServicoCacheService servicoCacheService,
+            CategoriaServicoRepository categoriaRepository, ApplicationEventPublisher eventos) {
         this.servicoRepository = servicoRepository;
+        this.servicoCacheService = servicoCacheService;
         this.categoriaRepository = categoriaRepository;
+        this.eventos = eventos;
     }
 
     @GetMapping
     public ResponseEntity<List<Servico>> listarServicos() {
         logger.info("🔍 Listando todos os serviços");
-        return ResponseEntity.ok(servicoRepository.findAll());
+        return ResponseEntity.ok(servicoCacheService.findAll());
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<?> buscarServicoPorId(@PathVariable Long id) {
         logger.info("🔍 Buscando serviço com ID: {}", id);
-        return servicoRepository.findById(id)
+        return servicoCacheService.findById(id)
                 .<ResponseEntity<?>>map(ResponseEntity::ok)
                 .orElseGet(() -> {
                     logger.warn("❌ Serviço não encontrado. ID: {}", id);
@@ -72,7 +81,7 @@ public class ServicoController {
             servico.setDuracao(dados.duracao());
             servico.setCategoria(categoria);
 
-            servicoRepository.save(servico);
+            servico = servicoCacheService.save(servico);
 
             logger.info("✅ Serviço cadastrado com sucesso: {}", servico);
             return ResponseEntity.ok(servico);
@@ -111,13 +120,20 @@ public class ServicoController {
             CategoriaServico categoria = categoriaRepository.findById(dados.categoriaId())
                     .orElseThrow(() -> new RuntimeException("Categoria não encontrada"));
 
+            // Valor e nome entram no faturamento e no ranking de serviços de todo o histórico
+            boolean afetaMetricas = !Objects.equals(servico.getValor(), dados.valor())
+                    || !Objects.equals(servico.getNome(), dados.nome());
+
             servico.setNome(dados.nome());
             servico.setValor(dados.valor());
             servico.setDescricao(dados.descricao());
             servico.setDuracao(dados.duracao());
             servico.setCategoria(categoria);
 
-            servicoRepository.save(servico);
+            servico = servicoCacheService.save(servico);
+            if (afetaMetricas) {
+                eventos.publishEvent(AlteracaoFinanceiraEvent.todoHistorico("servico"));
+            }
 
             logger.info("✅ Serviço atualizado com sucesso: {}", servico);
             return ResponseEntity.ok(servico);
@@ -147,7 +163,7 @@ public class ServicoController {
                 return ResponseEntity.status(404).body("Serviço não encontrado.");
             }
 
-            servicoRepository.deleteById(id);
+            servicoCacheService.deleteById(id);
 
             logger.info("✅ Serviço excluído com sucesso. ID: {}", id);
             return ResponseEntity.ok("Serviço excluído com sucesso.");
@@ -1,7 +1,8 @@
 package com.maestria.agenda.financeiro;
 
+import com.maestria.agenda.profissional.CurrentProfissional;
 import com.maestria.agenda.profissional.Profissional;
-import com.maestria.agenda.profissional.ProfissionalRepository;
+import com.maestria.agenda.service.LancamentoComissaoService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,11 +25,11 @@ public class ComissaoController {
     private static final Logger logger = LoggerFactory.getLogger(ComissaoController.class);
 
     private final ComissaoService comissaoService;
-    private final ProfissionalRepository profissionalRepository;
+    private final LancamentoComissaoService lancamentoComissaoService;
 
-    public ComissaoController(ComissaoService comissaoService, ProfissionalRepository profissionalRepository) {
+    public ComissaoController(ComissaoService comissaoService, LancamentoComissaoService lancamentoComissaoService) {
         this.comissaoService = comissaoService;
-        this.profissionalRepository = profissionalRepository;
+        this.lancamentoComissaoService = lancamentoComissaoService;
     }
 
     /**
@@ -64,10 +65,7 @@ public class ComissaoController {
                 fim = LocalDate.now().withDayOfMonth(LocalDate.now().lengthOfMonth());
             }
             
-            List<Profissional> profissionais = profissionalRepository.findAll();
-            List<ComissaoResponseDTO> comissoes = profissionais.stream()
-                .map(prof -> comissaoService.calcularComissaoPorPeriodo(prof.getId(), inicio, fim))
-                .toList();
+            List<ComissaoResponseDTO> comissoes = comissaoService.calcularComissoesPorPeriodo(inicio, fim);
                 
             return ResponseEntity.ok(comissoes);
         } catch (Exception e) {
@@ -85,7 +83,8 @@ public class ComissaoController {
             @PathVariable Long id,
             @RequestParam String dataInicio,
             @RequestParam String dataFim,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissional) {
 
         logger.info("🔍 Solicitando comissão para profissional {} entre {} e {} por {}",
                 id, dataInicio, dataFim, userDetails.getUsername());
@@ -96,7 +95,6 @@ public class ComissaoController {
 
         if (!isAdmin) {
             // Verificar se é o próprio profissional acessando seus dados
-            Profissional profissional = profissionalRepository.findByLogin(userDetails.getUsername());
             if (profissional != null && profissional.getId() == id) {
                 isProfissionalAcessandoPropriosDados = true;
             }
@@ -173,7 +171,8 @@ public class ComissaoController {
             @PathVariable Long id,
             @RequestParam String dataInicio,
             @RequestParam String dataFim,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CurrentProfissional Profissional profissional) {
             
         logger.info("🔍 Solicitando pagamentos de comissão do profissional {} entre {} e {} por {}",
                 id, dataInicio, dataFim, userDetails.getUsername());
@@ -183,7 +182,6 @@ public class ComissaoController {
         boolean isProfissionalAcessandoPropriosDados = false;
 
         if (!isAdmin) {
-            Profissional profissional = profissionalRepository.findByLogin(userDetails.getUsername());
             if (profissional != null && profissional.getId() == id) {
                 isProfissionalAcessandoPropriosDados = true;
             }
@@ -269,6 +267,29 @@ public class ComissaoController {
         }
     }
 
+    /**
+     * Reconcilia o livro de comissões com todo o histórico de agendamentos.
+     * A reconciliação periódica cobre só os dias recentes; apenas ADMIN
+     */
+    @PostMapping("/comissoes/reconciliar")
+    public ResponseEntity<?> reconciliarLivro(@AuthenticationPrincipal UserDetails userDetails) {
+        logger.info("🔄 Reconciliação completa do livro de comissões solicitada por {}", userDetails.getUsername());
+
+        if (!userDetails.getAuthorities().contains(new SimpleGrantedAuthority("ADMIN"))) {
+            logger.warn("❌ Tentativa não autorizada de reconciliar o livro de comissões por {}",
+                    userDetails.getUsername());
+            return ResponseEntity.status(403).body("Acesso negado. Apenas administradores podem reconciliar o livro de comissões.");
+        }
+
+        try {
+            int corrigidos = lancamentoComissaoService.reconciliarTudo();
+            return ResponseEntity.ok(Map.of("agendamentosCorrigidos", corrigidos));
+        } catch (Exception e) {
+            logger.error("❌ Erro ao reconciliar o livro de comissões: {}", e.getMessage(), e);
+            return ResponseEntity.status(500).body("Erro ao reconciliar o livro de comissões: " + e.getMessage());
+        }
+    }
+
     /**
      * Endpoint para limpar pagamentos inválidos (zerados) de um profissional
      * Apenas ADMIN pode usar este endpoint
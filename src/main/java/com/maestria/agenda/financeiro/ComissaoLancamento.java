@@ -0,0 +1,134 @@
+package com.maestria.agenda.financeiro;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Linha do livro de comissões: um serviço de um agendamento pago, com o percentual da
+ * categoria e a taxa da forma de pagamento vigentes no lançamento.
+ *
+ * O livro só recebe inserções. Editar ou excluir um agendamento grava um ESTORNO com os
+ * valores negativos das linhas anteriores, de modo que a soma por agendamento é sempre a
+ * comissão atual e a soma por profissional/período é o total a receber.
+ */
+@Entity
+@Table(name = "comissao_lancamento", indexes = {
+        @Index(name = "idx_comissao_lancamento_profissional_data", columnList = "profissional_id, data"),
+        @Index(name = "idx_comissao_lancamento_agendamento", columnList = "agendamento_id"),
+        @Index(name = "idx_comissao_lancamento_data", columnList = "data")
+})
+public class ComissaoLancamento {
+
+    public enum Tipo {
+        LANCAMENTO, ESTORNO
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "agendamento_id", nullable = false)
+    private Long agendamentoId;
+
+    @Column(name = "profissional_id", nullable = false)
+    private Long profissionalId;
+
+    // Data do atendimento (período da comissão)
+    @Column(nullable = false)
+    private LocalDate data;
+
+    @Column(name = "servico_id")
+    private Long servicoId;
+
+    // Ocorrência de agendamento fixo (comissão de fixos no resumo)
+    @Column(nullable = false)
+    private Boolean fixo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "forma_pagamento")
+    private PagamentoTipo formaPagamento;
+
+    @Column(nullable = false)
+    private Double percentual;
+
+    @Column(nullable = false)
+    private Double taxa;
+
+    @Column(name = "valor_servico", nullable = false)
+    private Double valorServico;
+
+    @Column(name = "valor_comissao", nullable = false)
+    private Double valorComissao;
+
+    @Column(name = "valor_desconto_taxa", nullable = false)
+    private Double valorDescontoTaxa;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Tipo tipo;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+
+    public ComissaoLancamento() {
+    }
+
+    // Getters (as linhas são gravadas pelo LancamentoComissaoService e nunca alteradas)
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getAgendamentoId() {
+        return agendamentoId;
+    }
+
+    public Long getProfissionalId() {
+        return profissionalId;
+    }
+
+    public LocalDate getData() {
+        return data;
+    }
+
+    public Long getServicoId() {
+        return servicoId;
+    }
+
+    public Boolean getFixo() {
+        return fixo;
+    }
+
+    public PagamentoTipo getFormaPagamento() {
+        return formaPagamento;
+    }
+
+    public Double getPercentual() {
+        return percentual;
+    }
+
+    public Double getTaxa() {
+        return taxa;
+    }
+
+    public Double getValorServico() {
+        return valorServico;
+    }
+
+    public Double getValorComissao() {
+        return valorComissao;
+    }
+
+    public Double getValorDescontoTaxa() {
+        return valorDescontoTaxa;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public LocalDateTime getCriadoEm() {
+        return criadoEm;
+    }
+}
@@ -0,0 +1,26 @@
+package com.maestria.agenda.financeiro;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ComissaoLancamentoRepository extends JpaRepository<ComissaoLancamento, Long> {
+
+    /**
+     * Saldo do livro no período, de todos os profissionais (profissionalId nulo) ou de um só:
+     * [profissional, fixo, valor dos serviços, comissão, desconto de taxa].
+     * Os estornos entram com valores negativos e anulam os lançamentos substituídos.
+     */
+    @Query("SELECT l.profissionalId, l.fixo, SUM(l.valorServico), SUM(l.valorComissao), SUM(l.valorDescontoTaxa) " +
+           "FROM ComissaoLancamento l WHERE l.data BETWEEN :inicio AND :fim " +
+           "AND (:profissionalId IS NULL OR l.profissionalId = :profissionalId) " +
+           "GROUP BY l.profissionalId, l.fixo")
+    List<Object[]> somarPorProfissional(@Param("profissionalId") Long profissionalId,
+            @Param("inicio") LocalDate inicio,
+            @Param("fim") LocalDate fim);
+}
@@ -45,4 +45,14 @@ public interface ComissaoPagamentoRepository extends JpaRepository<ComissaoPagam
     Double calcularValorTotalPagoTodosProfissionaisNoPeriodo(
         @Param("inicio") LocalDate inicio,
         @Param("fim") LocalDate fim);
+
+    /**
+     * Pagamentos de comissão de todos os profissionais que cobrem o período
+     */
+    @Query("SELECT cp FROM ComissaoPagamento cp " +
+           "WHERE cp.periodoInicio <= :fim AND cp.periodoFim >= :inicio " +
+           "ORDER BY cp.dataPagamento")
+    List<ComissaoPagamento> findByPeriodo(
+        @Param("inicio") LocalDate inicio,
+        @Param("fim") LocalDate fim);
 }
@@ -1,13 +1,11 @@
 package com.maestria.agenda.financeiro;
 
-import com.maestria.agenda.agendamento.Agendamento;
-import com.maestria.agenda.agendamento.AgendamentoFixo;
-import com.maestria.agenda.agendamento.AgendamentoFixoRepository;
-import com.maestria.agenda.agendamento.AgendamentoRepository;
 import com.maestria.agenda.profissional.Profissional;
 import com.maestria.agenda.profissional.ProfissionalRepository;
+import com.maestria.agenda.service.AlteracaoFinanceiraEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
@@ -15,197 +13,51 @@ import java.time.ZoneId;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.stream.Collectors;
 
 @Service
 public class ComissaoService {
 
-        private final AgendamentoRepository agendamentoRepository;
-        private final AgendamentoFixoRepository agendamentoFixoRepository;
         private final ProfissionalRepository profissionalRepository;
         private final ComissaoPagamentoRepository comissaoPagamentoRepository;
-        private final TaxaPagamentoService taxaPagamentoService;
-        private final com.maestria.agenda.profissional.ComissaoProfissionalRepository comissaoProfissionalRepository;
+        private final ComissaoLancamentoRepository comissaoLancamentoRepository;
+        private final ApplicationEventPublisher eventos;
         private final Logger logger = LoggerFactory.getLogger(ComissaoService.class);
 
         // Removida a injeção da comissão global pois agora cada serviço tem sua própria
         // comissão
 
-        public ComissaoService(AgendamentoRepository agendamentoRepository,
-                        AgendamentoFixoRepository agendamentoFixoRepository,
-                        ProfissionalRepository profissionalRepository,
+        public ComissaoService(ProfissionalRepository profissionalRepository,
                         ComissaoPagamentoRepository comissaoPagamentoRepository,
-                        TaxaPagamentoService taxaPagamentoService,
-                        com.maestria.agenda.profissional.ComissaoProfissionalRepository comissaoProfissionalRepository) {
-                this.agendamentoRepository = agendamentoRepository;
-                this.agendamentoFixoRepository = agendamentoFixoRepository;
+                        ComissaoLancamentoRepository comissaoLancamentoRepository,
+                        ApplicationEventPublisher eventos) {
                 this.profissionalRepository = profissionalRepository;
                 this.comissaoPagamentoRepository = comissaoPagamentoRepository;
-                this.taxaPagamentoService = taxaPagamentoService;
-                this.comissaoProfissionalRepository = comissaoProfissionalRepository;
+                this.comissaoLancamentoRepository = comissaoLancamentoRepository;
+                this.eventos = eventos;
         }
 
         /**
-         * Classe auxiliar para armazenar os resultados do cálculo de comissão
+         * Classe auxiliar para acumular os resultados do cálculo de comissão
          */
         private static class ResultadoComissao {
                 double valorTotalServicos;
                 double valorComissao;
                 double valorDescontoTaxa;
-                double valorComissaoLiquida;
 
-                ResultadoComissao(double valorTotalServicos, double valorComissao, double valorDescontoTaxa) {
-                        this.valorTotalServicos = valorTotalServicos;
-                        this.valorComissao = valorComissao;
-                        this.valorDescontoTaxa = valorDescontoTaxa;
-                        this.valorComissaoLiquida = valorComissao - valorDescontoTaxa;
+                double valorComissaoLiquida() {
+                        return valorComissao - valorDescontoTaxa;
                 }
         }
 
         /**
-         * Calcula a comissão para agendamentos normais (não derivados de fixos)
+         * Calcula a comissão de todos os profissionais no período com um número fixo de consultas:
+         * o saldo do livro de comissões (comissao_lancamento) por profissional, separado entre
+         * agendamentos normais e ocorrências de fixos, os pagamentos do período e os profissionais.
          */
-        private ResultadoComissao calcularComissaoAgendamentosNormais(Long profissionalId, LocalDate inicio,
-                        LocalDate fim) {
-                logger.info("Calculando comissão de agendamentos normais para profissional {} entre {} e {}",
-                                profissionalId, inicio, fim);
-
-                double valorTotal = 0.0;
-                double comissaoTotal = 0.0;
-                double descontoTaxaTotal = 0.0;
-
-                // OTIMIZAÇÃO: Usa query com FETCH JOIN para carregar cliente e servico em uma
-                // única query
-                // Evita problema N+1 (antes: 1 query + N queries para cliente + N queries para
-                // servico)
-                List<Agendamento> agendamentosNormais = agendamentoRepository
-                                .findAgendamentosNormaisComDetalhes(profissionalId, inicio, fim);
-
-                logger.info("Encontrados {} agendamentos normais (não fixos)", agendamentosNormais.size());
-
-                // OTIMIZAÇÃO EXTREMA: Carregar todas as comissões do profissional de uma vez só (Evita N+1 query dentro do loop)
-                Map<Long, Double> mapaComissoes = comissaoProfissionalRepository.findByProfissionalId(profissionalId)
-                    .stream()
-                    .filter(c -> c.getCategoria() != null)
-                    .collect(Collectors.toMap(c -> c.getCategoria().getId(), com.maestria.agenda.profissional.ComissaoProfissional::getPercentual, (v1, v2) -> v1));
-
-                for (Agendamento agendamento : agendamentosNormais) {
-                        if (agendamento.getPago() != null && agendamento.getPago() &&
-                                        agendamento.getServico() != null
-                                        && agendamento.getServico().getValor() != null) {
-
-                                double valorServico = agendamento.getServico().getValor();
-                                double comissaoPercentualServico = 0.0;
-
-                                if (agendamento.getServico().getCategoria() != null) {
-                                        // Pega do mapa em memória e não do BD
-                                        comissaoPercentualServico = mapaComissoes.getOrDefault(
-                                                            agendamento.getServico().getCategoria().getId(), 0.0);
-                                }
-
-                                double taxa = 0.0;
-
-                                if (agendamento.getFormaPagamento() != null) {
-                                        taxa = taxaPagamentoService.obterTaxa(agendamento.getFormaPagamento());
-                                }
-
-                                double descontoTaxa = valorServico * (taxa / 100.0);
-                                double comissaoServico = valorServico * (comissaoPercentualServico / 100.0);
-
-                                valorTotal += valorServico;
-                                comissaoTotal += comissaoServico;
-                                descontoTaxaTotal += descontoTaxa;
-
-                                logger.debug(
-                                                "Agendamento normal ID {}: valor {}, categoria {}, comissão {}%, valor comissão {}, taxa {}%, desconto {}",
-                                                agendamento.getId(), valorServico,
-                                                agendamento.getServico().getCategoria() != null
-                                                                ? agendamento.getServico().getCategoria().getId()
-                                                                : "N/A",
-                                                comissaoPercentualServico,
-                                                comissaoServico, taxa,
-                                                descontoTaxa);
-                        }
-                }
-
-                logger.info("Comissão de agendamentos normais: valor total {}, comissão total {}, desconto {}",
-                                valorTotal, comissaoTotal, descontoTaxaTotal);
-
-                return new ResultadoComissao(valorTotal, comissaoTotal, descontoTaxaTotal);
-        }
-
-        /**
-         * Calcula a comissão para agendamentos fixos
-         */
-        private ResultadoComissao calcularComissaoAgendamentosFixos(Long profissionalId, LocalDate inicio,
-                        LocalDate fim) {
-                logger.info("Calculando comissão de agendamentos fixos para profissional {} entre {} e {}",
-                                profissionalId, inicio, fim);
-
-                double valorTotal = 0.0;
-                double comissaoTotal = 0.0;
-                double descontoTaxaTotal = 0.0;
-
-                List<AgendamentoFixo> agendamentosFixos = agendamentoFixoRepository
-                                .findByProfissionalIdAndAtivoTrue(profissionalId);
-
-                logger.info("Encontrados {} agendamentos fixos ativos", agendamentosFixos.size());
-
-                // OTIMIZAÇÃO EXTREMA: Carregar todas as comissões do profissional de uma vez só
-                Map<Long, Double> mapaComissoes = comissaoProfissionalRepository.findByProfissionalId(profissionalId)
-                    .stream()
-                    .filter(c -> c.getCategoria() != null)
-                    .collect(Collectors.toMap(c -> c.getCategoria().getId(), com.maestria.agenda.profissional.ComissaoProfissional::getPercentual, (v1, v2) -> v1));
-
-                for (AgendamentoFixo agendamentoFixo : agendamentosFixos) {
-                        List<Agendamento> agendamentosGerados = agendamentoRepository
-                                        .findByAgendamentoFixoIdAndDataBetweenAndPagoTrue(agendamentoFixo.getId(),
-                                                        inicio, fim);
-
-                        if (!agendamentosGerados.isEmpty() &&
-                                        agendamentoFixo.getServico() != null &&
-                                        agendamentoFixo.getServico().getValor() != null) {
-
-                                double valorServico = agendamentoFixo.getServico().getValor();
-                                double comissaoPercentualServico = 0.0;
-
-                                if (agendamentoFixo.getServico().getCategoria() != null) {
-                                        comissaoPercentualServico = mapaComissoes.getOrDefault(
-                                                            agendamentoFixo.getServico().getCategoria().getId(), 0.0);
-                                }
-
-                                double valorTotalServico = valorServico * agendamentosGerados.size();
-                                double comissaoTotalServico = valorTotalServico * (comissaoPercentualServico / 100.0);
-                                double descontoTaxa = 0.0;
-
-                                for (Agendamento agendamento : agendamentosGerados) {
-                                        if (agendamento.getFormaPagamento() != null) {
-                                                double taxa = taxaPagamentoService
-                                                                .obterTaxa(agendamento.getFormaPagamento());
-                                                descontoTaxa += valorServico * (taxa / 100.0);
-                                        }
-                                }
-
-                                valorTotal += valorTotalServico;
-                                comissaoTotal += comissaoTotalServico;
-                                descontoTaxaTotal += descontoTaxa;
-
-                                logger.debug(
-                                                "Agendamento fixo ID {}: {} ocorrências pagas x {} = {}, categoria {}, comissão {}%, valor comissão {}, desconto {}",
-                                                agendamentoFixo.getId(), agendamentosGerados.size(), valorServico,
-                                                valorTotalServico,
-                                                agendamentoFixo.getServico().getCategoria() != null
-                                                                ? agendamentoFixo.getServico().getCategoria().getId()
-                                                                : "N/A",
-                                                comissaoPercentualServico, comissaoTotalServico,
-                                                descontoTaxa);
-                        }
-                }
-
-                logger.info("Comissão de agendamentos fixos: valor total {}, comissão total {}, desconto {}",
-                                valorTotal, comissaoTotal, descontoTaxaTotal);
-
-                return new ResultadoComissao(valorTotal, comissaoTotal, descontoTaxaTotal);
+        public List<ComissaoResponseDTO> calcularComissoesPorPeriodo(LocalDate inicio, LocalDate fim) {
+                return calcularComissoes(profissionalRepository.findAll(), inicio, fim);
         }
 
         /**
@@ -216,43 +68,57 @@ public class ComissaoService {
                 try {
                         Profissional profissional = profissionalRepository.findById(profissionalId)
                                         .orElseThrow(() -> new RuntimeException("Profissional não encontrado"));
+                        return calcularComissoes(List.of(profissional), inicio, fim).get(0);
+                } catch (Exception e) {
+                        logger.error("❌ Erro ao calcular comissão: {}", e.getMessage(), e);
+                        throw new RuntimeException("Erro ao calcular comissão: " + e.getMessage());
+                }
+        }
+
+        private List<ComissaoResponseDTO> calcularComissoes(List<Profissional> profissionais, LocalDate inicio,
+                        LocalDate fim) {
+                // Um profissional só: as consultas filtram por ele; vários: todos de uma vez
+                Long filtro = profissionais.size() == 1 ? profissionais.get(0).getId() : null;
+
+                // Livro de comissões: [profissional, fixo, valor dos serviços, comissão, desconto de taxa]
+                Map<Long, ResultadoComissao> normais = new HashMap<>();
+                Map<Long, ResultadoComissao> fixos = new HashMap<>();
+                for (Object[] linha : comissaoLancamentoRepository.somarPorProfissional(filtro, inicio, fim)) {
+                        ResultadoComissao resultado = new ResultadoComissao();
+                        resultado.valorTotalServicos = ((Number) linha[2]).doubleValue();
+                        resultado.valorComissao = ((Number) linha[3]).doubleValue();
+                        resultado.valorDescontoTaxa = ((Number) linha[4]).doubleValue();
+                        (Boolean.TRUE.equals(linha[1]) ? fixos : normais).put((Long) linha[0], resultado);
+                }
 
-                        // Calcular comissão de agendamentos normais
-                        ResultadoComissao resultadoNormal = calcularComissaoAgendamentosNormais(profissionalId, inicio,
-                                        fim);
+                List<ComissaoPagamento> pagamentos = filtro != null
+                                ? comissaoPagamentoRepository.findByProfissionalIdAndPeriodo(filtro, inicio, fim)
+                                : comissaoPagamentoRepository.findByPeriodo(inicio, fim);
+                Map<Long, List<ComissaoPagamento>> pagamentosPorProfissional = pagamentos.stream()
+                                .collect(Collectors.groupingBy(ComissaoPagamento::getProfissionalId));
 
-                        // Calcular comissão de agendamentos fixos
-                        ResultadoComissao resultadoFixo = calcularComissaoAgendamentosFixos(profissionalId, inicio,
-                                        fim);
+                List<ComissaoResponseDTO> comissoes = new ArrayList<>(profissionais.size());
+                for (Profissional profissional : profissionais) {
+                        ResultadoComissao resultadoNormal = normais.getOrDefault(profissional.getId(), new ResultadoComissao());
+                        ResultadoComissao resultadoFixo = fixos.getOrDefault(profissional.getId(), new ResultadoComissao());
 
                         // Somar os resultados
                         double comissaoTotal = resultadoNormal.valorComissao + resultadoFixo.valorComissao;
                         double descontoTaxaTotal = resultadoNormal.valorDescontoTaxa + resultadoFixo.valorDescontoTaxa;
 
                         // Calcular comissão líquida baseada na configuração do profissional
-                        double comissaoLiquida;
-                        if (profissional.getDescontarTaxas() != null && profissional.getDescontarTaxas()) {
-                                // Profissional tem desconto de taxas
-                                comissaoLiquida = comissaoTotal - descontoTaxaTotal;
-                                logger.info("Profissional {} TEM desconto de taxas: {} - {} = {}",
-                                                profissional.getNome(), comissaoTotal, descontoTaxaTotal,
-                                                comissaoLiquida);
-                        } else {
-                                // Profissional NÃO tem desconto de taxas
-                                comissaoLiquida = comissaoTotal;
-                                logger.info("Profissional {} NÃO TEM desconto de taxas: {} (taxas ignoradas: {})",
-                                                profissional.getNome(), comissaoLiquida, descontoTaxaTotal);
-                        }
-
-                        // Calcular valor já pago no período
-                        double valorJaPago = comissaoPagamentoRepository.calcularValorTotalPagoNoPeriodo(profissionalId,
-                                        inicio,
-                                        fim);
-
-                        // Buscar todas as comissões do período
-                        List<ComissaoPagamento> comissoes = comissaoPagamentoRepository
-                                        .findByProfissionalIdAndPeriodo(profissionalId, inicio, fim);
-                        List<ComissaoIndividualDTO> comissoesIndividuais = comissoes.stream()
+                        boolean descontarTaxas = profissional.getDescontarTaxas() != null && profissional.getDescontarTaxas();
+                        double comissaoLiquida = descontarTaxas ? comissaoTotal - descontoTaxaTotal : comissaoTotal;
+
+                        // Pagamentos do período e valor já pago (apenas PAGO com valor)
+                        List<ComissaoPagamento> historico = pagamentosPorProfissional.getOrDefault(profissional.getId(),
+                                        List.of());
+                        double valorJaPago = historico.stream()
+                                        .filter(p -> p.getStatus() == ComissaoPagamento.StatusPagamento.PAGO)
+                                        .filter(p -> p.getValorPago() != null && p.getValorPago() > 0)
+                                        .mapToDouble(ComissaoPagamento::getValorPago)
+                                        .sum();
+                        List<ComissaoIndividualDTO> comissoesIndividuais = historico.stream()
                                         .map(comissao -> new ComissaoIndividualDTO(
                                                         comissao.getId(),
                                                         comissao.getAgendamentoId(),
@@ -263,16 +129,13 @@ public class ComissaoService {
                                                         comissao.getPaid()))
                                         .collect(Collectors.toList());
 
-                        logger.info("Comissão de agendamentos normais: {} bruto, {} líquido, {} desconto",
-                                        resultadoNormal.valorComissao, resultadoNormal.valorComissaoLiquida,
-                                        resultadoNormal.valorDescontoTaxa);
-                        logger.info("Comissão de agendamentos fixos: {} bruto, {} líquido, {} desconto",
-                                        resultadoFixo.valorComissao, resultadoFixo.valorComissaoLiquida,
-                                        resultadoFixo.valorDescontoTaxa);
-                        logger.info("Comissão total: {} bruto, {} líquido, {} desconto, {} já pago",
-                                        comissaoTotal, comissaoLiquida, descontoTaxaTotal, valorJaPago);
+                        logger.debug("Comissão de {}: normais {} ({} líquido), fixos {} ({} líquido), total {} bruto, {} líquido, {} desconto, {} já pago (desconta taxas: {})",
+                                        profissional.getNome(),
+                                        resultadoNormal.valorComissao, resultadoNormal.valorComissaoLiquida(),
+                                        resultadoFixo.valorComissao, resultadoFixo.valorComissaoLiquida(),
+                                        comissaoTotal, comissaoLiquida, descontoTaxaTotal, valorJaPago, descontarTaxas);
 
-                        return new ComissaoResponseDTO(
+                        comissoes.add(new ComissaoResponseDTO(
                                         profissional.getId(),
                                         profissional.getNome(),
                                         inicio,
@@ -286,11 +149,9 @@ public class ComissaoService {
                                         descontoTaxaTotal,
                                         valorJaPago,
                                         comissoesIndividuais,
-                                        comissoes);
-                } catch (Exception e) {
-                        logger.error("❌ Erro ao calcular comissão: {}", e.getMessage(), e);
-                        throw new RuntimeException("Erro ao calcular comissão: " + e.getMessage());
+                                        new ArrayList<>(historico)));
                 }
+                return comissoes;
         }
 
         /**
@@ -370,6 +231,7 @@ public class ComissaoService {
 
                 // Salvar o pagamento
                 ComissaoPagamento pagamentoSalvo = comissaoPagamentoRepository.save(pagamento);
+                publicarAlteracao(periodoInicio, periodoFim);
 
                 logger.info("✅ Pagamento registrado com sucesso! ID={}, Valor={}, Profissional={}",
                                 pagamentoSalvo.getId(), valorPago, profissionalId);
@@ -410,6 +272,7 @@ public class ComissaoService {
                 // Cancelar o pagamento
                 pagamento.setStatus(ComissaoPagamento.StatusPagamento.CANCELADO);
                 comissaoPagamentoRepository.save(pagamento);
+                publicarAlteracao(pagamento.getPeriodoInicio(), pagamento.getPeriodoFim());
 
                 // Recalcular a comissão para retornar os valores atualizados
                 return calcularComissaoPorPeriodo(
@@ -506,6 +369,7 @@ public class ComissaoService {
                         comissao.setObservacao(observacao);
                         comissaoPagamentoRepository.save(comissao);
                 }
+                publicarAlteracao(periodoInicio, periodoFim);
 
                 // Recalcular a comissão para retornar os valores atualizados
                 return calcularComissaoPorPeriodo(profissionalId, periodoInicio, periodoFim);
@@ -538,6 +402,7 @@ public class ComissaoService {
                         comissao.cancelarComissao();
                         comissaoPagamentoRepository.save(comissao);
                 }
+                publicarAlteracao(periodoInicio, periodoFim);
 
                 // Recalcular a comissão para retornar os valores atualizados
                 return calcularComissaoPorPeriodo(profissionalId, periodoInicio, periodoFim);
@@ -560,6 +425,7 @@ public class ComissaoService {
                 // Cancelar parcialmente o pagamento
                 pagamento.cancelarParcialmente(valorACancelar);
                 comissaoPagamentoRepository.save(pagamento);
+                publicarAlteracao(pagamento.getPeriodoInicio(), pagamento.getPeriodoFim());
 
                 // Recalcular a comissão para retornar os valores atualizados
                 return calcularComissaoPorPeriodo(
@@ -567,4 +433,11 @@ public class ComissaoService {
                                 pagamento.getPeriodoInicio(),
                                 pagamento.getPeriodoFim());
         }
+
+        /**
+         * Avisa os caches de métricas: o total de comissões pagas considera o período do pagamento
+         */
+        private void publicarAlteracao(LocalDate periodoInicio, LocalDate periodoFim) {
+                eventos.publishEvent(AlteracaoFinanceiraEvent.noPeriodo(periodoInicio, periodoFim, "comissao"));
+        }
 }
@@ -9,17 +9,22 @@ import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.maestria.agenda.service.AlteracaoFinanceiraEvent;
+
 @Service
 public class ExpenseService {
 
     private final ExpenseRepository expenseRepository;
+    private final ApplicationEventPublisher eventos;
     private final Logger logger = LoggerFactory.getLogger(ExpenseService.class);
 
-    public ExpenseService(ExpenseRepository expenseRepository) {
+    public ExpenseService(ExpenseRepository expenseRepository, ApplicationEventPublisher eventos) {
         this.expenseRepository = expenseRepository;
+        this.eventos = eventos;
     }
 
     @Transactional
@@ -45,6 +50,8 @@ public class ExpenseService {
                 
                 // Generate future expenses
                 generateFutureExpenses(savedExpense);
+                eventos.publishEvent(AlteracaoFinanceiraEvent.noPeriodo(
+                        savedExpense.getDate(), savedExpense.getEndDate(), "despesa"));
                 
                 return convertToDTO(savedExpense);
             } else {
@@ -53,6 +60,7 @@ public class ExpenseService {
                 LocalDate dataSaoPaulo = requestDTO.getDate().atStartOfDay(zonaSaoPaulo).toLocalDate();
                 expense.setDate(dataSaoPaulo);
                 Expense savedExpense = expenseRepository.save(expense);
+                eventos.publishEvent(AlteracaoFinanceiraEvent.naData(savedExpense.getDate(), "despesa"));
                 return convertToDTO(savedExpense);
             }
         } catch (Exception e) {
@@ -66,6 +74,7 @@ public class ExpenseService {
         try {
             Expense expense = expenseRepository.findById(id)
                     .orElseThrow(() -> new RuntimeException("Despesa não encontrada com ID: " + id));
+            LocalDate dataAnterior = expense.getDate();
             
             // Atualizar campos
             if (requestDTO.getDescription() != null) {
@@ -83,6 +92,10 @@ public class ExpenseService {
             
             // Salvar as alterações
             Expense updatedExpense = expenseRepository.save(expense);
+            eventos.publishEvent(AlteracaoFinanceiraEvent.naData(dataAnterior, "despesa"));
+            if (!Objects.equals(dataAnterior, updatedExpense.getDate())) {
+                eventos.publishEvent(AlteracaoFinanceiraEvent.naData(updatedExpense.getDate(), "despesa"));
+            }
             return convertToDTO(updatedExpense);
         } catch (Exception e) {
             logger.error("Erro ao atualizar despesa: {}", e.getMessage(), e);
@@ -130,6 +143,7 @@ public class ExpenseService {
             
             expense.setPaid(paid);
             Expense savedExpense = expenseRepository.save(expense);
+            eventos.publishEvent(AlteracaoFinanceiraEvent.naData(savedExpense.getDate(), "pagamento-despesa"));
             
             return convertToDTO(savedExpense);
         } catch (Exception e) {
@@ -141,10 +155,10 @@ public class ExpenseService {
     @Transactional
     public void deleteExpense(Long id) {
         try {
-            if (!expenseRepository.existsById(id)) {
-                throw new RuntimeException("Expense not found with ID: " + id);
-            }
-            expenseRepository.deleteById(id);
+            Expense expense = expenseRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Expense not found with ID: " + id));
+            expenseRepository.delete(expense);
+            eventos.publishEvent(AlteracaoFinanceiraEvent.naData(expense.getDate(), "despesa"));
         } catch (Exception e) {
             logger.error("Error deleting expense: {}", e.getMessage(), e);
             throw new RuntimeException("Error deleting expense: " + e.getMessage());
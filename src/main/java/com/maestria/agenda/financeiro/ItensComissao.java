@@ -0,0 +1,32 @@
+package com.maestria.agenda.financeiro;
+
+/**
+ * Regra única (SQL nativo) de quais serviços de um agendamento geram comissão.
+ *
+ * Cada item de agendamento_servico é uma linha, com o percentual da categoria do seu
+ * serviço em comissao_profissional. Sem itens, vale o serviço da série fixa ou o serviço
+ * legado (servico_id). Ocorrências de fixos pertencem ao profissional da série e só contam
+ * enquanto a série está ativa.
+ *
+ * Aliases disponíveis para as consultas que usam {@link #ORIGEM}: a (agendamento),
+ * f (agendamento_fixo), s (servico) e cp (comissao_profissional).
+ */
+public final class ItensComissao {
+
+    /** Profissional que recebe a comissão do item */
+    public static final String PROFISSIONAL = "COALESCE(f.profissional_id, a.profissional_id)";
+
+    /** FROM/WHERE dos itens pagos; as consultas acrescentam seus filtros com AND */
+    public static final String ORIGEM =
+        "FROM agendamento a " +
+        "LEFT JOIN agendamento_fixo f ON f.id = a.agendamento_fixo_id " +
+        "LEFT JOIN agendamento_servico x ON x.agendamento_id = a.id " +
+        "JOIN servico s ON s.id = COALESCE(x.servico_id, f.servico_id, a.servico_id) " +
+        "LEFT JOIN comissao_profissional cp ON cp.profissional_id = " + PROFISSIONAL + " " +
+        "       AND cp.categoria_id = s.categoria_id " +
+        "WHERE a.pago = true AND s.valor IS NOT NULL " +
+        "AND (a.agendamento_fixo_id IS NULL OR f.ativo = true) ";
+
+    private ItensComissao() {
+    }
+}
@@ -0,0 +1,98 @@
+package com.maestria.agenda.financeiro;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Totais de um dia usados pelo dashboard (faturamento, atendimentos pagos,
+ * agendamentos e despesas pagas). Mantida pelo MetricaDiariaService a cada
+ * alteração, para que um período qualquer seja a soma de poucas linhas.
+ */
+@Entity
+@Table(name = "metricas_diarias")
+public class MetricaDiaria {
+
+    @Id
+    private LocalDate data;
+
+    @Column(nullable = false)
+    private Double faturamento = 0.0;
+
+    @Column(name = "servicos_pagos", nullable = false)
+    private Integer servicosPagos = 0;
+
+    @Column(nullable = false)
+    private Integer agendamentos = 0;
+
+    // Informativo: clientes distintos não podem ser somados entre dias
+    @Column(name = "clientes_distintos", nullable = false)
+    private Integer clientesDistintos = 0;
+
+    @Column(name = "despesas_pagas", nullable = false)
+    private Double despesasPagas = 0.0;
+
+    @Column(name = "atualizado_em", nullable = false)
+    private LocalDateTime atualizadoEm = LocalDateTime.now();
+
+    public MetricaDiaria() {
+    }
+
+    // Getters e Setters
+
+    public LocalDate getData() {
+        return data;
+    }
+
+    public void setData(LocalDate data) {
+        this.data = data;
+    }
+
+    public Double getFaturamento() {
+        return faturamento;
+    }
+
+    public void setFaturamento(Double faturamento) {
+        this.faturamento = faturamento;
+    }
+
+    public Integer getServicosPagos() {
+        return servicosPagos;
+    }
+
+    public void setServicosPagos(Integer servicosPagos) {
+        this.servicosPagos = servicosPagos;
+    }
+
+    public Integer getAgendamentos() {
+        return agendamentos;
+    }
+
+    public void setAgendamentos(Integer agendamentos) {
+        this.agendamentos = agendamentos;
+    }
+
+    public Integer getClientesDistintos() {
+        return clientesDistintos;
+    }
+
+    public void setClientesDistintos(Integer clientesDistintos) {
+        this.clientesDistintos = clientesDistintos;
+    }
+
+    public Double getDespesasPagas() {
+        return despesasPagas;
+    }
+
+    public void setDespesasPagas(Double despesasPagas) {
+        this.despesasPagas = despesasPagas;
+    }
+
+    public LocalDateTime getAtualizadoEm() {
+        return atualizadoEm;
+    }
+
+    public void setAtualizadoEm(LocalDateTime atualizadoEm) {
+        this.atualizadoEm = atualizadoEm;
+    }
+}
@@ -0,0 +1,63 @@
+package com.maestria.agenda.financeiro;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Quantidade de agendamentos de um dia em cada hora cheia (histograma de horários)
+ */
+@Entity
+@Table(name = "metricas_diarias_hora",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"data", "hora"}))
+public class MetricaDiariaHora {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate data;
+
+    @Column(nullable = false)
+    private Integer hora;
+
+    @Column(nullable = false)
+    private Long total;
+
+    public MetricaDiariaHora() {
+    }
+
+    // Getters e Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getData() {
+        return data;
+    }
+
+    public void setData(LocalDate data) {
+        this.data = data;
+    }
+
+    public Integer getHora() {
+        return hora;
+    }
+
+    public void setHora(Integer hora) {
+        this.hora = hora;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+}
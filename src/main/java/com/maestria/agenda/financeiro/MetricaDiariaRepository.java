@@ -0,0 +1,35 @@
+package com.maestria.agenda.financeiro;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface MetricaDiariaRepository extends JpaRepository<MetricaDiaria, LocalDate> {
+
+    /**
+     * Soma do período: [faturamento, serviços pagos, agendamentos, despesas pagas]
+     */
+    @Query("SELECT COALESCE(SUM(m.faturamento), 0), COALESCE(SUM(m.servicosPagos), 0), " +
+           "COALESCE(SUM(m.agendamentos), 0), COALESCE(SUM(m.despesasPagas), 0) " +
+           "FROM MetricaDiaria m WHERE m.data BETWEEN :dataInicio AND :dataFim")
+    List<Object[]> somarPeriodo(@Param("dataInicio") LocalDate dataInicio, @Param("dataFim") LocalDate dataFim);
+
+    // [ano, mês, faturamento] - ano e mês juntos para períodos que atravessam anos
+    @Query("SELECT YEAR(m.data), MONTH(m.data), SUM(m.faturamento) FROM MetricaDiaria m " +
+           "WHERE m.data BETWEEN :dataInicio AND :dataFim " +
+           "GROUP BY YEAR(m.data), MONTH(m.data) ORDER BY YEAR(m.data), MONTH(m.data)")
+    List<Object[]> somarFaturamentoPorMes(@Param("dataInicio") LocalDate dataInicio, @Param("dataFim") LocalDate dataFim);
+
+    @Query("SELECT h.hora, SUM(h.total) FROM MetricaDiariaHora h " +
+           "WHERE h.data BETWEEN :dataInicio AND :dataFim GROUP BY h.hora ORDER BY SUM(h.total) DESC")
+    List<Object[]> somarPorHora(@Param("dataInicio") LocalDate dataInicio, @Param("dataFim") LocalDate dataFim);
+
+    @Query("SELECT s.servicoNome, SUM(s.total) FROM MetricaDiariaServico s " +
+           "WHERE s.data BETWEEN :dataInicio AND :dataFim GROUP BY s.servicoNome ORDER BY SUM(s.total) DESC")
+    List<Object[]> somarPorServico(@Param("dataInicio") LocalDate dataInicio, @Param("dataFim") LocalDate dataFim);
+}
@@ -0,0 +1,63 @@
+package com.maestria.agenda.financeiro;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Quantidade de atendimentos pagos de cada serviço em um dia
+ */
+@Entity
+@Table(name = "metricas_diarias_servico",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"data", "servico_nome"}))
+public class MetricaDiariaServico {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate data;
+
+    @Column(name = "servico_nome", nullable = false)
+    private String servicoNome;
+
+    @Column(nullable = false)
+    private Long total;
+
+    public MetricaDiariaServico() {
+    }
+
+    // Getters e Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getData() {
+        return data;
+    }
+
+    public void setData(LocalDate data) {
+        this.data = data;
+    }
+
+    public String getServicoNome() {
+        return servicoNome;
+    }
+
+    public void setServicoNome(String servicoNome) {
+        this.servicoNome = servicoNome;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+}
@@ -8,8 +8,10 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
+import com.maestria.agenda.service.AlteracaoFinanceiraEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,12 +20,15 @@ public class RecurringExpenseService {
     
     private final RecurringExpenseRepository recurringExpenseRepository;
     private final ExpenseRepository expenseRepository;
+    private final ApplicationEventPublisher eventos;
     private final Logger logger = LoggerFactory.getLogger(RecurringExpenseService.class);
     
     public RecurringExpenseService(RecurringExpenseRepository recurringExpenseRepository,
-                                  ExpenseRepository expenseRepository) {
+                                  ExpenseRepository expenseRepository,
+                                  ApplicationEventPublisher eventos) {
         this.recurringExpenseRepository = recurringExpenseRepository;
         this.expenseRepository = expenseRepository;
+        this.eventos = eventos;
     }
     
     /**
@@ -180,6 +185,7 @@ public class RecurringExpenseService {
             if (padraoMudou) {
                 // Remover todas as instâncias futuras e recriar
                 expenseRepository.deleteAll(despesasFuturas);
+                publicarAlteracao(despesasFuturas);
                 
                 // Limite de geração (3 meses à frente)
                 LocalDate limiteGeracao = hoje.plusMonths(3);
@@ -197,6 +203,7 @@ public class RecurringExpenseService {
                     despesa.setAmount(saved.getAmount());
                     expenseRepository.save(despesa);
                 }
+                publicarAlteracao(despesasFuturas);
             }
             
             return mapToDTO(saved);
@@ -206,6 +213,15 @@ public class RecurringExpenseService {
         }
     }
     
+    /**
+     * Avisa o dashboard sobre as instâncias alteradas ou removidas (despesas pagas entram nas métricas)
+     */
+    private void publicarAlteracao(List<Expense> despesas) {
+        despesas.stream().map(Expense::getDate).min(Comparator.naturalOrder()).ifPresent(inicio ->
+            eventos.publishEvent(AlteracaoFinanceiraEvent.noPeriodo(inicio,
+                despesas.stream().map(Expense::getDate).max(Comparator.naturalOrder()).get(), "despesa-fixa")));
+    }
+    
     /**
      * Desativa (soft delete) uma despesa fixa
      */
@@ -239,6 +255,7 @@ public class RecurringExpenseService {
             logger.info("Excluindo despesa fixa ID={} e suas {} instâncias", id, despesasRelacionadas.size());
             
             expenseRepository.deleteAll(despesasRelacionadas);
+            publicarAlteracao(despesasRelacionadas);
             
             // Depois excluir a despesa fixa em si
             recurringExpenseRepository.deleteById(id);
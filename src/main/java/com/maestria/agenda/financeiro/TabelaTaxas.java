@@ -0,0 +1,43 @@
+package com.maestria.agenda.financeiro;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Fotografia imutável das taxas de todas as formas de pagamento.
+ *
+ * O TaxaPagamentoService troca a instância inteira quando uma taxa é configurada ou
+ * desativada; quem calcula comissões recebe a tabela uma vez e consulta sem proxy,
+ * cache nem acesso ao banco.
+ */
+public final class TabelaTaxas {
+
+    private final Map<PagamentoTipo, Double> taxas;
+
+    private TabelaTaxas(Map<PagamentoTipo, Double> taxas) {
+        this.taxas = Collections.unmodifiableMap(new EnumMap<>(taxas));
+    }
+
+    /**
+     * Monta a tabela a partir das taxas informadas; formas ausentes ficam com taxa zero
+     */
+    public static TabelaTaxas de(Map<PagamentoTipo, Double> taxas) {
+        EnumMap<PagamentoTipo, Double> completas = new EnumMap<>(PagamentoTipo.class);
+        for (PagamentoTipo tipo : PagamentoTipo.values()) {
+            completas.put(tipo, taxas.getOrDefault(tipo, 0.0));
+        }
+        return new TabelaTaxas(completas);
+    }
+
+    /**
+     * Taxa (%) da forma de pagamento; sem forma de pagamento, zero
+     */
+    public double taxa(PagamentoTipo tipoPagamento) {
+        return tipoPagamento != null ? taxas.get(tipoPagamento) : 0.0;
+    }
+
+    public Map<PagamentoTipo, Double> comoMapa() {
+        return taxas;
+    }
+}
@@ -4,6 +4,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,6 +15,11 @@ public interface TaxaPagamentoRepository extends JpaRepository<TaxaPagamento, Lo
      */
     Optional<TaxaPagamento> findByTipoPagamentoAndAtivoTrue(PagamentoTipo tipoPagamento);
     
+    /**
+     * Todas as taxas ativas (carga da TabelaTaxas)
+     */
+    List<TaxaPagamento> findByAtivoTrue();
+    
     /**
      * Busca uma taxa por tipo de pagamento (ativa ou inativa)
      */
@@ -2,12 +2,14 @@ package com.maestria.agenda.financeiro;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class TaxaPagamentoService {
@@ -15,6 +17,9 @@ public class TaxaPagamentoService {
     private final TaxaPagamentoRepository taxaPagamentoRepository;
     private final Logger logger = LoggerFactory.getLogger(TaxaPagamentoService.class);
 
+    // Trocada inteira a cada alteração; leituras concorrentes veem a tabela antiga ou a nova
+    private volatile TabelaTaxas tabela;
+
     public TaxaPagamentoService(TaxaPagamentoRepository taxaPagamentoRepository) {
         this.taxaPagamentoRepository = taxaPagamentoRepository;
     }
@@ -22,21 +27,42 @@ public class TaxaPagamentoService {
     /**
      * Obtém a taxa configurada para um tipo de pagamento
      * Se não existir configuração, retorna a taxa padrão baseada no tipo
-     * OTIMIZAÇÃO: Resultado é cacheado para evitar queries repetidas
      */
-    @Cacheable(value = "taxasPagamento", key = "#tipoPagamento")
     public double obterTaxa(PagamentoTipo tipoPagamento) {
-        Optional<TaxaPagamento> taxaConfig = taxaPagamentoRepository.findByTipoPagamentoAndAtivoTrue(tipoPagamento);
+        return tabelaAtual().taxa(tipoPagamento);
+    }
 
-        if (taxaConfig.isPresent()) {
-            logger.debug("Taxa configurada encontrada para {}: {}%", tipoPagamento, taxaConfig.get().getTaxa());
-            return taxaConfig.get().getTaxa();
+    /**
+     * Taxas vigentes de todas as formas de pagamento, para consultar em laços sem ir ao banco
+     */
+    public TabelaTaxas tabelaAtual() {
+        TabelaTaxas atual = tabela;
+        return atual != null ? atual : recarregar();
+    }
+
+    /**
+     * Lê as taxas ativas e troca a tabela (formas sem configuração ativa usam a taxa padrão)
+     */
+    public synchronized TabelaTaxas recarregar() {
+        Map<PagamentoTipo, Double> taxas = new EnumMap<>(PagamentoTipo.class);
+        for (PagamentoTipo tipo : PagamentoTipo.values()) {
+            taxas.put(tipo, obterTaxaPadrao(tipo));
+        }
+        for (TaxaPagamento taxaConfig : taxaPagamentoRepository.findByAtivoTrue()) {
+            taxas.put(taxaConfig.getTipoPagamento(), taxaConfig.getTaxa());
         }
+        TabelaTaxas nova = TabelaTaxas.de(taxas);
+        tabela = nova;
+        logger.debug("Tabela de taxas carregada: {}", nova.comoMapa());
+        return nova;
+    }
 
-        // Fallback para taxas padrão (valores anteriores)
-        double taxaPadrao = obterTaxaPadrao(tipoPagamento);
-        logger.debug("Usando taxa padrão para {}: {}%", tipoPagamento, taxaPadrao);
-        return taxaPadrao;
+    /**
+     * Relê o banco de tempos em tempos (alterações feitas por outra instância ou direto no banco)
+     */
+    @Scheduled(fixedDelay = 30, initialDelay = 30, timeUnit = TimeUnit.MINUTES)
+    public void recarregarPeriodicamente() {
+        recarregar();
     }
 
     /**
@@ -58,9 +84,7 @@ public class TaxaPagamentoService {
 
     /**
      * Configura ou atualiza a taxa para um tipo de pagamento
-     * OTIMIZAÇÃO: Limpa o cache ao atualizar
      */
-    @CacheEvict(value = "taxasPagamento", allEntries = true)
     public TaxaPagamento configurarTaxa(PagamentoTipo tipoPagamento, Double taxa) {
         logger.info("Configurando taxa para {}: {}%", tipoPagamento, taxa);
 
@@ -77,7 +101,9 @@ public class TaxaPagamentoService {
             taxaConfig = new TaxaPagamento(tipoPagamento, taxa);
         }
 
-        return taxaPagamentoRepository.save(taxaConfig);
+        TaxaPagamento salva = taxaPagamentoRepository.save(taxaConfig);
+        recarregar();
+        return salva;
     }
 
     /**
@@ -98,6 +124,7 @@ public class TaxaPagamentoService {
             TaxaPagamento taxaConfig = existente.get();
             taxaConfig.setAtivo(false);
             taxaPagamentoRepository.save(taxaConfig);
+            recarregar();
         }
     }
 
@@ -115,5 +142,6 @@ public class TaxaPagamentoService {
                 logger.info("Taxa padrão criada: {} = {}%", tipo, taxaPadrao);
             }
         }
+        recarregar();
     }
 }
@@ -0,0 +1,18 @@
+package com.maestria.agenda.profissional;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injeta no parâmetro (Profissional) o profissional autenticado da requisição,
+ * resolvido uma vez por requisição pelo ProfissionalAtualArgumentResolver.
+ * O valor é null se o usuário do token não corresponder a um profissional.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentProfissional {
+}
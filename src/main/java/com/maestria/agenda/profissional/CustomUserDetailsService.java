@@ -2,7 +2,6 @@ package com.maestria.agenda.profissional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -27,7 +26,8 @@ public class CustomUserDetailsService implements UserDetailsService {
         }
 
         // Usando enum Role para garantir que apenas os valores válidos sejam passados
-        return new User(
+        return new ProfissionalAutenticado(
+                profissional.getId(),                           // ID do profissional
                 profissional.getLogin(),                        // Login do profissional
                 profissional.getSenha(),                        // Senha criptografada
                 Collections.singletonList(new SimpleGrantedAuthority(profissional.getRole().name())) // Atribui a autoridade de role
@@ -0,0 +1,119 @@
+package com.maestria.agenda.profissional;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limite de tentativas de login por IP e por login (token bucket).
+ *
+ * Cada chave tem um balde com a capacidade configurada que se recompõe a uma taxa fixa por
+ * minuto; cada tentativa consome uma ficha do IP e uma do login. Baldes sem uso expiram depois
+ * do tempo de recompor a capacidade inteira, quando já estariam cheios de novo.
+ */
+@Component
+public class LimitadorLogin {
+
+    private static final Logger logger = LoggerFactory.getLogger(LimitadorLogin.class);
+
+    private static final long MAXIMO_CHAVES = 10_000;
+
+    private final Cache<String, Balde> porIp;
+    private final Cache<String, Balde> porLogin;
+    private final int capacidadeIp;
+    private final int porMinutoIp;
+    private final int capacidadeLogin;
+    private final int porMinutoLogin;
+    private final Ticker relogio;
+
+    @Autowired
+    public LimitadorLogin(@Value("${agenda.auth.login.ip.capacidade:20}") int capacidadeIp,
+            @Value("${agenda.auth.login.ip.por-minuto:10}") int porMinutoIp,
+            @Value("${agenda.auth.login.usuario.capacidade:5}") int capacidadeLogin,
+            @Value("${agenda.auth.login.usuario.por-minuto:2}") int porMinutoLogin) {
+        this(capacidadeIp, porMinutoIp, capacidadeLogin, porMinutoLogin, Ticker.systemTicker());
+    }
+
+    // Relógio em nanos (recomposição dos baldes e expiração do cache) substituível nos testes
+    LimitadorLogin(int capacidadeIp, int porMinutoIp, int capacidadeLogin, int porMinutoLogin, Ticker relogio) {
+        this.capacidadeIp = capacidadeIp;
+        this.porMinutoIp = porMinutoIp;
+        this.capacidadeLogin = capacidadeLogin;
+        this.porMinutoLogin = porMinutoLogin;
+        this.relogio = relogio;
+        this.porIp = criarCache(capacidadeIp, porMinutoIp, relogio);
+        this.porLogin = criarCache(capacidadeLogin, porMinutoLogin, relogio);
+        logger.info("🔐 Limite de login: {} por IP (+{}/min), {} por usuário (+{}/min)",
+                capacidadeIp, porMinutoIp, capacidadeLogin, porMinutoLogin);
+    }
+
+    /**
+     * Segundos até a próxima tentativa ser liberada; 0 quando a tentativa foi aceita
+     * (e consumiu uma ficha do IP e uma do login)
+     */
+    public long aguardar(String ip, String login) {
+        long esperaIp = porIp.get(ip != null ? ip : "", chave -> new Balde(capacidadeIp, porMinutoIp, relogio))
+                .consumir();
+        if (esperaIp > 0) {
+            logger.warn("⛔ Tentativas de login excedidas para o IP {}", ip);
+            return esperaIp;
+        }
+        String chaveLogin = login != null ? login.trim().toLowerCase(Locale.ROOT) : "";
+        long esperaLogin = porLogin.get(chaveLogin, chave -> new Balde(capacidadeLogin, porMinutoLogin, relogio))
+                .consumir();
+        if (esperaLogin > 0) {
+            logger.warn("⛔ Tentativas de login excedidas para o usuário {}", login);
+        }
+        return esperaLogin;
+    }
+
+    private static Cache<String, Balde> criarCache(int capacidade, int porMinuto, Ticker relogio) {
+        long minutosParaEncher = (capacidade + porMinuto - 1) / Math.max(1, porMinuto);
+        return Caffeine.newBuilder()
+                .ticker(relogio)
+                .maximumSize(MAXIMO_CHAVES)
+                .expireAfterAccess(Duration.ofMinutes(minutosParaEncher + 1))
+                .build();
+    }
+
+    private static final class Balde {
+
+        private final double capacidade;
+        private final double fichasPorNano;
+        private final Ticker relogio;
+        private double fichas;
+        private long atualizadoEm;
+
+        Balde(int capacidade, int porMinuto, Ticker relogio) {
+            this.capacidade = capacidade;
+            this.fichasPorNano = (double) porMinuto / TimeUnit.MINUTES.toNanos(1);
+            this.relogio = relogio;
+            this.fichas = capacidade;
+            this.atualizadoEm = relogio.read();
+        }
+
+        synchronized long consumir() {
+            long agora = relogio.read();
+            fichas = Math.min(capacidade, fichas + (agora - atualizadoEm) * fichasPorNano);
+            atualizadoEm = agora;
+            if (fichas >= 1) {
+                fichas -= 1;
+                return 0;
+            }
+            if (fichasPorNano <= 0) {
+                return TimeUnit.MINUTES.toSeconds(1);
+            }
+            long nanosAteFicha = (long) Math.ceil((1 - fichas) / fichasPorNano);
+            return Math.max(1, (nanosAteFicha + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+}
@@ -1,20 +1,17 @@
 package com.maestria.agenda.profissional;
 
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/auth")
@@ -24,49 +21,63 @@ public class LoginController {
     private static final Logger logger = LoggerFactory.getLogger(LoginController.class);
 
     @Autowired
-    private ProfissionalRepository profissionalRepository;
+    private LoginService loginService;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private LimitadorLogin limitadorLogin;
 
-    @Value("${jwt.secret}")
-    private String SECRET_KEY;
+    @Autowired
+    private RefreshTokenService refreshTokenService;
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest loginRequest,
+            HttpServletRequest request) {
         logger.info("🔐 Tentativa de login - Username: {}", loginRequest.getUsername());
-        
-        Profissional profissional = profissionalRepository.findByLogin(loginRequest.getUsername());
 
-        if (profissional == null) {
-            logger.warn("❌ Login falhou - Usuário não encontrado: {}", loginRequest.getUsername());
-            return ResponseEntity.status(401).body("Usuário não encontrado.");
+        long espera = limitadorLogin.aguardar(request.getRemoteAddr(), loginRequest.getUsername());
+        if (espera > 0) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(429)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(espera))
+                    .body("Muitas tentativas de login. Tente novamente em " + espera + " segundos."));
         }
 
-        logger.info("✅ Usuário encontrado: {} (ID: {})", profissional.getLogin(), profissional.getId());
-        logger.debug("Senha recebida: {} | Hash no banco: {}", loginRequest.getSenha(), profissional.getSenha());
-        
-        boolean senhaCorreta = passwordEncoder.matches(loginRequest.getSenha(), profissional.getSenha());
-        logger.info("Resultado da validação de senha: {}", senhaCorreta);
-
-        if (!senhaCorreta) {
-            logger.warn("❌ Login falhou - Senha incorreta para usuário: {}", loginRequest.getUsername());
-            return ResponseEntity.status(401).body("Senha incorreta.");
+        try {
+            // 🔥 BCrypt e emissão dos tokens no pool de login
+            return loginService.autenticar(loginRequest.getUsername(), loginRequest.getSenha())
+                    .thenApply(sessao -> {
+                        if (sessao.isEmpty()) {
+                            // Mesma resposta para usuário inexistente e senha incorreta
+                            return ResponseEntity.status(401).body("Usuário ou senha inválidos.");
+                        }
+                        return ResponseEntity.ok(resposta(sessao.get()));
+                    });
+        } catch (RejectedExecutionException e) {
+            logger.warn("⛔ Pool de login cheio, tentativa de {} recusada", loginRequest.getUsername());
+            return CompletableFuture.completedFuture(ResponseEntity.status(503)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Servidor ocupado. Tente novamente em instantes."));
         }
+    }
 
-        logger.info("✅ Login bem-sucedido - Usuário: {}", loginRequest.getUsername());
+    // Troca o refresh token (uso único) por um novo token de acesso e um novo refresh token
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody Map<String, String> body) {
+        return refreshTokenService.renovar(body.get("refreshToken"))
+                .<ResponseEntity<?>>map(sessao -> ResponseEntity.ok(resposta(sessao)))
+                .orElseGet(() -> ResponseEntity.status(401).body("Sessão expirada. Faça login novamente."));
+    }
 
-        // 🔥 Gera token JWT usando uma chave segura
-        String token = Jwts.builder()
-                .setSubject(loginRequest.getUsername())
-                .claim("role", profissional.getRole())
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + 86400000)) // Expira em 24h
-                .signWith(Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
-                .compact();
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestBody Map<String, String> body) {
+        refreshTokenService.encerrar(body.get("refreshToken"));
+        return ResponseEntity.ok("Logout realizado com sucesso.");
+    }
 
-        Map<String, String> response = new HashMap<>();
-        response.put("token", token);
-        return ResponseEntity.ok(response);
+    private Map<String, Object> resposta(Sessao sessao) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("token", sessao.token());
+        response.put("refreshToken", sessao.refreshToken());
+        response.put("expiraEm", sessao.expiraEm());
+        return response;
     }
 }
@@ -0,0 +1,107 @@
+package com.maestria.agenda.profissional;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verificação de login e abertura da sessão (token de acesso + refresh token).
+ *
+ * O BCrypt roda num pool próprio e limitado, para que uma rajada de logins não ocupe as
+ * threads do Tomcat que atendem o resto da API; com o pool e a fila cheios a tentativa é
+ * recusada (RejectedExecutionException). Login inexistente também compara a senha, contra um
+ * hash fictício, para que a resposta leve o mesmo tempo de uma senha errada. Hashes gravados
+ * sem prefixo ou com custo menor que o configurado são regravados após um login correto.
+ */
+@Service
+public class LoginService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginService.class);
+
+    private final ProfissionalRepository profissionalRepository;
+    private final ProfissionalCacheService profissionalCacheService;
+    private final PasswordEncoder passwordEncoder;
+    private final RefreshTokenService refreshTokenService;
+    private final ThreadPoolExecutor executor;
+    private final String hashFicticio;
+
+    public LoginService(ProfissionalRepository profissionalRepository,
+            ProfissionalCacheService profissionalCacheService,
+            PasswordEncoder passwordEncoder,
+            RefreshTokenService refreshTokenService,
+            @Value("${agenda.auth.login.threads:2}") int threads,
+            @Value("${agenda.auth.login.fila:50}") int fila) {
+        this.profissionalRepository = profissionalRepository;
+        this.profissionalCacheService = profissionalCacheService;
+        this.passwordEncoder = passwordEncoder;
+        this.refreshTokenService = refreshTokenService;
+        // Mesmo encoder (e custo) das senhas reais
+        this.hashFicticio = passwordEncoder.encode(UUID.randomUUID().toString());
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(fila),
+                tarefa -> {
+                    Thread thread = new Thread(tarefa, "login-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        logger.info("🔐 Logins verificados em {} threads (fila de {})", threads, fila);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Sessão nova se login e senha conferem, vazio caso contrário
+     *
+     * @throws java.util.concurrent.RejectedExecutionException se o pool de login estiver cheio
+     */
+    public CompletableFuture<Optional<Sessao>> autenticar(String login, String senha) {
+        return CompletableFuture.supplyAsync(() -> verificar(login, senha), executor);
+    }
+
+    private Optional<Sessao> verificar(String login, String senha) {
+        String senhaInformada = senha != null ? senha : "";
+        Profissional profissional = login != null ? profissionalRepository.findByLogin(login) : null;
+
+        if (profissional == null) {
+            passwordEncoder.matches(senhaInformada, hashFicticio);
+            logger.warn("❌ Login falhou - Usuário não encontrado: {}", login);
+            return Optional.empty();
+        }
+
+        if (!passwordEncoder.matches(senhaInformada, profissional.getSenha())) {
+            logger.warn("❌ Login falhou - Senha incorreta para usuário: {}", login);
+            return Optional.empty();
+        }
+
+        if (passwordEncoder.upgradeEncoding(profissional.getSenha())) {
+            try {
+                profissional.setSenha(passwordEncoder.encode(senhaInformada));
+                profissionalCacheService.save(profissional);
+                logger.info("🔄 Hash da senha de {} atualizado para o custo configurado", login);
+            } catch (RuntimeException e) {
+                // O login continua válido; a atualização do hash fica para o próximo
+                logger.error("❌ Erro ao atualizar o hash da senha de {}: {}", login, e.getMessage());
+            }
+        }
+
+        logger.info("✅ Login bem-sucedido - Usuário: {}", login);
+        return Optional.of(refreshTokenService.iniciar(profissional));
+    }
+}
@@ -0,0 +1,11 @@
+package com.maestria.agenda.profissional;
+
+/**
+ * Origem do usuário autenticado em cada requisição (propriedade agenda.auth.modo)
+ */
+public enum ModoAutenticacao {
+    // O profissional é carregado do banco (uma vez por token, depois do PrincipalCache)
+    CONSULTA,
+    // Login, role e id vêm das claims assinadas do token; a versão do token é conferida em memória
+    TOKEN
+}
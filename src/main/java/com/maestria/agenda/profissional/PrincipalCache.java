@@ -0,0 +1,83 @@
+package com.maestria.agenda.profissional;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cache dos UserDetails já carregados para tokens JWT válidos, para que requisições
+ * autenticadas não consultem o profissional no banco a cada chamada.
+ *
+ * A chave é login + data de emissão do token; cada entrada vale no máximo o TTL
+ * configurado e nunca além da expiração do próprio token. O ProfissionalCacheService
+ * remove as entradas de um login quando o profissional é salvo (role, senha, login) ou excluído.
+ */
+@Component
+public class PrincipalCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalCache.class);
+
+    private record Chave(String login, long emitidoEm) {
+    }
+
+    private record Entrada(UserDetails userDetails, long expiraEm) {
+    }
+
+    private final Cache<Chave, Entrada> cache;
+
+    public PrincipalCache(@Value("${agenda.auth.principal-cache.tamanho:1000}") long tamanho,
+            @Value("${agenda.auth.principal-cache.ttl-minutos:10}") long ttlMinutos) {
+        long ttlNanos = TimeUnit.MINUTES.toNanos(ttlMinutos);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(tamanho)
+                .expireAfter(new Expiry<Chave, Entrada>() {
+                    @Override
+                    public long expireAfterCreate(Chave chave, Entrada entrada, long agora) {
+                        long ateExpirar = TimeUnit.MILLISECONDS.toNanos(entrada.expiraEm() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(ttlNanos, ateExpirar));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Chave chave, Entrada entrada, long agora, long duracaoAtual) {
+                        return duracaoAtual;
+                    }
+
+                    @Override
+                    public long expireAfterRead(Chave chave, Entrada entrada, long agora, long duracaoAtual) {
+                        return duracaoAtual;
+                    }
+                })
+                .build();
+        logger.info("🔐 Cache de autenticação: até {} entradas, {}", tamanho, Duration.ofMinutes(ttlMinutos));
+    }
+
+    /**
+     * UserDetails do token (login, emitido em, expira em), carregado só na primeira requisição
+     */
+    public UserDetails obter(String login, Date emitidoEm, Date expiraEm, Function<String, UserDetails> carregar) {
+        if (emitidoEm == null || expiraEm == null) {
+            return carregar.apply(login);
+        }
+        return cache.get(new Chave(login, emitidoEm.getTime()),
+                chave -> new Entrada(carregar.apply(login), expiraEm.getTime())).userDetails();
+    }
+
+    /**
+     * Remove todas as sessões em cache de um login
+     */
+    public void invalidar(String login) {
+        if (login != null) {
+            cache.asMap().keySet().removeIf(chave -> chave.login().equals(login));
+        }
+    }
+}
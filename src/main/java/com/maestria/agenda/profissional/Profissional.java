@@ -1,5 +1,6 @@
 package com.maestria.agenda.profissional;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -40,6 +41,12 @@ public class Profissional {
     @Column(name = "descontar_taxas", nullable = false)
     private Boolean descontarTaxas = true; // Por padrão, desconta as taxas
 
+    // Versão dos tokens emitidos: incrementada quando login, senha ou role mudam,
+    // o que invalida os tokens anteriores (claim "ver")
+    @JsonIgnore
+    @Column(name = "token_versao")
+    private Integer tokenVersao = 0;
+
     // Removido o campo comissaoPercentual
 
     // Construtor padrão
@@ -97,6 +104,14 @@ public class Profissional {
         this.descontarTaxas = descontarTaxas;
     }
 
+    public int getTokenVersao() {
+        return tokenVersao != null ? tokenVersao : 0;
+    }
+
+    public void incrementarTokenVersao() {
+        this.tokenVersao = getTokenVersao() + 1;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj)
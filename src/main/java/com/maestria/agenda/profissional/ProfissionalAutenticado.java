@@ -0,0 +1,25 @@
+package com.maestria.agenda.profissional;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Usuário autenticado com o id do profissional, vindo do banco (CustomUserDetailsService)
+ * ou direto das claims do token (agenda.auth.modo=TOKEN).
+ */
+public class ProfissionalAutenticado extends User {
+
+    private final Long profissionalId;
+
+    public ProfissionalAutenticado(Long profissionalId, String login, String senha,
+            Collection<? extends GrantedAuthority> authorities) {
+        super(login, senha, authorities);
+        this.profissionalId = profissionalId;
+    }
+
+    public Long getProfissionalId() {
+        return profissionalId;
+    }
+}
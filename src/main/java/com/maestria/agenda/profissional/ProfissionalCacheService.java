@@ -1,7 +1,9 @@
 package com.maestria.agenda.profissional;
 
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -11,6 +13,9 @@ import java.util.Optional;
 /**
  * Serviço com cache para Profissionais
  * Reduz queries ao banco de dados
+ * Chaves: id, 'login:' + login e 'all'. Escritas atualizam apenas as chaves afetadas
+ * e descartam as sessões do login no PrincipalCache (role ou senha podem ter mudado);
+ * a versão de token do profissional é repassada ao VersaoTokenCache.
  */
 @Service
 public class ProfissionalCacheService {
@@ -18,11 +23,17 @@ public class ProfissionalCacheService {
     @Autowired
     private ProfissionalRepository profissionalRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private VersaoTokenCache versaoTokenCache;
+
     /**
      * Busca profissional por ID com cache
      * Cache é mantido até que o profissional seja atualizado
      */
-    @Cacheable(value = "profissionais", key = "#id")
+    @Cacheable(value = "profissionais", key = "#id", unless = "#result == null")
     public Optional<Profissional> findById(Long id) {
         return profissionalRepository.findById(id);
     }
@@ -36,26 +47,49 @@ public class ProfissionalCacheService {
     }
 
     /**
-     * Busca profissional por login com cache
+     * Busca profissional por login com cache (logins inexistentes não são cacheados)
      */
-    @Cacheable(value = "profissionais", key = "'login:' + #login")
+    @Cacheable(value = "profissionais", key = "'login:' + #login", unless = "#result == null")
     public Profissional findByLogin(String login) {
         return profissionalRepository.findByLogin(login);
     }
 
     /**
-     * Limpa o cache quando um profissional é atualizado
+     * Salva o profissional, atualiza sua chave e invalida a lista e o login atual.
+     * Se o login mudou, o anterior deve ser invalidado com {@link #evictLogin}.
      */
-    @CacheEvict(value = "profissionais", allEntries = true)
+    @Caching(
+            put = @CachePut(value = "profissionais", key = "#result.id"),
+            evict = {
+                    @CacheEvict(value = "profissionais", key = "'all'"),
+                    @CacheEvict(value = "profissionais", key = "'login:' + #result.login")
+            })
     public Profissional save(Profissional profissional) {
-        return profissionalRepository.save(profissional);
+        Profissional salvo = profissionalRepository.save(profissional);
+        principalCache.invalidar(salvo.getLogin());
+        versaoTokenCache.atualizar(salvo);
+        return salvo;
+    }
+
+    /**
+     * Invalida a entrada de um login (ex.: login alterado)
+     */
+    @CacheEvict(value = "profissionais", key = "'login:' + #login")
+    public void evictLogin(String login) {
+        principalCache.invalidar(login);
     }
 
     /**
-     * Limpa o cache quando um profissional é deletado
+     * Remove o profissional e suas chaves do cache
      */
-    @CacheEvict(value = "profissionais", allEntries = true)
-    public void deleteById(Long id) {
-        profissionalRepository.deleteById(id);
+    @Caching(evict = {
+            @CacheEvict(value = "profissionais", key = "#profissional.id"),
+            @CacheEvict(value = "profissionais", key = "'login:' + #profissional.login"),
+            @CacheEvict(value = "profissionais", key = "'all'")
+    })
+    public void delete(Profissional profissional) {
+        profissionalRepository.delete(profissional);
+        principalCache.invalidar(profissional.getLogin());
+        versaoTokenCache.remover(profissional.getId());
     }
 }
@@ -1,8 +1,11 @@
 package com.maestria.agenda.profissional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface ProfissionalRepository extends JpaRepository<Profissional, Long> {
 
@@ -10,4 +13,12 @@ public interface ProfissionalRepository extends JpaRepository<Profissional, Long
     List<Profissional> findAllByNome(String nome);
     Profissional findByLogin(String login);
     boolean existsByLogin(String login);
+
+    // [id, versão do token] de todos os profissionais (carga do VersaoTokenCache)
+    @Query("SELECT p.id, p.tokenVersao FROM Profissional p")
+    List<Object[]> listarVersoesToken();
+
+    // Versão do token de um profissional (profissional criado por outra instância desde a última carga)
+    @Query("SELECT COALESCE(p.tokenVersao, 0) FROM Profissional p WHERE p.id = :id")
+    Optional<Integer> buscarVersaoToken(@Param("id") Long id);
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.maestria.agenda.profissional;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Refresh token de uma sessão. Só o SHA-256 do token é gravado; o valor em si vai
+ * apenas para o cliente.
+ *
+ * Cada uso troca o token por um novo da mesma família (sessão) e marca o anterior como
+ * revogado. Se um token revogado aparecer de novo, alguém tem uma cópia dele e a família
+ * inteira é revogada.
+ */
+@Entity
+@Table(name = "refresh_token", indexes = {
+        @Index(name = "idx_refresh_token_familia", columnList = "familia")
+})
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "profissional_id", nullable = false)
+    private Long profissionalId;
+
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    // Sessão (login) à qual o token pertence; os tokens trocados no refresh mantêm a família
+    @Column(nullable = false, length = 36)
+    private String familia;
+
+    // Versão dos tokens do profissional na emissão: troca de login, senha ou role derruba a sessão
+    @Column(name = "versao_token", nullable = false)
+    private Integer versaoToken;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+
+    @Column(name = "revogado_em")
+    private LocalDateTime revogadoEm;
+
+    public RefreshToken() {
+    }
+
+    public RefreshToken(Long profissionalId, String tokenHash, String familia, Integer versaoToken,
+            LocalDateTime criadoEm, LocalDateTime expiraEm) {
+        this.profissionalId = profissionalId;
+        this.tokenHash = tokenHash;
+        this.familia = familia;
+        this.versaoToken = versaoToken;
+        this.criadoEm = criadoEm;
+        this.expiraEm = expiraEm;
+    }
+
+    public void revogar(LocalDateTime quando) {
+        this.revogadoEm = quando;
+    }
+
+    // Getters
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getProfissionalId() {
+        return profissionalId;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public String getFamilia() {
+        return familia;
+    }
+
+    public Integer getVersaoToken() {
+        return versaoToken;
+    }
+
+    public LocalDateTime getCriadoEm() {
+        return criadoEm;
+    }
+
+    public LocalDateTime getExpiraEm() {
+        return expiraEm;
+    }
+
+    public LocalDateTime getRevogadoEm() {
+        return revogadoEm;
+    }
+}
@@ -0,0 +1,144 @@
+package com.maestria.agenda.profissional;
+
+import com.maestria.agenda.config.JwtService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Sessões com token de acesso e refresh token rotativo.
+ *
+ * O token de acesso é validado pelo filtro JWT só pelas claims (sem banco); a revogação
+ * (logout, troca de login/senha/role, exclusão do profissional, reuso de refresh token)
+ * é verificada aqui, no refresh, que é o único ponto que consulta o banco.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int BYTES_TOKEN = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final ProfissionalRepository profissionalRepository;
+    private final JwtService jwtService;
+    private final long validadeDias;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+            ProfissionalRepository profissionalRepository,
+            JwtService jwtService,
+            @Value("${agenda.auth.refresh-token.dias:30}") long validadeDias) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.profissionalRepository = profissionalRepository;
+        this.jwtService = jwtService;
+        this.validadeDias = validadeDias;
+    }
+
+    /**
+     * Nova sessão (login): token de acesso e refresh token de uma família nova
+     */
+    @Transactional
+    public Sessao iniciar(Profissional profissional) {
+        String refreshToken = gravar(profissional, UUID.randomUUID().toString(), LocalDateTime.now());
+        return new Sessao(jwtService.gerarToken(profissional), refreshToken, jwtService.getValidadeAcessoSegundos());
+    }
+
+    /**
+     * Troca o refresh token por um novo e emite outro token de acesso; vazio se o token
+     * não existe, expirou, já foi usado ou o profissional mudou desde a emissão
+     */
+    @Transactional
+    public Optional<Sessao> renovar(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return Optional.empty();
+        }
+        Optional<RefreshToken> encontrado = refreshTokenRepository.findByTokenHash(hash(refreshToken));
+        if (encontrado.isEmpty()) {
+            logger.warn("❌ Refresh token desconhecido");
+            return Optional.empty();
+        }
+
+        RefreshToken atual = encontrado.get();
+        LocalDateTime agora = LocalDateTime.now();
+
+        if (atual.getRevogadoEm() != null) {
+            // Token já trocado (ou sessão encerrada) usado de novo: derruba a sessão inteira
+            int revogados = refreshTokenRepository.revogarFamilia(atual.getFamilia(), agora);
+            logger.warn("⛔ Refresh token reutilizado pelo profissional {}: sessão revogada ({} token(s))",
+                    atual.getProfissionalId(), revogados);
+            return Optional.empty();
+        }
+        if (atual.getExpiraEm().isBefore(agora)) {
+            logger.warn("❌ Refresh token expirado do profissional {}", atual.getProfissionalId());
+            return Optional.empty();
+        }
+
+        Profissional profissional = profissionalRepository.findById(atual.getProfissionalId()).orElse(null);
+        if (profissional == null || profissional.getTokenVersao() != atual.getVersaoToken()) {
+            refreshTokenRepository.revogarFamilia(atual.getFamilia(), agora);
+            logger.warn("❌ Sessão do profissional {} encerrada: login, senha ou role alterados", atual.getProfissionalId());
+            return Optional.empty();
+        }
+
+        atual.revogar(agora);
+        String novoRefreshToken = gravar(profissional, atual.getFamilia(), agora);
+        logger.info("🔄 Sessão renovada para {}", profissional.getLogin());
+        return Optional.of(new Sessao(jwtService.gerarToken(profissional), novoRefreshToken,
+                jwtService.getValidadeAcessoSegundos()));
+    }
+
+    /**
+     * Logout: revoga a sessão do refresh token (o token de acesso vale até expirar)
+     */
+    @Transactional
+    public void encerrar(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return;
+        }
+        refreshTokenRepository.findByTokenHash(hash(refreshToken)).ifPresent(token -> {
+            refreshTokenRepository.revogarFamilia(token.getFamilia(), LocalDateTime.now());
+            logger.info("✅ Sessão encerrada para o profissional {}", token.getProfissionalId());
+        });
+    }
+
+    // Tokens expirados não servem nem para detectar reuso: removidos diariamente
+    @Scheduled(cron = "0 30 3 * * *", zone = "America/Sao_Paulo")
+    @Transactional
+    public void excluirExpirados() {
+        int excluidos = refreshTokenRepository.excluirExpirados(LocalDateTime.now());
+        logger.info("🧹 Refresh tokens expirados removidos: {}", excluidos);
+    }
+
+    private String gravar(Profissional profissional, String familia, LocalDateTime agora) {
+        byte[] bytes = new byte[BYTES_TOKEN];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(new RefreshToken(profissional.getId(), hash(token), familia,
+                profissional.getTokenVersao(), agora, agora.plusDays(validadeDias)));
+        return token;
+    }
+
+    // O token tem 256 bits aleatórios: SHA-256 basta (sem sal nem BCrypt) e permite a busca pelo hash
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.maestria.agenda.profissional;
+
+/**
+ * Tokens entregues no login e no refresh: JWT de acesso, refresh token
+ * (opaco, de uso único) e validade do token de acesso em segundos
+ */
+public record Sessao(String token, String refreshToken, long expiraEm) {
+}
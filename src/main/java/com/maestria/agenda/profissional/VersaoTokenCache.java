@@ -0,0 +1,85 @@
+package com.maestria.agenda.profissional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Versão atual dos tokens de cada profissional, em memória.
+ *
+ * O filtro JWT compara a claim "ver" do token com a versão daqui sem ir ao banco: tokens
+ * emitidos antes de uma troca de login, senha ou role (versão incrementada) ou de profissionais
+ * excluídos (sem versão) são recusados. O ProfissionalCacheService atualiza as entradas nas
+ * escritas e a tabela é relida de tempos em tempos para alterações feitas por outra instância.
+ * Um id fora do mapa (criado em outra instância depois da última carga) é buscado no banco uma
+ * vez e guardado, inclusive quando não existe, até a próxima recarga.
+ */
+@Component
+public class VersaoTokenCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(VersaoTokenCache.class);
+
+    // Profissional inexistente no banco, guardado para não consultar de novo a cada requisição
+    private static final int AUSENTE = -1;
+
+    private final ProfissionalRepository profissionalRepository;
+    private volatile Map<Long, Integer> versoes;
+
+    public VersaoTokenCache(ProfissionalRepository profissionalRepository) {
+        this.profissionalRepository = profissionalRepository;
+    }
+
+    /**
+     * O token do profissional com essa versão ainda é válido?
+     */
+    public boolean valida(long profissionalId, int versao) {
+        Map<Long, Integer> atuais = carregadas();
+        Integer atual = atuais.get(profissionalId);
+        if (atual == null) {
+            atual = profissionalRepository.buscarVersaoToken(profissionalId).orElse(AUSENTE);
+            // Não sobrescreve uma versão gravada por atualizar() enquanto o banco era consultado
+            Integer existente = atuais.putIfAbsent(profissionalId, atual);
+            if (existente != null) {
+                atual = existente;
+            }
+            logger.debug("Versão de token do profissional {} buscada no banco: {}", profissionalId, atual);
+        }
+        return atual != AUSENTE && atual == versao;
+    }
+
+    public synchronized void atualizar(Profissional profissional) {
+        carregadas().put(profissional.getId(), profissional.getTokenVersao());
+    }
+
+    public synchronized void remover(long profissionalId) {
+        carregadas().remove(profissionalId);
+    }
+
+    @Scheduled(fixedDelay = 5, initialDelay = 5, timeUnit = TimeUnit.MINUTES)
+    public synchronized void recarregar() {
+        Map<Long, Integer> novas = new ConcurrentHashMap<>();
+        for (Object[] linha : profissionalRepository.listarVersoesToken()) {
+            novas.put((Long) linha[0], linha[1] != null ? ((Number) linha[1]).intValue() : 0);
+        }
+        versoes = novas;
+        logger.debug("Versões de token carregadas: {} profissionais", novas.size());
+    }
+
+    private Map<Long, Integer> carregadas() {
+        Map<Long, Integer> atuais = versoes;
+        if (atuais == null) {
+            synchronized (this) {
+                if (versoes == null) {
+                    recarregar();
+                }
+                atuais = versoes;
+            }
+        }
+        return atuais;
+    }
+}
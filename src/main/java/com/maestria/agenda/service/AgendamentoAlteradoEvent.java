@@ -0,0 +1,19 @@
+package com.maestria.agenda.service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Publicado quando agendamentos recebem baixa, são editados ou excluídos.
+ * O LancamentoComissaoService estorna e relança a comissão desses agendamentos no livro de comissões.
+ */
+public record AgendamentoAlteradoEvent(List<Long> agendamentoIds) {
+
+    public static AgendamentoAlteradoEvent de(Long agendamentoId) {
+        return new AgendamentoAlteradoEvent(List.of(agendamentoId));
+    }
+
+    public static AgendamentoAlteradoEvent de(Collection<Long> agendamentoIds) {
+        return new AgendamentoAlteradoEvent(List.copyOf(agendamentoIds));
+    }
+}
@@ -1,21 +1,32 @@
 package com.maestria.agenda.service;
 
-import com.maestria.agenda.agendamento.Agendamento;
 import com.maestria.agenda.agendamento.AgendamentoFixo;
 import com.maestria.agenda.agendamento.AgendamentoFixoRepository;
 import com.maestria.agenda.agendamento.AgendamentoRepository;
-import com.maestria.agenda.bloqueio.BloqueioAgenda;
-import com.maestria.agenda.bloqueio.BloqueioAgendaRepository;
-import com.maestria.agenda.profissional.Profissional;
+import com.maestria.agenda.agendamento.RegraRecorrencia;
+import com.maestria.agenda.bloqueio.BloqueioAgendaIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Types;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Serviço responsável por gerar automaticamente as ocorrências futuras
@@ -23,6 +34,10 @@ import java.util.List;
  * 
  * Executa semanalmente aos domingos à meia-noite para garantir que sempre
  * haja agendamentos gerados para os próximos 60 dias.
+ * 
+ * A geração é feita em lote: as ocorrências já existentes da janela e os bloqueios
+ * dos profissionais (BloqueioAgendaIndex) são carregados em uma query cada, as datas faltantes são
+ * calculadas em memória e os novos agendamentos são inseridos via JDBC batch.
  */
 @Service
 public class AgendamentoFixoSchedulerService {
@@ -32,17 +47,55 @@ public class AgendamentoFixoSchedulerService {
     // Gera ocorrências para os próximos 60 dias (2 meses)
     private static final int DIAS_FUTUROS = 60;
 
+    // Quantidade de linhas enviadas por batch no INSERT
+    private static final int TAMANHO_BATCH = 500;
+
+    private static final String SQL_INSERT_OCORRENCIA =
+        "INSERT INTO agendamento (cliente_id, profissional_id, servico_id, data, hora, " +
+        "agendamento_fixo_id, observacao, pago) VALUES (?, ?, ?, ?, ?, ?, ?, false)";
+
     private final AgendamentoFixoRepository agendamentoFixoRepository;
     private final AgendamentoRepository agendamentoRepository;
-    private final BloqueioAgendaRepository bloqueioRepository;
+    private final BloqueioAgendaIndex bloqueioIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final OcorrenciaFixaService ocorrenciaFixaService;
+    private final ApplicationEventPublisher eventos;
+
+    private final Counter ocorrenciasCriadas;
+    private final Counter ocorrenciasExistentes;
+    private final Counter ocorrenciasBloqueadas;
 
     public AgendamentoFixoSchedulerService(
             AgendamentoFixoRepository agendamentoFixoRepository,
             AgendamentoRepository agendamentoRepository,
-            BloqueioAgendaRepository bloqueioRepository) {
+            BloqueioAgendaIndex bloqueioIndex,
+            JdbcTemplate jdbcTemplate,
+            OcorrenciaFixaService ocorrenciaFixaService,
+            ApplicationEventPublisher eventos,
+            MeterRegistry meterRegistry) {
         this.agendamentoFixoRepository = agendamentoFixoRepository;
         this.agendamentoRepository = agendamentoRepository;
-        this.bloqueioRepository = bloqueioRepository;
+        this.bloqueioIndex = bloqueioIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.ocorrenciaFixaService = ocorrenciaFixaService;
+        this.eventos = eventos;
+        this.ocorrenciasCriadas = contadorOcorrencias(meterRegistry, "criada");
+        this.ocorrenciasExistentes = contadorOcorrencias(meterRegistry, "existente");
+        this.ocorrenciasBloqueadas = contadorOcorrencias(meterRegistry, "bloqueada");
+    }
+
+    private static Counter contadorOcorrencias(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("agenda.scheduler.ocorrencias")
+            .description("Ocorrências de agendamentos fixos processadas pelo scheduler")
+            .tag("resultado", resultado)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Resumo de uma execução da geração de ocorrências
+     */
+    public record ResultadoGeracao(int criadas, int existentes, int bloqueadas) {
+        public static final ResultadoGeracao VAZIO = new ResultadoGeracao(0, 0, 0);
     }
 
     /**
@@ -52,7 +105,12 @@ public class AgendamentoFixoSchedulerService {
      */
     @Scheduled(cron = "0 0 0 * * 0", zone = "America/Sao_Paulo")
     @Transactional
-    public void gerarOcorrenciasFuturas() {
+    public ResultadoGeracao gerarOcorrenciasFuturas() {
+        if (ocorrenciaFixaService.isVirtual()) {
+            logger.info("ℹ️ [SCHEDULER] Modo de recorrência VIRTUAL - ocorrências são calculadas na leitura, nada a gerar.");
+            return ResultadoGeracao.VAZIO;
+        }
+
         logger.info("🔄 [SCHEDULER] Iniciando geração de ocorrências futuras de agendamentos fixos...");
         
         try {
@@ -61,191 +119,167 @@ public class AgendamentoFixoSchedulerService {
             
             if (agendamentosFixos.isEmpty()) {
                 logger.info("ℹ️ [SCHEDULER] Nenhum agendamento fixo ativo encontrado.");
-                return;
+                return ResultadoGeracao.VAZIO;
             }
             
             logger.info("📋 [SCHEDULER] Encontrados {} agendamentos fixos ativos", agendamentosFixos.size());
             
             LocalDate hoje = LocalDate.now();
             LocalDate dataFimGeracao = hoje.plusDays(DIAS_FUTUROS);
-            
-            int totalOcorrenciasCriadas = 0;
+
+            // Pré-carrega a janela inteira: uma query para ocorrências e outra para o índice de bloqueios
+            Set<ChaveOcorrencia> existentes = carregarOcorrenciasExistentes(hoje, dataFimGeracao);
+            bloqueioIndex.aquecer(agendamentosFixos.stream()
+                .map(f -> f.getProfissional().getId())
+                .collect(Collectors.toSet()));
+            Map<Long, Set<LocalDate>> canceladas = ocorrenciaFixaService.canceladasNoPeriodo(hoje, dataFimGeracao);
+
+            List<Object[]> novasOcorrencias = new ArrayList<>();
             int totalOcorrenciasJaExistentes = 0;
+            int totalOcorrenciasBloqueadas = 0;
             
             for (AgendamentoFixo agendamentoFixo : agendamentosFixos) {
                 try {
-                    int ocorrenciasCriadas = gerarOcorrenciasParaAgendamentoFixo(
-                        agendamentoFixo, hoje, dataFimGeracao
+                    ResultadoGeracao resultado = calcularOcorrenciasParaAgendamentoFixo(
+                        agendamentoFixo, hoje, dataFimGeracao, existentes,
+                        canceladas.getOrDefault(agendamentoFixo.getId(), Collections.emptySet()),
+                        novasOcorrencias
                     );
-                    totalOcorrenciasCriadas += ocorrenciasCriadas;
+                    totalOcorrenciasJaExistentes += resultado.existentes();
+                    totalOcorrenciasBloqueadas += resultado.bloqueadas();
                 } catch (Exception e) {
                     logger.error("❌ [SCHEDULER] Erro ao gerar ocorrências para agendamento fixo ID {}: {}",
                         agendamentoFixo.getId(), e.getMessage(), e);
                 }
             }
+
+            inserirOcorrencias(novasOcorrencias);
+            if (!novasOcorrencias.isEmpty()) {
+                eventos.publishEvent(AlteracaoFinanceiraEvent.noPeriodo(hoje, dataFimGeracao, "scheduler-fixos"));
+            }
+
+            ResultadoGeracao resultado = new ResultadoGeracao(
+                novasOcorrencias.size(), totalOcorrenciasJaExistentes, totalOcorrenciasBloqueadas);
+            ocorrenciasCriadas.increment(resultado.criadas());
+            ocorrenciasExistentes.increment(resultado.existentes());
+            ocorrenciasBloqueadas.increment(resultado.bloqueadas());
             
-            logger.info("✅ [SCHEDULER] Geração concluída! {} novas ocorrências criadas, {} já existentes",
-                totalOcorrenciasCriadas, totalOcorrenciasJaExistentes);
+            logger.info("✅ [SCHEDULER] Geração concluída! {} novas ocorrências criadas, {} já existentes, {} bloqueadas",
+                resultado.criadas(), resultado.existentes(), resultado.bloqueadas());
+            return resultado;
                 
         } catch (Exception e) {
             logger.error("❌ [SCHEDULER] Erro crítico ao executar job de geração de agendamentos fixos", e);
+            return ResultadoGeracao.VAZIO;
         }
     }
 
     /**
-     * Gera ocorrências para um agendamento fixo específico no período informado
+     * Calcula, em memória, as ocorrências faltantes de um agendamento fixo no período informado.
+     * As novas linhas são adicionadas em {@code novasOcorrencias} para o insert em lote.
      */
-    private int gerarOcorrenciasParaAgendamentoFixo(
+    private ResultadoGeracao calcularOcorrenciasParaAgendamentoFixo(
             AgendamentoFixo agendamentoFixo, 
             LocalDate dataInicio, 
-            LocalDate dataFim) {
-        
-        int ocorrenciasCriadas = 0;
-        LocalDate dataAtual = dataInicio;
+            LocalDate dataFim,
+            Set<ChaveOcorrencia> existentes,
+            Set<LocalDate> canceladas,
+            List<Object[]> novasOcorrencias) {
         
-        // Se a data de início do agendamento fixo é futura, começar por ela
-        if (agendamentoFixo.getDataInicio() != null && agendamentoFixo.getDataInicio().isAfter(dataAtual)) {
-            dataAtual = agendamentoFixo.getDataInicio();
-        }
+        int criadas = 0;
+        int jaExistentes = 0;
+        int bloqueadas = 0;
+        Long profissionalId = agendamentoFixo.getProfissional().getId();
         
-        while (!dataAtual.isAfter(dataFim)) {
-            // Verifica se está dentro do período de validade do agendamento fixo
-            if (!dataAtual.isBefore(agendamentoFixo.getDataInicio()) &&
-                (agendamentoFixo.getDataFim() == null || !dataAtual.isAfter(agendamentoFixo.getDataFim()))) {
-                
-                // Verifica se deve gerar ocorrência para esta data segundo a regra de repetição
-                if (deveGerarOcorrencia(agendamentoFixo, dataAtual)) {
-                    // Verifica se já existe um agendamento para esta data/hora/profissional
-                    boolean jaExiste = agendamentoRepository.existsByProfissionalAndDataAndHoraAndAgendamentoFixoId(
-                        agendamentoFixo.getProfissional(),
-                        dataAtual,
-                        agendamentoFixo.getHora(),
-                        agendamentoFixo.getId()
-                    );
-                    
-                    if (!jaExiste) {
-                        // Verifica se o horário não está bloqueado
-                        if (!isHorarioBloqueado(agendamentoFixo.getProfissional(), dataAtual, agendamentoFixo.getHora())) {
-                            criarAgendamentoAPartirDeFixo(agendamentoFixo, dataAtual);
-                            ocorrenciasCriadas++;
-                        } else {
-                            logger.debug("⏭️ [SCHEDULER] Horário bloqueado para data {} - ocorrência não criada", dataAtual);
-                        }
-                    }
-                }
-            }
+        // Percorre apenas as datas que satisfazem a regra de repetição
+        List<LocalDate> datas = RegraRecorrencia.ocorrencias(agendamentoFixo, dataInicio, dataFim).toList();
+        for (LocalDate data : datas) {
+            ChaveOcorrencia chave = new ChaveOcorrencia(agendamentoFixo.getId(), data);
             
-            dataAtual = dataAtual.plusDays(1);
+            // Ocorrências canceladas contam como já tratadas
+            if (existentes.contains(chave) || canceladas.contains(data)) {
+                jaExistentes++;
+            } else if (bloqueioIndex.estaBloqueado(profissionalId, data, agendamentoFixo.getHora())) {
+                logger.debug("⏭️ [SCHEDULER] Horário bloqueado para data {} - ocorrência não criada", data);
+                bloqueadas++;
+            } else {
+                novasOcorrencias.add(linhaOcorrencia(agendamentoFixo, data));
+                existentes.add(chave);
+                criadas++;
+            }
         }
         
-        if (ocorrenciasCriadas > 0) {
-            logger.info("✨ [SCHEDULER] Criadas {} novas ocorrências para agendamento fixo ID {} ({})",
-                ocorrenciasCriadas, agendamentoFixo.getId(), agendamentoFixo.getCliente().getNome());
+        if (criadas > 0) {
+            logger.info("✨ [SCHEDULER] Calculadas {} novas ocorrências para agendamento fixo ID {} ({})",
+                criadas, agendamentoFixo.getId(), agendamentoFixo.getCliente().getNome());
         }
         
-        return ocorrenciasCriadas;
+        return new ResultadoGeracao(criadas, jaExistentes, bloqueadas);
     }
 
     /**
-     * Determina se deve gerar uma ocorrência para determinada data segundo a regra de repetição
+     * Carrega, em uma única query, as ocorrências de agendamentos fixos já existentes na janela
      */
-    private boolean deveGerarOcorrencia(AgendamentoFixo agendamentoFixo, LocalDate data) {
-        switch (agendamentoFixo.getTipoRepeticao()) {
-            case DIARIA:
-                // Verifica se a data bate com o intervalo de repetição
-                long diasDesdeInicioD = data.toEpochDay() - agendamentoFixo.getDataInicio().toEpochDay();
-                return diasDesdeInicioD >= 0 && 
-                       diasDesdeInicioD % agendamentoFixo.getIntervaloRepeticao() == 0;
-                
-            case SEMANAL:
-                // Verifica se o dia da semana está no bitmask
-                int diaDaSemana = data.getDayOfWeek().getValue() % 7 + 1; // 1=Dom, 7=Sáb
-                boolean diaCorreto = (agendamentoFixo.getValorRepeticao() & (1 << (diaDaSemana - 1))) != 0;
-                
-                // Se tem intervalo > 1, verifica se é a semana correta
-                if (diaCorreto && agendamentoFixo.getIntervaloRepeticao() > 1) {
-                    long diasDesdeInicio = data.toEpochDay() - agendamentoFixo.getDataInicio().toEpochDay();
-                    long semanasDesdeInicio = diasDesdeInicio / 7;
-                    return semanasDesdeInicio % agendamentoFixo.getIntervaloRepeticao() == 0;
-                }
-                return diaCorreto;
-                
-            case QUINZENAL:
-                // A cada 15 dias desde a data de início
-                long diasDesdeInicioQ = data.toEpochDay() - agendamentoFixo.getDataInicio().toEpochDay();
-                return diasDesdeInicioQ >= 0 && diasDesdeInicioQ % 15 == 0;
-                
-            case MENSAL:
-                // Verifica se é o dia do mês correto
-                int diaDoMes = data.getDayOfMonth();
-                boolean mesCorreto = true;
-                
-                // Se tem intervalo > 1, verifica se é o mês correto
-                if (agendamentoFixo.getIntervaloRepeticao() > 1) {
-                    long mesesDesdeInicio = (data.getYear() - agendamentoFixo.getDataInicio().getYear()) * 12 +
-                                           (data.getMonthValue() - agendamentoFixo.getDataInicio().getMonthValue());
-                    mesCorreto = mesesDesdeInicio % agendamentoFixo.getIntervaloRepeticao() == 0;
-                }
-                
-                if (!mesCorreto) return false;
-                
-                // Último dia do mês
-                if (agendamentoFixo.getValorRepeticao() == -1) {
-                    return diaDoMes == data.lengthOfMonth();
-                }
-                
-                // Dia específico do mês (pode não existir em alguns meses, ex: 31)
-                return agendamentoFixo.getDiaDoMes() == diaDoMes;
-                
-            default:
-                return false;
+    private Set<ChaveOcorrencia> carregarOcorrenciasExistentes(LocalDate inicio, LocalDate fim) {
+        Set<ChaveOcorrencia> existentes = new HashSet<>();
+        for (Object[] linha : agendamentoRepository.findOcorrenciasFixasNoPeriodo(inicio, fim)) {
+            existentes.add(new ChaveOcorrencia((Long) linha[0], (LocalDate) linha[1]));
         }
+        logger.debug("📋 [SCHEDULER] {} ocorrências já existentes na janela", existentes.size());
+        return existentes;
     }
 
     /**
-     * Verifica se o horário está bloqueado para o profissional na data informada
+     * Insere as novas ocorrências via JDBC batch
      */
-    private boolean isHorarioBloqueado(Profissional profissional, LocalDate data, LocalTime hora) {
-        List<BloqueioAgenda> bloqueios = bloqueioRepository.findByProfissionalAndData(profissional, data);
-        
-        for (BloqueioAgenda bloqueio : bloqueios) {
-            if (bloqueio.isDiaTodo()) {
-                return true;
-            }
-            
-            if (!hora.isBefore(bloqueio.getHoraInicio()) && !hora.isAfter(bloqueio.getHoraFim())) {
-                return true;
-            }
+    private void inserirOcorrencias(List<Object[]> novasOcorrencias) {
+        if (novasOcorrencias.isEmpty()) {
+            return;
         }
-        
-        return false;
+
+        jdbcTemplate.batchUpdate(SQL_INSERT_OCORRENCIA, novasOcorrencias, TAMANHO_BATCH, (ps, linha) -> {
+            ps.setLong(1, (Long) linha[0]);
+            ps.setLong(2, (Long) linha[1]);
+            if (linha[2] != null) {
+                ps.setLong(3, (Long) linha[2]);
+            } else {
+                ps.setNull(3, Types.BIGINT);
+            }
+            ps.setDate(4, Date.valueOf((LocalDate) linha[3]));
+            ps.setTime(5, Time.valueOf((LocalTime) linha[4]));
+            ps.setLong(6, (Long) linha[5]);
+            ps.setString(7, (String) linha[6]);
+        });
+
+        logger.info("💾 [SCHEDULER] {} ocorrências inseridas em lote", novasOcorrencias.size());
+    }
+
+    private Object[] linhaOcorrencia(AgendamentoFixo agendamentoFixo, LocalDate data) {
+        return new Object[] {
+            agendamentoFixo.getCliente().getId(),
+            agendamentoFixo.getProfissional().getId(),
+            agendamentoFixo.getServico() != null ? agendamentoFixo.getServico().getId() : null,
+            data,
+            agendamentoFixo.getHora(),
+            agendamentoFixo.getId(),
+            agendamentoFixo.getObservacao()
+        };
     }
 
     /**
-     * Cria um agendamento concreto a partir de um agendamento fixo
+     * Identifica uma ocorrência gerada a partir de um agendamento fixo: uma por dia, pela data
+     * original (dataOcorrencia), como na expansão virtual. Remarcar para outra hora ou outro
+     * dia não libera a data original para uma nova linha.
      */
-    private void criarAgendamentoAPartirDeFixo(AgendamentoFixo agendamentoFixo, LocalDate data) {
-        Agendamento agendamento = new Agendamento();
-        agendamento.setCliente(agendamentoFixo.getCliente());
-        agendamento.setProfissional(agendamentoFixo.getProfissional());
-        agendamento.setServico(agendamentoFixo.getServico());
-        agendamento.setData(data);
-        agendamento.setHora(agendamentoFixo.getHora());
-        agendamento.setObservacao(agendamentoFixo.getObservacao());
-        agendamento.setAgendamentoFixoId(agendamentoFixo.getId());
-        
-        agendamentoRepository.save(agendamento);
-        
-        logger.debug("📅 [SCHEDULER] Criado agendamento para {} em {} às {}",
-            agendamentoFixo.getCliente().getNome(), data, agendamentoFixo.getHora());
+    private record ChaveOcorrencia(Long agendamentoFixoId, LocalDate data) {
     }
 
     /**
      * Método público para forçar a geração manual (útil para testes e manutenção)
      */
     @Transactional
-    public void forcarGeracaoManual() {
+    public ResultadoGeracao forcarGeracaoManual() {
         logger.info("🔧 [MANUAL] Forçando geração manual de ocorrências futuras...");
-        gerarOcorrenciasFuturas();
+        return gerarOcorrenciasFuturas();
     }
 }
@@ -0,0 +1,31 @@
+package com.maestria.agenda.service;
+
+import java.time.LocalDate;
+
+/**
+ * Publicado pelas escritas que alteram números do dashboard (agendamentos, baixas,
+ * despesas e pagamentos de comissão) com o período afetado (inclusive).
+ * O MetricaDiariaService recalcula as métricas diárias desses dias e, em seguida,
+ * o MetricasCacheInvalidador remove apenas as entradas de métricas que cobrem esse período.
+ */
+public record AlteracaoFinanceiraEvent(LocalDate inicio, LocalDate fim, String origem) {
+
+    public static AlteracaoFinanceiraEvent naData(LocalDate data, String origem) {
+        return new AlteracaoFinanceiraEvent(data, data, origem);
+    }
+
+    public static AlteracaoFinanceiraEvent noPeriodo(LocalDate inicio, LocalDate fim, String origem) {
+        return new AlteracaoFinanceiraEvent(inicio, fim, origem);
+    }
+
+    /**
+     * Alteração que afeta todos os dias (ex.: valor ou nome de um serviço, usados no faturamento)
+     */
+    public static AlteracaoFinanceiraEvent todoHistorico(String origem) {
+        return new AlteracaoFinanceiraEvent(null, null, origem);
+    }
+
+    public boolean isTodoHistorico() {
+        return inicio == null;
+    }
+}
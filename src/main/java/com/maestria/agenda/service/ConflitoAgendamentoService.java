@@ -0,0 +1,156 @@
+package com.maestria.agenda.service;
+
+import com.maestria.agenda.agendamento.AgendamentoFixo;
+import com.maestria.agenda.agendamento.AgendamentoFixoRepository;
+import com.maestria.agenda.agendamento.AgendamentoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Detecta sobreposição de horários de um profissional considerando a duração total
+ * dos serviços de cada agendamento (e das ocorrências de agendamentos fixos ainda não gravadas).
+ *
+ * A verificação e a gravação devem acontecer dentro de {@link #comTrava}, que usa uma
+ * trava por (profissional, dia) distribuída em listras: requisições para o mesmo
+ * profissional e dia são serializadas, as demais seguem em paralelo.
+ */
+@Service
+public class ConflitoAgendamentoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConflitoAgendamentoService.class);
+
+    // Potência de 2 para usar máscara no lugar de módulo
+    private static final int LISTRAS = 64;
+
+    private final ReentrantLock[] travas = new ReentrantLock[LISTRAS];
+
+    private final AgendamentoRepository agendamentoRepository;
+    private final AgendamentoFixoRepository agendamentoFixoRepository;
+    private final OcorrenciaFixaService ocorrenciaFixaService;
+
+    public ConflitoAgendamentoService(
+            AgendamentoRepository agendamentoRepository,
+            AgendamentoFixoRepository agendamentoFixoRepository,
+            OcorrenciaFixaService ocorrenciaFixaService) {
+        this.agendamentoRepository = agendamentoRepository;
+        this.agendamentoFixoRepository = agendamentoFixoRepository;
+        this.ocorrenciaFixaService = ocorrenciaFixaService;
+        for (int i = 0; i < LISTRAS; i++) {
+            travas[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Agendamento (ou ocorrência de agendamento fixo) que ocupa parte do horário pedido
+     */
+    public record Conflito(Long agendamentoId, Long agendamentoFixoId, LocalTime inicio, LocalTime fim) {
+
+        public String descricao() {
+            String origem = agendamentoId != null
+                    ? "agendamento ID " + agendamentoId
+                    : "agendamento fixo ID " + agendamentoFixoId;
+            return "Conflito de horário com " + origem + " (" + inicio + " - " + fim + ").";
+        }
+    }
+
+    /**
+     * Executa a ação segurando a trava do profissional no dia informado.
+     * A ação deve verificar o conflito e gravar o agendamento antes de retornar.
+     */
+    public <T> T comTrava(Long profissionalId, LocalDate data, Supplier<T> acao) {
+        ReentrantLock trava = travas[Objects.hash(profissionalId, data) & (LISTRAS - 1)];
+        trava.lock();
+        try {
+            return acao.get();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Procura um agendamento do profissional que se sobreponha a [hora, hora + duracao) na data.
+     * {@code ignorarAgendamentoId} exclui o próprio agendamento em uma edição.
+     */
+    public Optional<Conflito> verificar(Long profissionalId, LocalDate data, LocalTime hora, Duration duracao,
+            Long ignorarAgendamentoId) {
+        int inicio = minutoDoDia(hora);
+        int fim = inicio + minutos(duracao);
+
+        // Agendamentos gravados: uma linha por serviço, soma as durações por agendamento
+        Map<Long, LocalTime> horarios = new LinkedHashMap<>();
+        Map<Long, Duration> duracoes = new HashMap<>();
+        Map<Long, Duration> duracoesLegado = new HashMap<>();
+        for (Object[] linha : agendamentoRepository.findDuracoesPorProfissionaisEPeriodo(
+                List.of(profissionalId), data, data)) {
+            Long id = (Long) linha[0];
+            if (id.equals(ignorarAgendamentoId) || linha[3] == null) {
+                continue;
+            }
+            horarios.putIfAbsent(id, (LocalTime) linha[3]);
+            if (linha[4] != null) {
+                duracoes.merge(id, Duration.parse((String) linha[4]), Duration::plus);
+            } else if (linha[5] != null) {
+                duracoesLegado.putIfAbsent(id, Duration.parse((String) linha[5]));
+            }
+        }
+
+        for (Map.Entry<Long, LocalTime> agendamento : horarios.entrySet()) {
+            Long id = agendamento.getKey();
+            Duration duracaoExistente = duracoes.getOrDefault(id, duracoesLegado.get(id));
+            int inicioExistente = minutoDoDia(agendamento.getValue());
+            int fimExistente = inicioExistente + minutos(duracaoExistente);
+            if (inicio < fimExistente && inicioExistente < fim) {
+                return Optional.of(conflito(id, null, inicioExistente, fimExistente));
+            }
+        }
+
+        // Ocorrências de agendamentos fixos ainda sem linha gravada (VIRTUAL ou além do horizonte do scheduler)
+        List<AgendamentoFixo> fixos = agendamentoFixoRepository.findByProfissionalIdAndAtivoTrue(profissionalId);
+        for (OcorrenciaFixaService.OcorrenciaVirtual ocorrencia : ocorrenciaFixaService.expandirPendentes(fixos, data, data)) {
+            AgendamentoFixo fixo = ocorrencia.agendamentoFixo();
+            if (fixo.getHora() == null) {
+                continue;
+            }
+            Duration duracaoFixo = fixo.getServico() != null && fixo.getServico().getDuracao() != null
+                    ? fixo.getServico().getDuracaoAsObject()
+                    : null;
+            int inicioFixo = minutoDoDia(fixo.getHora());
+            int fimFixo = inicioFixo + minutos(duracaoFixo);
+            if (inicio < fimFixo && inicioFixo < fim) {
+                return Optional.of(conflito(null, fixo.getId(), inicioFixo, fimFixo));
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private Conflito conflito(Long agendamentoId, Long agendamentoFixoId, int inicio, int fim) {
+        Conflito conflito = new Conflito(agendamentoId, agendamentoFixoId,
+                LocalTime.of(inicio / 60, inicio % 60),
+                LocalTime.of(Math.min(fim, 24 * 60 - 1) / 60, Math.min(fim, 24 * 60 - 1) % 60));
+        logger.debug("⚠️ {}", conflito.descricao());
+        return conflito;
+    }
+
+    // Agendamentos sem duração ocupam ao menos 1 minuto (mesmo horário de início conflita)
+    private static int minutos(Duration duracao) {
+        return duracao == null ? 1 : (int) Math.max(1, duracao.toMinutes());
+    }
+
+    private static int minutoDoDia(LocalTime hora) {
+        return hora.getHour() * 60 + hora.getMinute();
+    }
+}
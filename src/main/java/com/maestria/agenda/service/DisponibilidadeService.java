@@ -0,0 +1,259 @@
+package com.maestria.agenda.service;
+
+import com.maestria.agenda.agendamento.AgendamentoFixo;
+import com.maestria.agenda.agendamento.AgendamentoFixoRepository;
+import com.maestria.agenda.agendamento.AgendamentoRepository;
+import com.maestria.agenda.bloqueio.BloqueioAgenda;
+import com.maestria.agenda.bloqueio.BloqueioAgendaIndex;
+import com.maestria.agenda.profissional.Profissional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Calcula os horários livres dos profissionais.
+ *
+ * Cada profissional tem um BitSet com um bit por fatia de tempo (granularidade
+ * configurável) de cada dia do período. Agendamentos (duração somada dos serviços),
+ * ocorrências de agendamentos fixos e bloqueios marcam as fatias ocupadas; os
+ * horários candidatos são os inícios em que cabe a duração pedida.
+ */
+@Service
+public class DisponibilidadeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DisponibilidadeService.class);
+
+    public static final int MAX_DIAS = 31;
+    private static final int MINUTOS_DIA = 24 * 60;
+
+    private final AgendamentoRepository agendamentoRepository;
+    private final AgendamentoFixoRepository agendamentoFixoRepository;
+    private final OcorrenciaFixaService ocorrenciaFixaService;
+    private final BloqueioAgendaIndex bloqueioIndex;
+    private final int granularidade;
+    private final LocalTime horaAberturaPadrao;
+    private final LocalTime horaFechamentoPadrao;
+
+    public DisponibilidadeService(
+            AgendamentoRepository agendamentoRepository,
+            AgendamentoFixoRepository agendamentoFixoRepository,
+            OcorrenciaFixaService ocorrenciaFixaService,
+            BloqueioAgendaIndex bloqueioIndex,
+            @Value("${agenda.disponibilidade.granularidade-minutos:15}") int granularidade,
+            @Value("${agenda.disponibilidade.hora-abertura:08:00}") LocalTime horaAberturaPadrao,
+            @Value("${agenda.disponibilidade.hora-fechamento:20:00}") LocalTime horaFechamentoPadrao) {
+        if (granularidade <= 0 || MINUTOS_DIA % granularidade != 0) {
+            throw new IllegalArgumentException(
+                    "agenda.disponibilidade.granularidade-minutos deve dividir 1440, valor atual: " + granularidade);
+        }
+        this.agendamentoRepository = agendamentoRepository;
+        this.agendamentoFixoRepository = agendamentoFixoRepository;
+        this.ocorrenciaFixaService = ocorrenciaFixaService;
+        this.bloqueioIndex = bloqueioIndex;
+        this.granularidade = granularidade;
+        this.horaAberturaPadrao = horaAberturaPadrao;
+        this.horaFechamentoPadrao = horaFechamentoPadrao;
+    }
+
+    /**
+     * Horários de início livres de um profissional em um dia
+     */
+    public record HorariosDisponiveis(Long profissionalId, String profissionalNome, LocalDate data,
+            List<String> horarios) {
+    }
+
+    public int getGranularidade() {
+        return granularidade;
+    }
+
+    /**
+     * Busca os horários em que cabe um atendimento de {@code duracao} para cada profissional,
+     * entre {@code inicio} e {@code fim} (inclusive), dentro do expediente informado
+     * (ou do expediente padrão quando nulo). Dias sem horário livre não são retornados.
+     */
+    @Transactional(readOnly = true)
+    public List<HorariosDisponiveis> buscar(List<Profissional> profissionais, LocalDate inicio, LocalDate fim,
+            Duration duracao, LocalTime abertura, LocalTime fechamento) {
+        if (fim.isBefore(inicio)) {
+            throw new IllegalArgumentException("A data final não pode ser anterior à data inicial.");
+        }
+        int dias = (int) ChronoUnit.DAYS.between(inicio, fim) + 1;
+        if (dias > MAX_DIAS) {
+            throw new IllegalArgumentException("O período máximo de busca é de " + MAX_DIAS + " dias.");
+        }
+        if (profissionais.isEmpty()) {
+            return List.of();
+        }
+
+        long inicioMs = System.currentTimeMillis();
+        int slotsPorDia = MINUTOS_DIA / granularidade;
+        Map<Long, BitSet> grades = new HashMap<>();
+        profissionais.forEach(p -> grades.put(p.getId(), new BitSet(dias * slotsPorDia)));
+
+        marcarAgendamentos(grades, inicio, fim);
+        marcarOcorrenciasFixas(grades, inicio, fim);
+        marcarBloqueios(grades, inicio, fim);
+
+        int slotsNecessarios = (int) Math.max(1, divisaoTeto(duracao.toMinutes(), granularidade));
+        int primeiroSlot = (int) divisaoTeto(minutoDoDia(abertura != null ? abertura : horaAberturaPadrao), granularidade);
+        LocalTime horaFechamento = fechamento != null ? fechamento : horaFechamentoPadrao;
+        // Fechamento às 00:00 significa "até o fim do dia"
+        int limiteSlot = horaFechamento.equals(LocalTime.MIDNIGHT)
+                ? slotsPorDia
+                : minutoDoDia(horaFechamento) / granularidade;
+
+        LocalDateTime agora = LocalDateTime.now();
+        List<HorariosDisponiveis> resultado = new ArrayList<>();
+        for (Profissional profissional : profissionais) {
+            BitSet grade = grades.get(profissional.getId());
+            for (int d = 0; d < dias; d++) {
+                LocalDate data = inicio.plusDays(d);
+                if (data.isBefore(agora.toLocalDate())) {
+                    continue;
+                }
+                int desde = primeiroSlot;
+                if (data.equals(agora.toLocalDate())) {
+                    desde = Math.max(desde, (int) divisaoTeto(minutoDoDia(agora.toLocalTime()), granularidade));
+                }
+                List<String> horarios = horariosLivres(grade, d * slotsPorDia, desde, limiteSlot, slotsNecessarios);
+                if (!horarios.isEmpty()) {
+                    resultado.add(new HorariosDisponiveis(profissional.getId(), profissional.getNome(), data, horarios));
+                }
+            }
+        }
+
+        logger.info("✅ Disponibilidade calculada para {} profissionais em {} dias ({} ms)",
+                profissionais.size(), dias, System.currentTimeMillis() - inicioMs);
+        return resultado;
+    }
+
+    /**
+     * Percorre as sequências de fatias livres do dia e lista todos os inícios em que cabe a duração
+     */
+    private List<String> horariosLivres(BitSet grade, int base, int desde, int limite, int slotsNecessarios) {
+        List<String> horarios = new ArrayList<>();
+        int slot = desde;
+        while (slot + slotsNecessarios <= limite) {
+            int livre = grade.nextClearBit(base + slot) - base;
+            int ocupado = grade.nextSetBit(base + livre);
+            int fimLivre = ocupado < 0 ? limite : Math.min(ocupado - base, limite);
+            for (int s = livre; s + slotsNecessarios <= fimLivre; s++) {
+                horarios.add(LocalTime.ofSecondOfDay((long) s * granularidade * 60).toString());
+            }
+            slot = fimLivre + 1;
+        }
+        return horarios;
+    }
+
+    private void marcarAgendamentos(Map<Long, BitSet> grades, LocalDate inicio, LocalDate fim) {
+        // Uma linha por serviço do agendamento: soma as durações por agendamento
+        Map<Long, Object[]> agendamentos = new LinkedHashMap<>();
+        Map<Long, Duration> duracoes = new HashMap<>();
+        Map<String, Duration> cacheDuracoes = new HashMap<>();
+        for (Object[] linha : agendamentoRepository.findDuracoesPorProfissionaisEPeriodo(grades.keySet(), inicio, fim)) {
+            Long agendamentoId = (Long) linha[0];
+            agendamentos.putIfAbsent(agendamentoId, linha);
+            Duration duracaoServico = duracao((String) linha[4], cacheDuracoes);
+            if (duracaoServico != null) {
+                duracoes.merge(agendamentoId, duracaoServico, Duration::plus);
+            }
+        }
+
+        agendamentos.forEach((id, linha) -> {
+            Duration duracao = duracoes.get(id);
+            if (duracao == null) {
+                // Agendamento antigo, apenas com o serviço legado
+                duracao = duracao((String) linha[5], cacheDuracoes);
+            }
+            ocupar(grades.get((Long) linha[1]), inicio, (LocalDate) linha[2], (LocalTime) linha[3], duracao);
+        });
+    }
+
+    private void marcarOcorrenciasFixas(Map<Long, BitSet> grades, LocalDate inicio, LocalDate fim) {
+        // Ocorrências sem linha gravada (modo VIRTUAL ou além do horizonte do scheduler)
+        List<AgendamentoFixo> fixos = agendamentoFixoRepository.findByProfissionalIdInAndAtivoTrue(grades.keySet());
+        for (OcorrenciaFixaService.OcorrenciaVirtual ocorrencia : ocorrenciaFixaService.expandirPendentes(fixos, inicio, fim)) {
+            AgendamentoFixo fixo = ocorrencia.agendamentoFixo();
+            if (fixo.getHora() == null) {
+                continue;
+            }
+            Duration duracao = fixo.getServico() != null && fixo.getServico().getDuracao() != null
+                    ? fixo.getServico().getDuracaoAsObject()
+                    : null;
+            ocupar(grades.get(fixo.getProfissional().getId()), inicio, ocorrencia.data(), fixo.getHora(), duracao);
+        }
+    }
+
+    private void marcarBloqueios(Map<Long, BitSet> grades, LocalDate inicio, LocalDate fim) {
+        Set<Long> profissionalIds = grades.keySet();
+        bloqueioIndex.aquecer(profissionalIds);
+        int slotsPorDia = MINUTOS_DIA / granularidade;
+        for (Long profissionalId : profissionalIds) {
+            BitSet grade = grades.get(profissionalId);
+            for (BloqueioAgenda bloqueio : bloqueioIndex.bloqueiosNoPeriodo(profissionalId, inicio, fim)) {
+                LocalDate fimBloqueio = bloqueio.getDataFim() != null ? bloqueio.getDataFim() : bloqueio.getDataInicio();
+                LocalDate de = bloqueio.getDataInicio().isBefore(inicio) ? inicio : bloqueio.getDataInicio();
+                LocalDate ate = fimBloqueio.isAfter(fim) ? fim : fimBloqueio;
+                for (LocalDate data = de; !data.isAfter(ate); data = data.plusDays(1)) {
+                    int base = (int) ChronoUnit.DAYS.between(inicio, data) * slotsPorDia;
+                    if (bloqueio.isDiaTodo() || bloqueio.getHoraInicio() == null || bloqueio.getHoraFim() == null) {
+                        grade.set(base, base + slotsPorDia);
+                    } else {
+                        // O horário final do bloqueio também é bloqueado (mesma regra de isHorarioBloqueado)
+                        int slotInicio = minutoDoDia(bloqueio.getHoraInicio()) / granularidade;
+                        int slotFim = Math.min(slotsPorDia, minutoDoDia(bloqueio.getHoraFim()) / granularidade + 1);
+                        grade.set(base + slotInicio, base + slotFim);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Marca como ocupadas as fatias de [hora, hora + duracao) no dia informado
+     */
+    private void ocupar(BitSet grade, LocalDate inicio, LocalDate data, LocalTime hora, Duration duracao) {
+        if (grade == null || hora == null) {
+            return;
+        }
+        int slotsPorDia = MINUTOS_DIA / granularidade;
+        int base = (int) ChronoUnit.DAYS.between(inicio, data) * slotsPorDia;
+        int minutoInicio = minutoDoDia(hora);
+        long minutos = duracao != null && !duracao.isZero() ? duracao.toMinutes() : granularidade;
+        int de = minutoInicio / granularidade;
+        int ate = (int) Math.min(slotsPorDia, divisaoTeto(minutoInicio + minutos, granularidade));
+        if (ate > de) {
+            grade.set(base + de, base + ate);
+        }
+    }
+
+    private static Duration duracao(String iso, Map<String, Duration> cache) {
+        if (iso == null || iso.isBlank()) {
+            return null;
+        }
+        return cache.computeIfAbsent(iso, Duration::parse);
+    }
+
+    private static int minutoDoDia(LocalTime hora) {
+        return hora.getHour() * 60 + hora.getMinute();
+    }
+
+    private static long divisaoTeto(long valor, long divisor) {
+        return (valor + divisor - 1) / divisor;
+    }
+}
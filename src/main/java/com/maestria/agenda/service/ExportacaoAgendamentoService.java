@@ -0,0 +1,138 @@
+package com.maestria.agenda.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maestria.agenda.agendamento.AgendamentoRepository;
+import com.maestria.agenda.agendamento.AgendamentoResumo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Exportação de agendamentos de um período escrita direto na resposta.
+ *
+ * As linhas vêm de um Stream da consulta resumida (cursor do banco com fetch size,
+ * transação somente leitura) e cada agendamento é escrito assim que é montado,
+ * então a memória usada não depende do tamanho do período.
+ */
+@Service
+public class ExportacaoAgendamentoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportacaoAgendamentoService.class);
+
+    private static final String CABECALHO_CSV = "id;data;hora;cliente;telefone;profissional;servicos;"
+            + "duracao_minutos;valor;pago;forma_pagamento;data_pagamento;agendamento_fixo_id";
+
+    private final AgendamentoRepository agendamentoRepository;
+    private final ObjectMapper objectMapper;
+
+    public ExportacaoAgendamentoService(AgendamentoRepository agendamentoRepository, ObjectMapper objectMapper) {
+        this.agendamentoRepository = agendamentoRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Escreve um array JSON com um AgendamentoResumo por elemento.
+     * {@code profissionalId} nulo exporta todos os profissionais.
+     */
+    @Transactional(readOnly = true)
+    public long exportarJson(Long profissionalId, LocalDate inicio, LocalDate fim, OutputStream saida)
+            throws IOException {
+        AtomicLong total = new AtomicLong();
+        // A resposta é fechada pelo container, não pelo gerador
+        JsonGenerator gerador = objectMapper.getFactory().createGenerator(saida)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (Stream<Object[]> linhas = linhas(profissionalId, inicio, fim)) {
+            gerador.writeStartArray();
+            AgendamentoResumo.agruparEmSequencia(linhas, resumo -> {
+                try {
+                    gerador.writeObject(resumo);
+                    total.incrementAndGet();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            gerador.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        gerador.flush();
+        logger.info("✅ Exportados {} agendamentos em JSON ({} a {})", total.get(), inicio, fim);
+        return total.get();
+    }
+
+    /**
+     * Escreve um CSV (separador ";", UTF-8) com uma linha por agendamento
+     */
+    @Transactional(readOnly = true)
+    public long exportarCsv(Long profissionalId, LocalDate inicio, LocalDate fim, OutputStream saida)
+            throws IOException {
+        AtomicLong total = new AtomicLong();
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        try (Stream<Object[]> linhas = linhas(profissionalId, inicio, fim)) {
+            escritor.write(CABECALHO_CSV);
+            escritor.write('\n');
+            AgendamentoResumo.agruparEmSequencia(linhas, resumo -> {
+                try {
+                    escreverCsv(escritor, resumo);
+                    total.incrementAndGet();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        escritor.flush();
+        logger.info("✅ Exportados {} agendamentos em CSV ({} a {})", total.get(), inicio, fim);
+        return total.get();
+    }
+
+    private Stream<Object[]> linhas(Long profissionalId, LocalDate inicio, LocalDate fim) {
+        return profissionalId == null
+                ? agendamentoRepository.streamResumosPorPeriodo(inicio, fim)
+                : agendamentoRepository.streamResumosPorProfissionalEPeriodo(profissionalId, inicio, fim);
+    }
+
+    private static void escreverCsv(Writer escritor, AgendamentoResumo resumo) throws IOException {
+        escritor.write(String.join(";",
+                String.valueOf(resumo.id()),
+                campo(resumo.data()),
+                campo(resumo.hora()),
+                campo(resumo.clienteNome()),
+                campo(resumo.clienteTelefone()),
+                campo(resumo.profissionalNome()),
+                campo(String.join(", ", resumo.servicos())),
+                String.valueOf(resumo.duracaoMinutos()),
+                String.valueOf(resumo.valor()),
+                String.valueOf(resumo.pago()),
+                campo(resumo.formaPagamento()),
+                campo(resumo.dataPagamento()),
+                campo(resumo.agendamentoFixoId())));
+        escritor.write('\n');
+    }
+
+    // Aspas apenas quando o texto contém separador, aspas ou quebra de linha
+    private static String campo(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        String texto = valor.toString();
+        if (texto.indexOf(';') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+            return texto;
+        }
+        return '"' + texto.replace("\"", "\"\"") + '"';
+    }
+}
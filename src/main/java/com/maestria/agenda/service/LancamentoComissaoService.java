@@ -0,0 +1,206 @@
+package com.maestria.agenda.service;
+
+import com.maestria.agenda.financeiro.ComissaoLancamentoRepository;
+import com.maestria.agenda.financeiro.ItensComissao;
+import com.maestria.agenda.financeiro.PagamentoTipo;
+import com.maestria.agenda.financeiro.TabelaTaxas;
+import com.maestria.agenda.financeiro.TaxaPagamentoService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mantém o livro de comissões (comissao_lancamento).
+ *
+ * Quando um agendamento recebe baixa, é editado ou excluído, as linhas que ele ainda tem no
+ * livro são estornadas (inseridas de novo com valores negativos) e, se continua pago, a
+ * comissão atual é lançada: uma linha por serviço, com o percentual da categoria em
+ * comissao_profissional e a taxa da forma de pagamento. Nada é atualizado nem apagado, e o
+ * ComissaoService soma o livro por profissional/período em vez de recalcular os agendamentos.
+ *
+ * O lançamento roda depois do commit do agendamento; se falhar, a reconciliação periódica
+ * encontra os agendamentos recentes cujo saldo no livro não bate com o que está gravado e os
+ * sincroniza. A reconciliação do histórico completo é feita sob demanda (reconciliarTudo).
+ */
+@Service
+public class LancamentoComissaoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LancamentoComissaoService.class);
+
+    private static final String COLUNAS =
+        "agendamento_id, profissional_id, data, servico_id, fixo, forma_pagamento, percentual, taxa, " +
+        "valor_servico, valor_comissao, valor_desconto_taxa, tipo, criado_em";
+
+    // Itens pela regra de ItensComissao, com o percentual da categoria e a taxa da forma de pagamento.
+    // O primeiro %s recebe o filtro de agendamento e o segundo a tabela de taxas por forma de pagamento.
+    private static final String SQL_LANCAR =
+        "INSERT INTO comissao_lancamento (" + COLUNAS + ") " +
+        "SELECT i.agendamento_id, i.profissional_id, i.data, i.servico_id, i.fixo, i.forma_pagamento, i.percentual, " +
+        "       COALESCE(t.taxa, 0), i.valor, i.valor * i.percentual / 100, i.valor * COALESCE(t.taxa, 0) / 100, " +
+        "       'LANCAMENTO', NOW() " +
+        "FROM (" +
+        "  SELECT a.id AS agendamento_id, " + ItensComissao.PROFISSIONAL + " AS profissional_id, a.data AS data, " +
+        "         s.id AS servico_id, a.agendamento_fixo_id IS NOT NULL AS fixo, a.forma_pagamento AS forma_pagamento, " +
+        "         COALESCE(cp.percentual, 0) AS percentual, s.valor AS valor " +
+        "  " + ItensComissao.ORIGEM + "%s" +
+        ") i " +
+        "LEFT JOIN (VALUES %s) t(forma, taxa) ON t.forma = i.forma_pagamento";
+
+    // Saldo ainda aberto de um agendamento, linha a linha, lançado de volta com sinal trocado
+    private static final String SQL_ESTORNAR =
+        "INSERT INTO comissao_lancamento (" + COLUNAS + ") " +
+        "SELECT agendamento_id, profissional_id, data, servico_id, fixo, forma_pagamento, percentual, taxa, " +
+        "       -SUM(valor_servico), -SUM(valor_comissao), -SUM(valor_desconto_taxa), 'ESTORNO', NOW() " +
+        "FROM comissao_lancamento WHERE agendamento_id = ? " +
+        "GROUP BY agendamento_id, profissional_id, data, servico_id, fixo, forma_pagamento, percentual, taxa " +
+        "HAVING ABS(SUM(valor_servico)) > 0.000001 OR ABS(SUM(valor_comissao)) > 0.000001";
+
+    // Agendamentos cujo livro diverge do que está gravado: para cada (agendamento, profissional, data,
+    // serviço, forma de pagamento) o valor esperado menos o saldo lançado. Percentual e taxa ficam de
+    // fora, pois são congelados no lançamento. Os %s recebem o filtro de data dos agendamentos e do
+    // livro (vazios na reconciliação completa).
+    private static final String SQL_DIVERGENTES =
+        "SELECT DISTINCT agendamento_id FROM (" +
+        "  SELECT a.id AS agendamento_id, " + ItensComissao.PROFISSIONAL + " AS profissional_id, a.data AS data, " +
+        "         s.id AS servico_id, a.forma_pagamento AS forma_pagamento, s.valor AS valor " +
+        "  " + ItensComissao.ORIGEM + "%s" +
+        "  UNION ALL " +
+        "  SELECT agendamento_id, profissional_id, data, servico_id, forma_pagamento, -valor_servico " +
+        "  FROM comissao_lancamento%s" +
+        ") d " +
+        "GROUP BY agendamento_id, profissional_id, data, servico_id, forma_pagamento " +
+        "HAVING ABS(SUM(valor)) > 0.000001";
+
+    private final ComissaoLancamentoRepository comissaoLancamentoRepository;
+    private final TaxaPagamentoService taxaPagamentoService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transacao;
+    private final int diasReconciliacao;
+
+    public LancamentoComissaoService(ComissaoLancamentoRepository comissaoLancamentoRepository,
+            TaxaPagamentoService taxaPagamentoService,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${agenda.comissao.reconciliacao.dias:30}") int diasReconciliacao) {
+        this.comissaoLancamentoRepository = comissaoLancamentoRepository;
+        this.taxaPagamentoService = taxaPagamentoService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.transacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.diasReconciliacao = diasReconciliacao;
+    }
+
+    /**
+     * Estorna o saldo de cada agendamento e lança a comissão atual dos que continuam pagos
+     * (excluídos ou sem baixa ficam só com o estorno). Sincronizado para que dois ajustes do
+     * mesmo agendamento não estornem o mesmo saldo duas vezes.
+     */
+    public synchronized void sincronizar(Collection<Long> agendamentoIds) {
+        String lancar = String.format(SQL_LANCAR, "AND a.id = ?", tabelaTaxas());
+        transacao.executeWithoutResult(status -> {
+            for (Long agendamentoId : agendamentoIds) {
+                int estornos = jdbcTemplate.update(SQL_ESTORNAR, agendamentoId);
+                int lancamentos = jdbcTemplate.update(lancar, agendamentoId);
+                logger.debug("✅ Livro de comissões do agendamento {}: {} estorno(s), {} lançamento(s)",
+                        agendamentoId, estornos, lancamentos);
+            }
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void aoAlterar(AgendamentoAlteradoEvent evento) {
+        try {
+            sincronizar(evento.agendamentoIds());
+        } catch (RuntimeException e) {
+            // O agendamento já foi gravado; a comissão dele fica desatualizada até a próxima reconciliação
+            logger.error("❌ Erro ao lançar comissões dos agendamentos {}: {}", evento.agendamentoIds(), e.getMessage());
+        }
+    }
+
+    /**
+     * Sincroniza os agendamentos cujo saldo no livro não corresponde ao agendamento gravado
+     * (lançamento que falhou depois do commit, série desativada, agendamento excluído), olhando
+     * só agendamentos e lançamentos a partir de agenda.comissao.reconciliacao.dias atrás.
+     * Retorna quantos agendamentos foram corrigidos.
+     */
+    @Scheduled(fixedDelay = 15, initialDelay = 15, timeUnit = TimeUnit.MINUTES)
+    public int reconciliar() {
+        LocalDate desde = LocalDate.now().minusDays(diasReconciliacao);
+        try {
+            return reconciliarDesde(desde);
+        } catch (RuntimeException e) {
+            logger.error("❌ Erro ao reconciliar o livro de comissões desde {}: {}", desde, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Reconciliação sobre todo o histórico de agendamentos e lançamentos, sob demanda do ADMIN
+     */
+    public int reconciliarTudo() {
+        return reconciliarDesde(null);
+    }
+
+    private int reconciliarDesde(LocalDate desde) {
+        List<Long> divergentes = desde == null
+                ? jdbcTemplate.queryForList(String.format(SQL_DIVERGENTES, "", ""), Long.class)
+                : jdbcTemplate.queryForList(String.format(SQL_DIVERGENTES, "AND a.data >= ?", " WHERE data >= ?"),
+                        Long.class, desde, desde);
+        if (divergentes.isEmpty()) {
+            return 0;
+        }
+        logger.warn("🔄 Reconciliando o livro de comissões de {} agendamento(s) ({}): {}", divergentes.size(),
+                desde == null ? "histórico completo" : "desde " + desde, divergentes);
+        sincronizar(divergentes);
+        return divergentes.size();
+    }
+
+    /**
+     * Na primeira subida com o livro vazio, lança todos os agendamentos pagos de uma vez
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void preencherLivro() {
+        try {
+            if (comissaoLancamentoRepository.count() > 0) {
+                return;
+            }
+            logger.info("🔄 Lançando as comissões de todos os agendamentos pagos...");
+            Integer linhas = transacao.execute(status ->
+                    jdbcTemplate.update(String.format(SQL_LANCAR, "", tabelaTaxas())));
+            logger.info("✅ Livro de comissões preenchido: {} lançamentos", linhas);
+        } catch (RuntimeException e) {
+            logger.error("❌ Erro ao preencher o livro de comissões: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Taxa vigente de cada forma de pagamento como lista VALUES para o INSERT ... SELECT
+     * (nomes do enum e números, sem entrada do usuário)
+     */
+    private String tabelaTaxas() {
+        TabelaTaxas taxas = taxaPagamentoService.tabelaAtual();
+        StringJoiner valores = new StringJoiner(", ");
+        for (PagamentoTipo tipo : PagamentoTipo.values()) {
+            valores.add(String.format(Locale.ROOT, "('%s', CAST(%s AS DOUBLE PRECISION))",
+                    tipo.name(), taxas.taxa(tipo)));
+        }
+        return valores.toString();
+    }
+}
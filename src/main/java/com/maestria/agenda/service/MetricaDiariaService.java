@@ -0,0 +1,154 @@
+package com.maestria.agenda.service;
+
+import com.maestria.agenda.financeiro.MetricaDiariaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Mantém as tabelas metricas_diarias, metricas_diarias_hora e metricas_diarias_servico.
+ *
+ * Cada alteração de agendamento ou despesa publica um AlteracaoFinanceiraEvent e os dias
+ * afetados são recalculados com um DELETE + INSERT ... SELECT ... GROUP BY data, dentro de
+ * uma transação própria. Assim o MetricsService soma no máximo uma linha por dia do período
+ * em vez de agregar agendamento e expenses a cada consulta.
+ */
+@Service
+public class MetricaDiariaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricaDiariaService.class);
+
+    // Faturamento de um agendamento = soma dos itens de agendamento_servico (ou o serviço legado, sem itens);
+    // contagens seguem as consultas originais do dashboard (apenas pagos)
+    private static final String SQL_INSERT_DIARIAS =
+        "INSERT INTO metricas_diarias (data, faturamento, servicos_pagos, agendamentos, " +
+        "clientes_distintos, despesas_pagas, atualizado_em) " +
+        "SELECT dias.data, COALESCE(ag.faturamento, 0), COALESCE(ag.pagos, 0), COALESCE(ag.total, 0), " +
+        "COALESCE(ag.clientes, 0), COALESCE(dp.total, 0), NOW() " +
+        "FROM (SELECT data FROM agendamento WHERE data BETWEEN ? AND ? " +
+        "      UNION SELECT date FROM expenses WHERE paid = true AND date BETWEEN ? AND ?) dias " +
+        "LEFT JOIN (SELECT a.data, SUM(COALESCE(itens.valor, s.valor)) FILTER (WHERE a.pago) AS faturamento, " +
+        "                  COUNT(*) FILTER (WHERE a.pago) AS pagos, COUNT(*) AS total, " +
+        "                  COUNT(DISTINCT a.cliente_id) FILTER (WHERE a.pago) AS clientes " +
+        "           FROM agendamento a LEFT JOIN servico s ON s.id = a.servico_id " +
+        "           LEFT JOIN (SELECT x.agendamento_id, SUM(sv.valor) AS valor " +
+        "                      FROM agendamento_servico x JOIN servico sv ON sv.id = x.servico_id " +
+        "                      JOIN agendamento ax ON ax.id = x.agendamento_id " +
+        "                      WHERE ax.data BETWEEN ? AND ? GROUP BY x.agendamento_id) itens " +
+        "                  ON itens.agendamento_id = a.id " +
+        "           WHERE a.data BETWEEN ? AND ? GROUP BY a.data) ag ON ag.data = dias.data " +
+        "LEFT JOIN (SELECT date AS data, SUM(amount) AS total FROM expenses " +
+        "           WHERE paid = true AND date BETWEEN ? AND ? GROUP BY date) dp ON dp.data = dias.data";
+
+    private static final String SQL_INSERT_HORAS =
+        "INSERT INTO metricas_diarias_hora (data, hora, total) " +
+        "SELECT data, CAST(EXTRACT(HOUR FROM hora) AS INTEGER), COUNT(*) FROM agendamento " +
+        "WHERE data BETWEEN ? AND ? AND hora IS NOT NULL " +
+        "GROUP BY data, CAST(EXTRACT(HOUR FROM hora) AS INTEGER)";
+
+    // Um por item de agendamento_servico (ou o serviço legado, sem itens), como no faturamento
+    private static final String SQL_INSERT_SERVICOS =
+        "INSERT INTO metricas_diarias_servico (data, servico_nome, total) " +
+        "SELECT a.data, s.nome, COUNT(*) FROM agendamento a " +
+        "LEFT JOIN agendamento_servico x ON x.agendamento_id = a.id " +
+        "JOIN servico s ON s.id = COALESCE(x.servico_id, a.servico_id) " +
+        "WHERE a.pago = true AND a.data BETWEEN ? AND ? GROUP BY a.data, s.nome";
+
+    private final MetricaDiariaRepository metricaDiariaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transacao;
+
+    public MetricaDiariaService(MetricaDiariaRepository metricaDiariaRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager) {
+        this.metricaDiariaRepository = metricaDiariaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.transacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Recalcula os dias do período (inclusive) a partir de agendamento e expenses.
+     * Sincronizado para que dois recálculos do mesmo dia não se intercalem entre o DELETE e o INSERT.
+     */
+    public synchronized void recalcular(LocalDate inicio, LocalDate fim) {
+        Date de = Date.valueOf(inicio);
+        Date ate = Date.valueOf(fim);
+        transacao.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM metricas_diarias_hora WHERE data BETWEEN ? AND ?", de, ate);
+            jdbcTemplate.update("DELETE FROM metricas_diarias_servico WHERE data BETWEEN ? AND ?", de, ate);
+            jdbcTemplate.update("DELETE FROM metricas_diarias WHERE data BETWEEN ? AND ?", de, ate);
+            jdbcTemplate.update(SQL_INSERT_DIARIAS, de, ate, de, ate, de, ate, de, ate, de, ate);
+            jdbcTemplate.update(SQL_INSERT_HORAS, de, ate);
+            jdbcTemplate.update(SQL_INSERT_SERVICOS, de, ate);
+        });
+        logger.debug("✅ Métricas diárias recalculadas de {} a {}", inicio, fim);
+    }
+
+    /**
+     * Roda antes do MetricasCacheInvalidador, para que o recálculo do cache já leia os dias atualizados
+     */
+    @Order(0)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void aoAlterar(AlteracaoFinanceiraEvent evento) {
+        LocalDate fim = evento.fim() != null ? evento.fim() : evento.inicio();
+        try {
+            if (evento.isTodoHistorico()) {
+                recalcularHistorico();
+            } else {
+                recalcular(evento.inicio(), fim);
+            }
+        } catch (RuntimeException e) {
+            // A alteração já foi gravada; o dia fica desatualizado até o próximo recálculo
+            logger.error("❌ Erro ao recalcular métricas diárias de {} a {} (origem: {}): {}",
+                    evento.inicio(), fim, evento.origem(), e.getMessage());
+        }
+    }
+
+    /**
+     * Na primeira subida com as tabelas vazias, preenche todo o histórico de uma vez
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preencherHistorico() {
+        try {
+            if (metricaDiariaRepository.count() > 0) {
+                return;
+            }
+            recalcularHistorico();
+            logger.info("✅ Métricas diárias preenchidas: {} dias", metricaDiariaRepository.count());
+        } catch (RuntimeException e) {
+            logger.error("❌ Erro ao preencher métricas diárias: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recalcula do primeiro ao último dia com agendamentos ou despesas
+     * (carga inicial e alterações que afetam todo o histórico, como o valor de um serviço)
+     */
+    public void recalcularHistorico() {
+        Map<String, Object> limites = jdbcTemplate.queryForMap(
+            "SELECT LEAST((SELECT MIN(data) FROM agendamento), (SELECT MIN(date) FROM expenses)) AS inicio, " +
+            "GREATEST((SELECT MAX(data) FROM agendamento), (SELECT MAX(date) FROM expenses)) AS fim");
+        if (limites.get("inicio") == null) {
+            logger.info("ℹ️ Sem agendamentos ou despesas - métricas diárias vazias.");
+            return;
+        }
+        LocalDate inicio = ((Date) limites.get("inicio")).toLocalDate();
+        LocalDate fim = ((Date) limites.get("fim")).toLocalDate();
+        logger.info("🔄 Recalculando métricas diárias de {} a {}...", inicio, fim);
+        recalcular(inicio, fim);
+    }
+}
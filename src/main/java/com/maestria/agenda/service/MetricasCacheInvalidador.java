@@ -0,0 +1,64 @@
+package com.maestria.agenda.service;
+
+import com.maestria.agenda.config.CacheConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+
+/**
+ * Invalida as entradas dos caches de métricas cujo período cobre a alteração.
+ * Roda após o commit (ou na hora, se não houver transação), para que o recálculo
+ * já enxergue os dados gravados.
+ */
+@Component
+public class MetricasCacheInvalidador {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricasCacheInvalidador.class);
+
+    private final CacheManager cacheManager;
+
+    public MetricasCacheInvalidador(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    // Depois do MetricaDiariaService, que atualiza as métricas diárias do mesmo período
+    @Order(1)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void aoAlterar(AlteracaoFinanceiraEvent evento) {
+        if (evento.isTodoHistorico()) {
+            for (String nome : CacheConfig.CACHES_METRICAS) {
+                Cache cache = cacheManager.getCache(nome);
+                if (cache != null) {
+                    cache.clear();
+                }
+            }
+            logger.debug("🧹 Caches de métricas limpos (origem: {})", evento.origem());
+            return;
+        }
+        LocalDate inicio = evento.inicio();
+        LocalDate fim = evento.fim() != null ? evento.fim() : inicio;
+
+        int removidas = 0;
+        for (String nome : CacheConfig.CACHES_METRICAS) {
+            Cache cache = cacheManager.getCache(nome);
+            if (cache instanceof CaffeineCache caffeine) {
+                var chaves = caffeine.getNativeCache().asMap().keySet();
+                int antes = chaves.size();
+                chaves.removeIf(chave -> chave instanceof PeriodoMetricas periodo && periodo.sobrepoe(inicio, fim));
+                removidas += antes - chaves.size();
+            }
+        }
+        if (removidas > 0) {
+            logger.debug("🧹 {} entradas de métricas invalidadas ({} a {}, origem: {})",
+                    removidas, inicio, fim, evento.origem());
+        }
+    }
+}
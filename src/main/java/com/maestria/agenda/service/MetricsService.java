@@ -1,17 +1,13 @@
 package com.maestria.agenda.service;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.time.YearMonth;
 import java.time.format.TextStyle;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
 
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
@@ -20,8 +16,8 @@ import com.maestria.agenda.agendamento.Agendamento;
 import com.maestria.agenda.agendamento.AgendamentoRepository;
 import com.maestria.agenda.financeiro.ClientData;
 import com.maestria.agenda.financeiro.ComissaoPagamentoRepository;
-import com.maestria.agenda.financeiro.ExpenseRepository;
 import com.maestria.agenda.financeiro.HorarioData;
+import com.maestria.agenda.financeiro.MetricaDiariaRepository;
 import com.maestria.agenda.financeiro.MetricasGeraisDTO;
 import com.maestria.agenda.financeiro.RevenueData;
 import com.maestria.agenda.financeiro.ServiceData;
@@ -30,22 +26,36 @@ import com.maestria.agenda.financeiro.ServiceData;
 public class MetricsService {
 
     private final AgendamentoRepository agendamentoRepository;
-    private final ExpenseRepository expenseRepository;
     private final ComissaoPagamentoRepository comissaoPagamentoRepository;
+    private final MetricaDiariaRepository metricaDiariaRepository;
 
-    public MetricsService(AgendamentoRepository agendamentoRepository, ExpenseRepository expenseRepository, ComissaoPagamentoRepository comissaoPagamentoRepository) {
+    public MetricsService(AgendamentoRepository agendamentoRepository,
+            ComissaoPagamentoRepository comissaoPagamentoRepository, MetricaDiariaRepository metricaDiariaRepository) {
         this.agendamentoRepository = agendamentoRepository;
-        this.expenseRepository = expenseRepository;
         this.comissaoPagamentoRepository = comissaoPagamentoRepository;
+        this.metricaDiariaRepository = metricaDiariaRepository;
     }
 
-    @Cacheable(value = "metricas", key = "#dataInicio + '-' + #dataFim")
-    public MetricasGeraisDTO obterMetricasGerais(LocalDate dataInicio, LocalDate dataFim) {
-        Double totalRevenue = agendamentoRepository.calcularFaturamentoTotalPorPeriodo(dataInicio, dataFim);
-        totalRevenue = (totalRevenue != null) ? totalRevenue : 0.0;
+    /**
+     * Recalcula a entrada de um cache de métricas (usado pelo refresh em segundo plano do Caffeine)
+     */
+    public Object recalcular(String cache, PeriodoMetricas periodo) {
+        return switch (cache) {
+            case "metricas" -> obterMetricasGerais(periodo.inicio(), periodo.fim());
+            case "faturamento" -> obterFaturamentoMensal(periodo.inicio(), periodo.fim());
+            case "servicosData" -> obterDadosDeServicos(periodo.inicio(), periodo.fim());
+            case "horarios" -> obterHorariosMaisProcurados(periodo.inicio(), periodo.fim());
+            case "clientesData" -> obterDadosDeClientes(periodo.inicio(), periodo.fim());
+            default -> throw new IllegalArgumentException("Cache de métricas desconhecido: " + cache);
+        };
+    }
 
-        Integer servicesCount = agendamentoRepository.contarServicosRealizadosPorPeriodo(dataInicio, dataFim);
-        servicesCount = (servicesCount != null) ? servicesCount : 0;
+    @Cacheable(value = "metricas", keyGenerator = "periodoMetricasKeyGenerator")
+    public MetricasGeraisDTO obterMetricasGerais(LocalDate dataInicio, LocalDate dataFim) {
+        // Faturamento, atendimentos e despesas somados das métricas diárias (uma linha por dia)
+        Object[] totais = metricaDiariaRepository.somarPeriodo(dataInicio, dataFim).get(0);
+        Double totalRevenue = ((Number) totais[0]).doubleValue();
+        Integer servicesCount = ((Number) totais[1]).intValue();
 
         Double avgTicket = servicesCount > 0 ? totalRevenue / servicesCount : 0.0;
 
@@ -58,8 +68,7 @@ public class MetricsService {
         Double returnRate = calcularTaxaRetorno(dataInicio, dataFim);
 
         // Novos cálculos
-        Double totalExpenses = expenseRepository.calcularTotalDespesasPagas(dataInicio, dataFim);
-        totalExpenses = (totalExpenses != null) ? totalExpenses : 0.0;
+        Double totalExpenses = ((Number) totais[3]).doubleValue();
 
         Double totalCommissions = comissaoPagamentoRepository.calcularValorTotalPagoTodosProfissionaisNoPeriodo(dataInicio, dataFim);
         totalCommissions = (totalCommissions != null) ? totalCommissions : 0.0;
@@ -73,25 +82,30 @@ public class MetricsService {
     }
     
     // Método para obter faturamento mensal
-    @Cacheable(value = "faturamento", key = "#dataInicio + '-' + #dataFim")
+    @Cacheable(value = "faturamento", keyGenerator = "periodoMetricasKeyGenerator")
     public List<RevenueData> obterFaturamentoMensal(LocalDate dataInicio, LocalDate dataFim) {
         List<RevenueData> revenueDataList = new ArrayList<>();
         
-        // Consulta que agrupa o faturamento por mês
-        List<Object[]> queryResult = agendamentoRepository.groupRevenueByMonth(dataInicio, dataFim);
-        Map<Integer, Double> revenueMap = new HashMap<>();
+        // Faturamento das métricas diárias agrupado por ano/mês (todos os serviços de cada agendamento)
+        List<Object[]> queryResult = metricaDiariaRepository.somarFaturamentoPorMes(dataInicio, dataFim);
+        Map<YearMonth, Double> revenueMap = new HashMap<>();
         for (Object[] row : queryResult) {
-            Integer monthNumber = ((Number) row[0]).intValue();
-            Double revenue = (Double) row[1];
-            revenueMap.put(monthNumber, revenue);
+            YearMonth mes = YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+            revenueMap.put(mes, ((Number) row[2]).doubleValue());
         }
         
+        // Períodos que atravessam anos levam o ano no rótulo (ex.: "jan. 2025"), para não repetir meses
+        boolean variosAnos = dataInicio.getYear() != dataFim.getYear();
+        
         // Itera sobre cada mês do período para preencher os dados, mesmo que haja meses sem faturamento
-        LocalDate current = dataInicio.withDayOfMonth(1);
-        while (!current.isAfter(dataFim)) {
-            int monthNumber = current.getMonthValue();
+        YearMonth current = YearMonth.from(dataInicio);
+        YearMonth ultimo = YearMonth.from(dataFim);
+        while (!current.isAfter(ultimo)) {
             String monthName = current.getMonth().getDisplayName(TextStyle.SHORT, new Locale("pt", "BR"));
-            Double revenue = revenueMap.getOrDefault(monthNumber, 0.0);
+            if (variosAnos) {
+                monthName += " " + current.getYear();
+            }
+            Double revenue = revenueMap.getOrDefault(current, 0.0);
             revenueDataList.add(new RevenueData(monthName, revenue));
             current = current.plusMonths(1);
         }
@@ -99,59 +113,37 @@ public class MetricsService {
     }
     
     // Método para obter dados de serviços realizados - agrupando por serviço a partir dos agendamentos
-    @Cacheable(value = "servicos", key = "#dataInicio + '-' + #dataFim")
+    @Cacheable(value = "servicosData", keyGenerator = "periodoMetricasKeyGenerator")
     public List<ServiceData> obterDadosDeServicos(LocalDate dataInicio, LocalDate dataFim) {
         List<ServiceData> list = new ArrayList<>();
-        List<Object[]> resultados = agendamentoRepository.findServicosMaisAgendados(dataInicio, dataFim);
+        List<Object[]> resultados = metricaDiariaRepository.somarPorServico(dataInicio, dataFim);
         for (Object[] row : resultados) {
             String servicoNome = (String) row[0];
-            Long count = (Long) row[1];
+            Long count = ((Number) row[1]).longValue();
             list.add(new ServiceData(servicoNome, count.intValue()));
         }
         return list;
     }
     
     // Método para calcular a porcentagem de clientes que retornam dentro de 30 dias
+    // (intervalo entre agendamentos consecutivos calculado no banco com LAG)
     public double calcularTaxaRetorno(LocalDate dataInicio, LocalDate dataFim) {
-        List<Object[]> agendamentos = agendamentoRepository.findClientIdsAndDatesBetween(dataInicio, dataFim);
-        Map<Long, List<LocalDate>> agendamentosPorCliente = new HashMap<>();
-        
-        for (Object[] row : agendamentos) {
-            Long clienteId = (Long) row[0];
-            LocalDate data = (LocalDate) row[1];
-            agendamentosPorCliente.computeIfAbsent(clienteId, k -> new ArrayList<>()).add(data);
-        }
-
-        int totalClientes = agendamentosPorCliente.size();
-        int clientesRetornaram = 0;
-        for (List<LocalDate> datas : agendamentosPorCliente.values()) {
-            if (datas.size() < 2) continue;
-            Collections.sort(datas);
-            boolean retornou = false;
-            for (int i = 1; i < datas.size(); i++) {
-                long diffDays = ChronoUnit.DAYS.between(datas.get(i - 1), datas.get(i));
-                if (diffDays <= 30) {
-                    retornou = true;
-                    break;
-                }
-            }
-            if (retornou) {
-                clientesRetornaram++;
-            }
-        }
+        Object[] row = agendamentoRepository.contarClientesERetornos(dataInicio, dataFim).get(0);
+        long totalClientes = ((Number) row[0]).longValue();
+        long clientesRetornaram = ((Number) row[1]).longValue();
         return totalClientes > 0 ? (clientesRetornaram / (double) totalClientes) * 100.0 : 0.0;
     }
     
     // Método para obter os horários mais procurados a partir dos agendamentos
-    @Cacheable(value = "horarios", key = "#dataInicio + '-' + #dataFim")
+    @Cacheable(value = "horarios", keyGenerator = "periodoMetricasKeyGenerator")
     public List<HorarioData> obterHorariosMaisProcurados(LocalDate dataInicio, LocalDate dataFim) {
         List<HorarioData> horarios = new ArrayList<>();
-        List<Object[]> queryResult = agendamentoRepository.findHorariosMaisProcurados(dataInicio, dataFim);
+        List<Object[]> queryResult = metricaDiariaRepository.somarPorHora(dataInicio, dataFim);
         // Total de agendamentos no período (para cálculo de porcentagem)
-        long totalAgendamentos = agendamentoRepository.countByDataBetween(dataInicio, dataFim);
+        long totalAgendamentos = ((Number) metricaDiariaRepository.somarPeriodo(dataInicio, dataFim).get(0)[2]).longValue();
         for (Object[] row : queryResult) {
             Integer hour = ((Number) row[0]).intValue();
-            Long count = (Long) row[1];
+            Long count = ((Number) row[1]).longValue();
             int percentage = totalAgendamentos > 0 ? (int) ((count * 100) / totalAgendamentos) : 0;
             horarios.add(new HorarioData(hour, count.intValue(), percentage));
         }
@@ -160,45 +152,22 @@ public class MetricsService {
     
     // MÉTODO PARA OBTER "CLIENTES NOVOS VS. RECORRENTES"
     // Para cada mês, definimos clientes novos como aqueles cuja primeira data de agendamento é naquele mês; os demais são recorrentes.
-    @Cacheable(value = "clientesData", key = "#dataInicio + '-' + #dataFim")
+    @Cacheable(value = "clientesData", keyGenerator = "periodoMetricasKeyGenerator")
     public List<ClientData> obterDadosDeClientes(LocalDate dataInicio, LocalDate dataFim) {
-        // Recupera dados primitivos de agendamento (muito mais rápido)
-        List<Object[]> agendamentos = agendamentoRepository.findClientIdsAndDatesBetween(dataInicio, dataFim);
-        // Mapear a primeira data de agendamento para cada cliente
-        Map<Long, LocalDate> primeiraData = new HashMap<>();
-        for (Object[] row : agendamentos) {
-            Long clientId = (Long) row[0];
-            LocalDate data = (LocalDate) row[1];
-            if (!primeiraData.containsKey(clientId) || data.isBefore(primeiraData.get(clientId))) {
-                primeiraData.put(clientId, data);
-            }
-        }
-        
-        // Agrupar os clientes por mês (usaremos o padrão "yyyy-MM" para distinguir ano e mês)
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM");
-        Map<String, Set<Long>> clientesPorMes = new HashMap<>();
-        for (Object[] row : agendamentos) {
-            Long clientId = (Long) row[0];
-            LocalDate data = (LocalDate) row[1];
-            String mesKey = data.format(formatter);
-            clientesPorMes.computeIfAbsent(mesKey, k -> new HashSet<>()).add(clientId);
+        // Clientes distintos e novos por mês, calculados no banco em uma passada
+        Map<YearMonth, int[]> clientesPorMes = new HashMap<>();
+        for (Object[] row : agendamentoRepository.contarClientesNovosERecorrentesPorMes(dataInicio, dataFim)) {
+            YearMonth mes = YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+            clientesPorMes.put(mes, new int[] { ((Number) row[2]).intValue(), ((Number) row[3]).intValue() });
         }
         
         // Itera sobre cada mês do período para calcular os clientes novos vs. recorrentes
         List<ClientData> lista = new ArrayList<>();
         LocalDate current = dataInicio.withDayOfMonth(1);
         while(!current.isAfter(dataFim)) {
-            String mesKey = current.format(formatter);
-            Set<Long> clientes = clientesPorMes.getOrDefault(mesKey, Collections.emptySet());
-            int novos = 0;
-            for (Long clientId : clientes) {
-                LocalDate primeira = primeiraData.get(clientId);
-                // Se a primeira data de agendamento ocorrer no mesmo mês/ano, o cliente é novo
-                if (primeira != null && primeira.format(formatter).equals(mesKey)) {
-                    novos++;
-                }
-            }
-            int totalClientes = clientes.size();
+            int[] clientes = clientesPorMes.getOrDefault(YearMonth.from(current), new int[2]);
+            int totalClientes = clientes[0];
+            int novos = clientes[1];
             int recorrentes = totalClientes - novos;
             // Rótulo do mês (ex.: "Jan 2024")
             String rotuloMes = current.getMonth().getDisplayName(TextStyle.SHORT, new Locale("pt", "BR")) + " " + current.getYear();
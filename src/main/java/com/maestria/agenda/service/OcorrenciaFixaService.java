@@ -0,0 +1,221 @@
+package com.maestria.agenda.service;
+
+import com.maestria.agenda.agendamento.Agendamento;
+import com.maestria.agenda.agendamento.AgendamentoFixo;
+import com.maestria.agenda.agendamento.AgendamentoFixoExcecao;
+import com.maestria.agenda.agendamento.AgendamentoFixoExcecaoRepository;
+import com.maestria.agenda.agendamento.AgendamentoFixoRepository;
+import com.maestria.agenda.agendamento.AgendamentoRepository;
+import com.maestria.agenda.agendamento.ModoRecorrencia;
+import com.maestria.agenda.agendamento.RegraRecorrencia;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Serviço que resolve as ocorrências dos agendamentos fixos.
+ *
+ * No modo VIRTUAL (agenda.recorrencia.modo=VIRTUAL) as ocorrências são calculadas
+ * na leitura e combinadas com as exceções gravadas: linhas em "agendamento" que
+ * representam ocorrências pagas/remarcadas e registros de cancelamento em
+ * "agendamento_fixo_excecao". Só essas exceções são persistidas.
+ *
+ * No modo MATERIALIZADO (padrão) o scheduler continua gravando uma linha por ocorrência;
+ * os cancelamentos são registrados da mesma forma para que não sejam gerados de novo.
+ */
+@Service
+public class OcorrenciaFixaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OcorrenciaFixaService.class);
+
+    private final AgendamentoFixoRepository agendamentoFixoRepository;
+    private final AgendamentoRepository agendamentoRepository;
+    private final AgendamentoFixoExcecaoRepository excecaoRepository;
+    private final ApplicationEventPublisher eventos;
+    private final ModoRecorrencia modo;
+
+    public OcorrenciaFixaService(
+            AgendamentoFixoRepository agendamentoFixoRepository,
+            AgendamentoRepository agendamentoRepository,
+            AgendamentoFixoExcecaoRepository excecaoRepository,
+            ApplicationEventPublisher eventos,
+            @Value("${agenda.recorrencia.modo:MATERIALIZADO}") ModoRecorrencia modo) {
+        this.agendamentoFixoRepository = agendamentoFixoRepository;
+        this.agendamentoRepository = agendamentoRepository;
+        this.excecaoRepository = excecaoRepository;
+        this.eventos = eventos;
+        this.modo = modo;
+        logger.info("🔁 Modo de recorrência dos agendamentos fixos: {}", modo);
+    }
+
+    /**
+     * Ocorrência calculada de um agendamento fixo que não tem linha gravada
+     */
+    public record OcorrenciaVirtual(AgendamentoFixo agendamentoFixo, LocalDate data) {
+    }
+
+    public ModoRecorrencia getModo() {
+        return modo;
+    }
+
+    public boolean isVirtual() {
+        return modo == ModoRecorrencia.VIRTUAL;
+    }
+
+    /**
+     * Expande os agendamentos fixos no período, removendo as ocorrências que já têm
+     * linha gravada (pagas, remarcadas ou materializadas) e as canceladas.
+     * Resultado ordenado por data e hora.
+     */
+    @Transactional(readOnly = true)
+    public List<OcorrenciaVirtual> expandir(List<AgendamentoFixo> fixos, LocalDate inicio, LocalDate fim) {
+        if (fixos.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Set<LocalDate>> tratadas = new HashMap<>();
+        for (Object[] linha : agendamentoRepository.findOcorrenciasFixasNoPeriodo(inicio, fim)) {
+            tratadas.computeIfAbsent((Long) linha[0], id -> new HashSet<>()).add((LocalDate) linha[1]);
+        }
+        canceladasNoPeriodo(inicio, fim)
+            .forEach((fixoId, datas) -> tratadas.computeIfAbsent(fixoId, id -> new HashSet<>()).addAll(datas));
+
+        List<OcorrenciaVirtual> ocorrencias = new ArrayList<>();
+        for (AgendamentoFixo fixo : fixos) {
+            Set<LocalDate> excecoes = tratadas.getOrDefault(fixo.getId(), Set.of());
+            RegraRecorrencia.ocorrencias(fixo, inicio, fim)
+                .filter(data -> !excecoes.contains(data))
+                .forEach(data -> ocorrencias.add(new OcorrenciaVirtual(fixo, data)));
+        }
+
+        ocorrencias.sort(Comparator.comparing(OcorrenciaVirtual::data)
+            .thenComparing(o -> o.agendamentoFixo().getHora(), Comparator.nullsLast(Comparator.naturalOrder())));
+        return ocorrencias;
+    }
+
+    /**
+     * Ocorrências sem linha gravada que ainda vão acontecer, para ocupar horário em
+     * disponibilidade e conflitos.
+     *
+     * No modo VIRTUAL são as mesmas de {@link #expandir}. No MATERIALIZADO o scheduler grava
+     * todas as ocorrências até o seu horizonte (pulando as bloqueadas), então uma data sem linha
+     * antes da última ocorrência gravada do agendamento fixo foi excluída, remarcada ou bloqueada
+     * (inclusive as antigas, anteriores a dataOcorrencia e às exceções) e não ocupa horário;
+     * só as datas depois desse horizonte são consideradas.
+     */
+    @Transactional(readOnly = true)
+    public List<OcorrenciaVirtual> expandirPendentes(List<AgendamentoFixo> fixos, LocalDate inicio, LocalDate fim) {
+        List<OcorrenciaVirtual> ocorrencias = expandir(fixos, inicio, fim);
+        if (isVirtual() || ocorrencias.isEmpty()) {
+            return ocorrencias;
+        }
+
+        Map<Long, LocalDate> horizontes = new HashMap<>();
+        for (Object[] linha : agendamentoRepository.findUltimaOcorrenciaGravada(
+                fixos.stream().map(AgendamentoFixo::getId).toList())) {
+            horizontes.put((Long) linha[0], (LocalDate) linha[1]);
+        }
+        return ocorrencias.stream()
+            .filter(o -> {
+                LocalDate horizonte = horizontes.get(o.agendamentoFixo().getId());
+                return horizonte == null || o.data().isAfter(horizonte);
+            })
+            .toList();
+    }
+
+    /**
+     * Ocorrências canceladas no período, agrupadas por agendamento fixo
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Set<LocalDate>> canceladasNoPeriodo(LocalDate inicio, LocalDate fim) {
+        Map<Long, Set<LocalDate>> canceladas = new HashMap<>();
+        for (AgendamentoFixoExcecao excecao : excecaoRepository.findByDataOcorrenciaBetween(inicio, fim)) {
+            canceladas.computeIfAbsent(excecao.getAgendamentoFixoId(), id -> new HashSet<>())
+                .add(excecao.getDataOcorrencia());
+        }
+        return canceladas;
+    }
+
+    /**
+     * Grava a linha de uma ocorrência (para dar baixa, remarcar ou editar).
+     * Se a ocorrência já estiver gravada, retorna a linha existente.
+     */
+    @Transactional
+    public Agendamento materializar(Long agendamentoFixoId, LocalDate data) {
+        AgendamentoFixo fixo = agendamentoFixoRepository.findById(agendamentoFixoId)
+                .orElseThrow(() -> new RuntimeException("Agendamento fixo não encontrado"));
+
+        List<Agendamento> existentes = agendamentoRepository.findOcorrenciaMaterializada(agendamentoFixoId, data);
+        if (!existentes.isEmpty()) {
+            return existentes.get(0);
+        }
+
+        if (!RegraRecorrencia.ocorreEm(fixo, data)) {
+            throw new RuntimeException("A data " + data + " não é uma ocorrência do agendamento fixo");
+        }
+        if (excecaoRepository.existsByAgendamentoFixoIdAndDataOcorrencia(agendamentoFixoId, data)) {
+            throw new RuntimeException("A ocorrência de " + data + " foi cancelada");
+        }
+
+        Agendamento agendamento = new Agendamento();
+        agendamento.setCliente(fixo.getCliente());
+        agendamento.setProfissional(fixo.getProfissional());
+        agendamento.setServico(fixo.getServico());
+        agendamento.setData(data);
+        agendamento.setDataOcorrencia(data);
+        agendamento.setHora(fixo.getHora());
+        agendamento.setObservacao(fixo.getObservacao());
+        agendamento.setAgendamentoFixoId(fixo.getId());
+        agendamentoRepository.save(agendamento);
+        eventos.publishEvent(AlteracaoFinanceiraEvent.naData(data, "agendamento-fixo"));
+
+        logger.info("📌 Ocorrência de {} do agendamento fixo ID {} materializada (agendamento ID {})",
+                data, agendamentoFixoId, agendamento.getId());
+        return agendamento;
+    }
+
+    /**
+     * Registra o cancelamento de uma ocorrência e remove a linha gravada, se houver
+     */
+    @Transactional
+    public void cancelarOcorrencia(Long agendamentoFixoId, LocalDate data) {
+        registrarCancelamento(agendamentoFixoId, data);
+        List<Agendamento> existentes = agendamentoRepository.findOcorrenciaMaterializada(agendamentoFixoId, data);
+        if (!existentes.isEmpty()) {
+            agendamentoRepository.deleteAll(existentes);
+            eventos.publishEvent(AgendamentoAlteradoEvent.de(existentes.stream().map(Agendamento::getId).toList()));
+            existentes.forEach(a -> eventos.publishEvent(AlteracaoFinanceiraEvent.naData(a.getData(), "agendamento-fixo")));
+        }
+    }
+
+    /**
+     * Registra o cancelamento de uma ocorrência (idempotente)
+     */
+    @Transactional
+    public void registrarCancelamento(Long agendamentoFixoId, LocalDate data) {
+        if (!excecaoRepository.existsByAgendamentoFixoIdAndDataOcorrencia(agendamentoFixoId, data)) {
+            excecaoRepository.save(new AgendamentoFixoExcecao(agendamentoFixoId, data));
+            logger.info("🚫 Ocorrência de {} do agendamento fixo ID {} cancelada", data, agendamentoFixoId);
+        }
+    }
+
+    /**
+     * Remove os cancelamentos de um agendamento fixo (usado ao excluir a série)
+     */
+    @Transactional
+    public void removerExcecoes(Long agendamentoFixoId) {
+        excecaoRepository.deleteByAgendamentoFixoId(agendamentoFixoId);
+    }
+}
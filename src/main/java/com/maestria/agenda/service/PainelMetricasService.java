@@ -0,0 +1,154 @@
+package com.maestria.agenda.service;
+
+import com.maestria.agenda.financeiro.MetricasGeraisDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Monta a resposta do dashboard (/metricas) executando as consultas do MetricsService em paralelo.
+ *
+ * As consultas rodam em um pool próprio limitado (por padrão metade do pool do Hikari, para não
+ * ocupar todas as conexões das demais requisições). Cada uma tem seu próprio tempo limite: a que
+ * falhar ou estourar o tempo volta como null e é listada em "falhas", sem derrubar as outras.
+ *
+ * O tempo limite vale também no banco: cada consulta roda em uma transação somente leitura com
+ * timeout, que o Spring repassa como query timeout (jakarta.persistence.query.timeout) a cada
+ * statement, e a tarefa é cancelada ao estourar. Com o pool e a fila cheios a consulta é recusada
+ * (entra em "falhas"); se todas forem recusadas, montarPainel lança RejectedExecutionException.
+ */
+@Service
+public class PainelMetricasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PainelMetricasService.class);
+
+    private final MetricsService metricsService;
+    private final ThreadPoolExecutor executor;
+    private final TransactionTemplate transacao;
+    private final long timeoutMs;
+
+    public PainelMetricasService(MetricsService metricsService,
+            PlatformTransactionManager transactionManager,
+            @Value("${agenda.metricas.threads:0}") int threads,
+            @Value("${agenda.metricas.fila:0}") int fila,
+            @Value("${agenda.metricas.timeout-ms:5000}") long timeoutMs,
+            @Value("${spring.datasource.hikari.maximumPoolSize:10}") int poolBanco) {
+        this.metricsService = metricsService;
+        this.timeoutMs = timeoutMs;
+        int tamanho = threads > 0 ? threads : Math.max(2, poolBanco / 2);
+        AtomicInteger contador = new AtomicInteger();
+        // Fila cheia: recusa a consulta em vez de executá-la na thread do Tomcat
+        this.executor = new ThreadPoolExecutor(tamanho, tamanho, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(fila > 0 ? fila : tamanho * 10),
+                tarefa -> {
+                    Thread thread = new Thread(tarefa, "metricas-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        // Timeout da transação em segundos (arredondado para cima), aplicado a cada statement
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.transacao.setReadOnly(true);
+        this.transacao.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMs + 999)));
+        logger.info("📊 Consultas do dashboard em paralelo: {} threads, limite de {} ms por consulta", tamanho, timeoutMs);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    public Map<String, Object> montarPainel(LocalDate dataInicio, LocalDate dataFim) {
+        Map<String, Supplier<Object>> consultas = new LinkedHashMap<>();
+        consultas.put("metricas", () -> metricsService.obterMetricasGerais(dataInicio, dataFim));
+        consultas.put("faturamentoMensal", () -> metricsService.obterFaturamentoMensal(dataInicio, dataFim));
+        consultas.put("servicosAgendados", () -> metricsService.obterDadosDeServicos(dataInicio, dataFim));
+        consultas.put("clientesNovosRecorrentes", () -> metricsService.obterDadosDeClientes(dataInicio, dataFim));
+        consultas.put("horariosMaisProcurados", () -> metricsService.obterHorariosMaisProcurados(dataInicio, dataFim));
+
+        List<String> falhas = new ArrayList<>();
+        Map<String, Future<Object>> tarefas = new LinkedHashMap<>();
+        for (Map.Entry<String, Supplier<Object>> consulta : consultas.entrySet()) {
+            try {
+                tarefas.put(consulta.getKey(), disparar(consulta.getValue()));
+            } catch (RejectedExecutionException e) {
+                logger.warn("⛔ Pool do dashboard cheio, consulta '{}' recusada", consulta.getKey());
+                falhas.add(consulta.getKey());
+            }
+        }
+        if (tarefas.isEmpty()) {
+            throw new RejectedExecutionException("Pool de consultas do dashboard cheio");
+        }
+
+        // Todas começaram juntas: o prazo é o mesmo para cada uma
+        long prazo = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        Map<String, Object> resultados = new HashMap<>();
+        for (Map.Entry<String, Future<Object>> tarefa : tarefas.entrySet()) {
+            try {
+                resultados.put(tarefa.getKey(),
+                        tarefa.getValue().get(Math.max(0, prazo - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                // Interrompe a thread ou tira da fila; no banco o statement já tem o próprio timeout
+                tarefa.getValue().cancel(true);
+                logger.warn("⏱️ Consulta '{}' do dashboard excedeu {} ms ({} a {})",
+                        tarefa.getKey(), timeoutMs, dataInicio, dataFim);
+                falhas.add(tarefa.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                tarefa.getValue().cancel(true);
+                falhas.add(tarefa.getKey());
+            } catch (ExecutionException e) {
+                Throwable causa = e.getCause() != null ? e.getCause() : e;
+                logger.error("❌ Erro na consulta '{}' do dashboard: {}", tarefa.getKey(), causa.getMessage(), causa);
+                falhas.add(tarefa.getKey());
+            }
+        }
+        if (falhas.size() == consultas.size()) {
+            throw new RuntimeException("Nenhuma consulta do dashboard foi concluída");
+        }
+
+        MetricasGeraisDTO metricas = (MetricasGeraisDTO) resultados.get("metricas");
+        Map<String, Object> response = new HashMap<>();
+        response.put("totalRevenue", metricas != null ? metricas.totalRevenue() : null);
+        response.put("servicesCount", metricas != null ? metricas.servicesCount() : null);
+        response.put("avgTicket", metricas != null ? metricas.avgTicket() : null);
+        response.put("newClients", metricas != null ? metricas.newClients() : null);
+        response.put("clientsCount", metricas != null ? metricas.clientsCount() : null);
+        response.put("returnRate", metricas != null ? metricas.returnRate() : null);
+        response.put("faturamentoMensal", resultados.get("faturamentoMensal")); // Mudança de nome para corresponder ao frontend
+        response.put("servicosAgendados", resultados.get("servicosAgendados")); // Mudança de nome para corresponder ao frontend
+        response.put("clientesNovosRecorrentes", resultados.get("clientesNovosRecorrentes")); // Mudança de nome para corresponder ao frontend
+        response.put("horariosMaisProcurados", resultados.get("horariosMaisProcurados")); // Adicionado
+        response.put("totalExpenses", metricas != null ? metricas.totalExpenses() : null);
+        response.put("totalCommissions", metricas != null ? metricas.totalCommissions() : null);
+        response.put("profit", metricas != null ? metricas.profit() : null);
+        response.put("parcial", !falhas.isEmpty());
+        response.put("falhas", falhas);
+        return response;
+    }
+
+    private Future<Object> disparar(Supplier<Object> consulta) {
+        return executor.submit(() -> transacao.execute(status -> consulta.get()));
+    }
+}
@@ -0,0 +1,17 @@
+package com.maestria.agenda.service;
+
+import java.time.LocalDate;
+
+/**
+ * Chave dos caches de métricas: o período consultado (inclusive).
+ * Permite recalcular a entrada no refresh e localizar as entradas afetadas por uma data.
+ */
+public record PeriodoMetricas(LocalDate inicio, LocalDate fim) {
+
+    /**
+     * Verifica se este período tem algum dia em comum com [de, ate]
+     */
+    public boolean sobrepoe(LocalDate de, LocalDate ate) {
+        return !inicio.isAfter(ate) && !fim.isBefore(de);
+    }
+}
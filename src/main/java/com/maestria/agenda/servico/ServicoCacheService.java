@@ -1,7 +1,11 @@
 package com.maestria.agenda.servico;
 
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -11,6 +15,7 @@ import java.util.Optional;
 /**
  * Serviço com cache para Serviços
  * Reduz queries ao banco de dados
+ * Escritas atualizam apenas a chave do serviço e a lista ('all')
  */
 @Service
 public class ServicoCacheService {
@@ -18,10 +23,13 @@ public class ServicoCacheService {
     @Autowired
     private ServicoRepository servicoRepository;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     /**
-     * Busca serviço por ID com cache
+     * Busca serviço por ID com cache (ausentes não são cacheados)
      */
-    @Cacheable(value = "servicos", key = "#id")
+    @Cacheable(value = "servicos", key = "#id", unless = "#result == null")
     public Optional<Servico> findById(Long id) {
         return servicoRepository.findById(id);
     }
@@ -35,18 +43,35 @@ public class ServicoCacheService {
     }
 
     /**
-     * Limpa o cache quando um serviço é atualizado
+     * Salva o serviço, atualiza sua chave e invalida a lista
      */
-    @CacheEvict(value = "servicos", allEntries = true)
+    @Caching(
+            put = @CachePut(value = "servicos", key = "#result.id"),
+            evict = @CacheEvict(value = "servicos", key = "'all'"))
     public Servico save(Servico servico) {
         return servicoRepository.save(servico);
     }
 
     /**
-     * Limpa o cache quando um serviço é deletado
+     * Remove o serviço e suas chaves do cache
      */
-    @CacheEvict(value = "servicos", allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = "servicos", key = "#id"),
+            @CacheEvict(value = "servicos", key = "'all'")
+    })
     public void deleteById(Long id) {
         servicoRepository.deleteById(id);
     }
+
+    /**
+     * Invalida os serviços de uma categoria alterada (eles carregam a categoria no cache)
+     */
+    public void evictCategoria(Long categoriaId) {
+        Cache cache = cacheManager.getCache("servicos");
+        if (cache == null) {
+            return;
+        }
+        cache.evict("all");
+        servicoRepository.findIdsByCategoriaId(categoriaId).forEach(cache::evict);
+    }
 }
@@ -1,6 +1,8 @@
 package com.maestria.agenda.servico;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 public interface ServicoRepository extends JpaRepository<Servico, Long> {
@@ -9,4 +11,7 @@ public interface ServicoRepository extends JpaRepository<Servico, Long> {
     Servico findByNome(String nome);
 
     List<Servico> findByValorLessThanEqual(Double valorMaximo);
+
+    @Query("SELECT s.id FROM Servico s WHERE s.categoria.id = :categoriaId")
+    List<Long> findIdsByCategoriaId(@Param("categoriaId") Long categoriaId);
 }
\ No newline at end of file
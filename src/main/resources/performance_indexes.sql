@@ -24,6 +24,16 @@ CREATE INDEX IF NOT EXISTS idx_agendamento_prof_data_pago
 CREATE INDEX IF NOT EXISTS idx_agendamento_fixo_id 
   ON agendamento(agendamento_fixo_id) WHERE agendamento_fixo_id IS NOT NULL;
 
+-- Índices para a paginação por cursor (data, hora, id) de GET /agendamento
+-- Mesma expressão das consultas: hora nula ordenada como 00:00
+DROP INDEX IF EXISTS idx_agendamento_cursor;
+CREATE INDEX IF NOT EXISTS idx_agendamento_cursor 
+  ON agendamento(data DESC, (COALESCE(hora, TIME '00:00:00')) DESC, id DESC);
+
+DROP INDEX IF EXISTS idx_agendamento_profissional_cursor;
+CREATE INDEX IF NOT EXISTS idx_agendamento_profissional_cursor 
+  ON agendamento(profissional_id, data DESC, (COALESCE(hora, TIME '00:00:00')) DESC, id DESC);
+
 -- Índice para pagamentos de comissão por profissional e período
 CREATE INDEX IF NOT EXISTS idx_comissoes_pagamentos_profissional_periodo 
   ON comissoes_pagamentos(profissional_id, periodo_inicio, periodo_fim);
@@ -0,0 +1,109 @@
+package com.maestria.agenda;
+
+import com.maestria.agenda.cliente.Cliente;
+import com.maestria.agenda.profissional.Profissional;
+import com.maestria.agenda.servico.CategoriaServico;
+import com.maestria.agenda.servico.Servico;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Dados dos testes com {@link TesteBancoH2}: cada gravação é commitada na própria transação,
+ * para que serviços com REQUIRES_NEW ou JdbcTemplate enxerguem os dados, e o banco é
+ * esvaziado antes e depois de cada teste.
+ */
+@TestComponent
+public class DadosTeste {
+
+    private final EntityManager em;
+    private final TransactionTemplate transacao;
+
+    public DadosTeste(EntityManager em, PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.transacao = new TransactionTemplate(transactionManager);
+    }
+
+    public <T> T salvar(T entidade) {
+        transacao.executeWithoutResult(status -> em.persist(entidade));
+        return entidade;
+    }
+
+    public void emTransacao(Runnable alteracao) {
+        transacao.executeWithoutResult(status -> alteracao.run());
+    }
+
+    public Profissional profissional(String login) {
+        Profissional profissional = new Profissional();
+        profissional.setNome(login);
+        profissional.setLogin(login);
+        profissional.setSenha("x");
+        profissional.setRole(Profissional.Role.PROFISSIONAL);
+        return salvar(profissional);
+    }
+
+    public Cliente cliente(String nome) {
+        Cliente cliente = new Cliente();
+        cliente.setNome(nome);
+        return salvar(cliente);
+    }
+
+    public CategoriaServico categoria(String nome) {
+        CategoriaServico categoria = new CategoriaServico();
+        categoria.setNome(nome);
+        return salvar(categoria);
+    }
+
+    public Servico servico(String nome, double valor, CategoriaServico categoria) {
+        Servico servico = new Servico();
+        servico.setNome(nome);
+        servico.setValor(valor);
+        servico.setDuracao("PT1H");
+        servico.setCategoria(categoria);
+        return salvar(servico);
+    }
+
+    /**
+     * Esvazia todas as tabelas do H2, sem depender da ordem das chaves estrangeiras
+     */
+    public void limpar() {
+        transacao.executeWithoutResult(status -> {
+            @SuppressWarnings("unchecked")
+            List<String> tabelas = em.createNativeQuery("SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES " +
+                    "WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_TYPE = 'BASE TABLE'").getResultList();
+            em.createNativeQuery("SET REFERENTIAL_INTEGRITY FALSE").executeUpdate();
+            for (String tabela : tabelas) {
+                em.createNativeQuery("TRUNCATE TABLE \"" + tabela + "\"").executeUpdate();
+            }
+            em.createNativeQuery("SET REFERENTIAL_INTEGRITY TRUE").executeUpdate();
+        });
+        em.clear();
+    }
+
+    /**
+     * Chama {@link #limpar()} antes e depois de cada teste
+     */
+    static class Limpeza implements BeforeEachCallback, AfterEachCallback {
+
+        @Override
+        public void beforeEach(ExtensionContext context) {
+            dados(context).limpar();
+        }
+
+        @Override
+        public void afterEach(ExtensionContext context) {
+            dados(context).limpar();
+        }
+
+        private static DadosTeste dados(ExtensionContext context) {
+            return SpringExtension.getApplicationContext(context).getBean(DadosTeste.class);
+        }
+    }
+}
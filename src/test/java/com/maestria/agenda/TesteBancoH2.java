@@ -0,0 +1,26 @@
+package com.maestria.agenda;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Teste de repositório/serviço em H2 sem a transação do teste: os dados são gravados com
+ * {@link DadosTeste} e o banco é esvaziado antes e depois de cada teste.
+ * O dialeto H2 é fixado porque os locks pessimistas dependem dele.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(DadosTeste.class)
+@ExtendWith(DadosTeste.Limpeza.class)
+public @interface TesteBancoH2 {
+}
@@ -0,0 +1,108 @@
+package com.maestria.agenda.agendamento;
+
+import com.maestria.agenda.cliente.Cliente;
+import com.maestria.agenda.profissional.Profissional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Paginação por cursor de agendamentos em H2: percorre todas as páginas, inclusive com hora nula
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class PaginacaoAgendamentoTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private AgendamentoRepository repository;
+
+    private Profissional profissional;
+    private final List<Agendamento> todos = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        Cliente cliente = new Cliente();
+        cliente.setNome("Ana");
+        em.persist(cliente);
+
+        profissional = new Profissional();
+        profissional.setNome("Bia");
+        profissional.setLogin("biaa");
+        profissional.setSenha("x");
+        profissional.setRole(Profissional.Role.PROFISSIONAL);
+        em.persist(profissional);
+
+        LocalDate dia = LocalDate.of(2025, 3, 10);
+        LocalTime[] horas = {LocalTime.of(9, 0), null, LocalTime.of(9, 0), LocalTime.MIDNIGHT, null, LocalTime.of(18, 30)};
+        for (int d = 0; d < 3; d++) {
+            for (LocalTime hora : horas) {
+                Agendamento agendamento = new Agendamento();
+                agendamento.setCliente(cliente);
+                agendamento.setProfissional(profissional);
+                agendamento.setData(dia.plusDays(d));
+                agendamento.setHora(hora);
+                todos.add(em.persist(agendamento));
+            }
+        }
+        em.flush();
+        em.clear();
+        todos.sort(Comparator.comparing(Agendamento::getData)
+                .thenComparing(a -> a.getHora() != null ? a.getHora() : CursorAgendamento.HORA_NULA)
+                .thenComparing(Agendamento::getId)
+                .reversed());
+    }
+
+    @Test
+    void percorreTodasAsPaginasSemRepetirNemPular() {
+        assertEquals(ids(todos), ids(paginar(null)));
+    }
+
+    @Test
+    void percorrePaginasDoProfissional() {
+        assertEquals(ids(todos), ids(paginar(profissional.getId())));
+    }
+
+    @Test
+    void cursorDeHoraNulaIdaEVolta() {
+        CursorAgendamento cursor = new CursorAgendamento(LocalDate.of(2025, 3, 10), null, 42L);
+
+        assertEquals(new CursorAgendamento(LocalDate.of(2025, 3, 10), CursorAgendamento.HORA_NULA, 42L),
+                CursorAgendamento.decodificar(cursor.codificar()));
+    }
+
+    // Mesmo fluxo do controller: páginas de 4 com cursor codificado a partir do último item
+    private List<Agendamento> paginar(Long profissionalId) {
+        PageRequest pagina = PageRequest.of(0, 4);
+        List<Agendamento> resultado = new ArrayList<>();
+        List<Agendamento> atual = profissionalId == null
+                ? repository.findPrimeiraPagina(pagina)
+                : repository.findPrimeiraPaginaPorProfissional(profissionalId, pagina);
+        while (!atual.isEmpty()) {
+            resultado.addAll(atual);
+            CursorAgendamento cursor = CursorAgendamento.decodificar(
+                    CursorAgendamento.de(atual.get(atual.size() - 1)).codificar());
+            atual = profissionalId == null
+                    ? repository.findPaginaApos(cursor.data(), cursor.hora(), cursor.id(), pagina)
+                    : repository.findPaginaAposPorProfissional(profissionalId, cursor.data(), cursor.hora(),
+                            cursor.id(), pagina);
+        }
+        return resultado;
+    }
+
+    private static List<Long> ids(List<Agendamento> agendamentos) {
+        return agendamentos.stream().map(Agendamento::getId).toList();
+    }
+}
@@ -0,0 +1,214 @@
+package com.maestria.agenda.agendamento;
+
+import com.maestria.agenda.agendamento.AgendamentoFixo.TipoRepeticao;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compara o {@link RegraRecorrencia} com a regra dia a dia que existia no
+ * AgendamentoFixoSchedulerService, nos casos de data mais sensíveis.
+ */
+class RegraRecorrenciaTest {
+
+    private static final int SEG = RegraRecorrencia.bitDoDia(DayOfWeek.MONDAY);
+    private static final int QUA = RegraRecorrencia.bitDoDia(DayOfWeek.WEDNESDAY);
+    private static final int SEX = RegraRecorrencia.bitDoDia(DayOfWeek.FRIDAY);
+    private static final int DOM = RegraRecorrencia.bitDoDia(DayOfWeek.SUNDAY);
+
+    @Test
+    void mensalDia31PulaMesesSemODia() {
+        AgendamentoFixo fixo = fixo(TipoRepeticao.MENSAL, LocalDate.of(2024, 1, 10), 1, null, 31);
+        LocalDate de = LocalDate.of(2024, 1, 1);
+        LocalDate ate = LocalDate.of(2025, 12, 31);
+
+        List<LocalDate> datas = ocorrencias(fixo, de, ate);
+
+        assertEquals(geradorAntigo(fixo, de, ate), datas);
+        assertEquals(14, datas.size());
+        assertTrue(datas.stream().allMatch(data -> data.getDayOfMonth() == 31));
+        assertFalse(datas.contains(LocalDate.of(2024, 2, 29)));
+    }
+
+    @Test
+    void mensalUltimoDiaConsideraAnoBissexto() {
+        AgendamentoFixo fixo = fixo(TipoRepeticao.MENSAL, LocalDate.of(2023, 11, 15), 1, -1, 1);
+        LocalDate de = LocalDate.of(2023, 11, 1);
+        LocalDate ate = LocalDate.of(2025, 3, 31);
+
+        List<LocalDate> datas = ocorrencias(fixo, de, ate);
+
+        assertEquals(geradorAntigo(fixo, de, ate), datas);
+        assertTrue(datas.contains(LocalDate.of(2024, 2, 29)));
+        assertTrue(datas.contains(LocalDate.of(2025, 2, 28)));
+        assertTrue(datas.contains(LocalDate.of(2024, 4, 30)));
+        assertEquals(17, datas.size());
+    }
+
+    @Test
+    void mensalDia29SoEmFevereiroBissexto() {
+        AgendamentoFixo fixo = fixo(TipoRepeticao.MENSAL, LocalDate.of(2024, 1, 1), 1, null, 29);
+        LocalDate de = LocalDate.of(2024, 1, 1);
+        LocalDate ate = LocalDate.of(2025, 12, 31);
+
+        List<LocalDate> datas = ocorrencias(fixo, de, ate);
+
+        assertEquals(geradorAntigo(fixo, de, ate), datas);
+        assertTrue(datas.contains(LocalDate.of(2024, 2, 29)));
+        assertFalse(datas.stream().anyMatch(data -> data.getYear() == 2025 && data.getMonthValue() == 2));
+        assertEquals(23, datas.size());
+    }
+
+    @Test
+    void mensalComIntervaloContaMesesDesdeOInicio() {
+        // O gerador antigo ignorava o intervalo dos mensais: aqui só o resultado esperado
+        AgendamentoFixo fixo = fixo(TipoRepeticao.MENSAL, LocalDate.of(2024, 1, 31), 2, null, 31);
+
+        List<LocalDate> datas = ocorrencias(fixo, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31));
+
+        // Meses válidos: jan, mar, mai, jul, set, nov (setembro e novembro não têm 31)
+        assertEquals(List.of(LocalDate.of(2024, 1, 31), LocalDate.of(2024, 3, 31),
+                LocalDate.of(2024, 5, 31), LocalDate.of(2024, 7, 31)), datas);
+    }
+
+    @Test
+    void semanalIniciandoNoMeioDaSemana() {
+        // Início numa quarta-feira, repetindo segunda e sexta
+        AgendamentoFixo fixo = fixo(TipoRepeticao.SEMANAL, LocalDate.of(2025, 1, 1), 1, SEG | SEX, 1);
+        LocalDate de = LocalDate.of(2024, 12, 25);
+        LocalDate ate = LocalDate.of(2025, 3, 31);
+
+        List<LocalDate> datas = ocorrencias(fixo, de, ate);
+
+        assertEquals(geradorAntigo(fixo, de, ate), datas);
+        assertEquals(LocalDate.of(2025, 1, 3), datas.get(0));
+        assertEquals(LocalDate.of(2025, 1, 6), datas.get(1));
+    }
+
+    @Test
+    void semanalComIntervaloContaSemanasDesdeOInicio() {
+        // Semanas de 7 dias a partir da quarta de início: quarta a terça
+        AgendamentoFixo fixo = fixo(TipoRepeticao.SEMANAL, LocalDate.of(2025, 1, 1), 2, SEG | QUA | DOM, 1);
+        LocalDate de = LocalDate.of(2025, 1, 1);
+        LocalDate ate = LocalDate.of(2025, 6, 30);
+
+        List<LocalDate> datas = ocorrencias(fixo, de, ate);
+
+        assertEquals(geradorAntigo(fixo, de, ate), datas);
+        assertEquals(List.of(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 5), LocalDate.of(2025, 1, 6),
+                LocalDate.of(2025, 1, 15)), datas.subList(0, 4));
+    }
+
+    @Test
+    void semanalComIntervaloTresAtravessandoFevereiroBissexto() {
+        AgendamentoFixo fixo = fixo(TipoRepeticao.SEMANAL, LocalDate.of(2024, 2, 22), 3, SEX, 1);
+        LocalDate de = LocalDate.of(2024, 1, 1);
+        LocalDate ate = LocalDate.of(2024, 12, 31);
+
+        assertEquals(geradorAntigo(fixo, de, ate), ocorrencias(fixo, de, ate));
+    }
+
+    @Test
+    void diariaEQuinzenalIguaisAoGeradorAntigo() {
+        LocalDate de = LocalDate.of(2024, 1, 1);
+        LocalDate ate = LocalDate.of(2025, 12, 31);
+        for (AgendamentoFixo fixo : List.of(
+                fixo(TipoRepeticao.DIARIA, LocalDate.of(2024, 2, 27), 1, null, 1),
+                fixo(TipoRepeticao.DIARIA, LocalDate.of(2024, 2, 27), 3, null, 1),
+                fixo(TipoRepeticao.QUINZENAL, LocalDate.of(2024, 2, 14), 1, null, 1))) {
+            assertEquals(geradorAntigo(fixo, de, ate), ocorrencias(fixo, de, ate), fixo.getTipoRepeticao().name());
+        }
+    }
+
+    @Test
+    void ocorreEmIgualAoGeradorAntigoDiaADia() {
+        LocalDate de = LocalDate.of(2023, 12, 1);
+        LocalDate ate = LocalDate.of(2025, 3, 31);
+        List<AgendamentoFixo> fixos = List.of(
+                fixo(TipoRepeticao.MENSAL, LocalDate.of(2024, 1, 10), 1, null, 31),
+                fixo(TipoRepeticao.MENSAL, LocalDate.of(2024, 1, 10), 1, -1, 1),
+                fixo(TipoRepeticao.MENSAL, LocalDate.of(2024, 1, 10), 1, null, 29),
+                fixo(TipoRepeticao.SEMANAL, LocalDate.of(2024, 2, 28), 1, SEG | SEX, 1),
+                fixo(TipoRepeticao.SEMANAL, LocalDate.of(2024, 2, 28), 2, QUA | DOM, 1),
+                fixo(TipoRepeticao.DIARIA, LocalDate.of(2024, 2, 28), 4, null, 1),
+                fixo(TipoRepeticao.QUINZENAL, LocalDate.of(2024, 2, 28), 1, null, 1));
+
+        for (AgendamentoFixo fixo : fixos) {
+            for (LocalDate data = de; !data.isAfter(ate); data = data.plusDays(1)) {
+                boolean esperado = !data.isBefore(fixo.getDataInicio()) && deveGerarOcorrencia(fixo, data);
+                assertEquals(esperado, RegraRecorrencia.ocorreEm(fixo, data), fixo.getTipoRepeticao() + " em " + data);
+            }
+        }
+    }
+
+    @Test
+    void respeitaDataFim() {
+        AgendamentoFixo fixo = fixo(TipoRepeticao.DIARIA, LocalDate.of(2025, 1, 1), 1, null, 1);
+        fixo.setDataFim(LocalDate.of(2025, 1, 5));
+
+        List<LocalDate> datas = ocorrencias(fixo, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31));
+
+        assertEquals(5, datas.size());
+        assertFalse(RegraRecorrencia.ocorreEm(fixo, LocalDate.of(2025, 1, 6)));
+    }
+
+    private static List<LocalDate> ocorrencias(AgendamentoFixo fixo, LocalDate de, LocalDate ate) {
+        return RegraRecorrencia.ocorrencias(fixo, de, ate).collect(Collectors.toList());
+    }
+
+    /**
+     * Laço dia a dia do scheduler anterior ao RegraRecorrencia
+     */
+    private static List<LocalDate> geradorAntigo(AgendamentoFixo fixo, LocalDate de, LocalDate ate) {
+        List<LocalDate> datas = new ArrayList<>();
+        for (LocalDate data = de; !data.isAfter(ate); data = data.plusDays(1)) {
+            if (!data.isBefore(fixo.getDataInicio()) && deveGerarOcorrencia(fixo, data)) {
+                datas.add(data);
+            }
+        }
+        return datas;
+    }
+
+    private static boolean deveGerarOcorrencia(AgendamentoFixo fixo, LocalDate data) {
+        long diasDesdeInicio = data.toEpochDay() - fixo.getDataInicio().toEpochDay();
+        switch (fixo.getTipoRepeticao()) {
+            case DIARIA:
+                return diasDesdeInicio >= 0 && diasDesdeInicio % fixo.getIntervaloRepeticao() == 0;
+            case SEMANAL:
+                int diaDaSemana = data.getDayOfWeek().getValue() % 7 + 1;
+                boolean diaCorreto = (fixo.getValorRepeticao() & (1 << (diaDaSemana - 1))) != 0;
+                if (diaCorreto && fixo.getIntervaloRepeticao() > 1) {
+                    return (diasDesdeInicio / 7) % fixo.getIntervaloRepeticao() == 0;
+                }
+                return diaCorreto;
+            case QUINZENAL:
+                return diasDesdeInicio >= 0 && diasDesdeInicio % 15 == 0;
+            case MENSAL:
+                if (fixo.getValorRepeticao() != null && fixo.getValorRepeticao() == -1) {
+                    return data.getDayOfMonth() == data.lengthOfMonth();
+                }
+                return fixo.getDiaDoMes() == data.getDayOfMonth();
+            default:
+                return false;
+        }
+    }
+
+    private static AgendamentoFixo fixo(TipoRepeticao tipo, LocalDate dataInicio, int intervalo,
+            Integer valorRepeticao, int diaDoMes) {
+        AgendamentoFixo fixo = new AgendamentoFixo();
+        fixo.setTipoRepeticao(tipo);
+        fixo.setDataInicio(dataInicio);
+        fixo.setIntervaloRepeticao(intervalo);
+        fixo.setValorRepeticao(valorRepeticao);
+        fixo.setDiaDoMes(diaDoMes);
+        return fixo;
+    }
+}
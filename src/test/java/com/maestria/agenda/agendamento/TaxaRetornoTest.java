@@ -0,0 +1,77 @@
+package com.maestria.agenda.agendamento;
+
+import com.maestria.agenda.DadosTeste;
+import com.maestria.agenda.TesteBancoH2;
+import com.maestria.agenda.cliente.Cliente;
+import com.maestria.agenda.profissional.Profissional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Janela de 30 dias da taxa de retorno ({@link AgendamentoRepository#contarClientesERetornos}) em H2
+ */
+@TesteBancoH2
+class TaxaRetornoTest {
+
+    private final LocalDate inicio = LocalDate.of(2025, 1, 1);
+    private final LocalDate fim = LocalDate.of(2025, 6, 30);
+
+    @Autowired
+    private AgendamentoRepository agendamentoRepository;
+
+    @Autowired
+    private DadosTeste dados;
+
+    private Profissional profissional;
+
+    @BeforeEach
+    void setup() {
+        profissional = dados.profissional("biaa");
+    }
+
+    @Test
+    void contaRetornoSomenteAteTrintaDiasDaVisitaAnterior() {
+        // Voltou 10 dias depois
+        cliente("Ana", inicio.plusDays(5), inicio.plusDays(15));
+        // Voltou exatamente no 30º dia
+        cliente("Bela", inicio.plusDays(40), inicio.plusDays(70));
+        // Voltou 45 dias depois
+        cliente("Carla", inicio.plusDays(10), inicio.plusDays(55));
+        // Uma visita só
+        cliente("Duda", inicio.plusDays(20));
+        // Intervalo de 45 dias seguido de um de 20: conta como retorno
+        cliente("Eva", inicio.plusDays(1), inicio.plusDays(46), inicio.plusDays(66));
+
+        assertEquals(List.of(5L, 3L), contar(inicio, fim));
+    }
+
+    @Test
+    void consideraSomenteVisitasDoPeriodo() {
+        // A visita anterior fica fora do período consultado
+        cliente("Ana", inicio.minusDays(10), inicio.plusDays(5));
+
+        assertEquals(List.of(1L, 0L), contar(inicio, fim));
+    }
+
+    private List<Long> contar(LocalDate dataInicio, LocalDate dataFim) {
+        Object[] linha = agendamentoRepository.contarClientesERetornos(dataInicio, dataFim).get(0);
+        return List.of(((Number) linha[0]).longValue(), ((Number) linha[1]).longValue());
+    }
+
+    private void cliente(String nome, LocalDate... datas) {
+        Cliente cliente = dados.cliente(nome);
+        for (LocalDate data : datas) {
+            Agendamento agendamento = new Agendamento();
+            agendamento.setCliente(cliente);
+            agendamento.setProfissional(profissional);
+            agendamento.setData(data);
+            dados.salvar(agendamento);
+        }
+    }
+}
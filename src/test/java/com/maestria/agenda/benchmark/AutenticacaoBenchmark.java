@@ -0,0 +1,153 @@
+package com.maestria.agenda.benchmark;
+
+import com.maestria.agenda.config.JwtAuthenticationFilter;
+import com.maestria.agenda.config.JwtService;
+import com.maestria.agenda.profissional.ModoAutenticacao;
+import com.maestria.agenda.profissional.PrincipalCache;
+import com.maestria.agenda.profissional.Profissional;
+import com.maestria.agenda.profissional.ProfissionalAutenticado;
+import com.maestria.agenda.profissional.ProfissionalRepository;
+import com.maestria.agenda.profissional.VersaoTokenCache;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Custo de autenticar uma requisição no JwtAuthenticationFilter:
+ * token antigo (24h, sem "typ") com o profissional buscado no banco a cada requisição
+ * (H2 em memória, sem rede, então o custo real do Postgres é maior) ou no PrincipalCache,
+ * e token de acesso curto autenticado só pelas claims.
+ *
+ * Executar com: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.maestria.agenda.benchmark.AutenticacaoBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutenticacaoBenchmark {
+
+    private static final String SEGREDO = "Y3i49Jx8nQw3sP@74LkF9dC4mJ1N2PZz";
+
+    private SingleConnectionDataSource dataSource;
+    private JwtAuthenticationFilter filtroBanco;
+    private JwtAuthenticationFilter filtroCache;
+    private JwtAuthenticationFilter filtroClaims;
+    private String tokenAntigo;
+    private String tokenAcesso;
+
+    @Setup
+    public void setup() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:autenticacao;DB_CLOSE_DELAY=-1", "sa", "", true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE profissional (id BIGINT PRIMARY KEY, login VARCHAR(255) UNIQUE, " +
+                "senha VARCHAR(255), role VARCHAR(20))");
+        for (int i = 1; i <= 1000; i++) {
+            jdbcTemplate.update("INSERT INTO profissional VALUES (?, ?, ?, ?)",
+                    i, "profissional" + i, "$2a$10$hash", i == 1 ? "ADMIN" : "PROFISSIONAL");
+        }
+
+        // Mesma consulta do CustomUserDetailsService (findByLogin)
+        UserDetailsService doBanco = login -> jdbcTemplate.queryForObject(
+                "SELECT id, login, senha, role FROM profissional WHERE login = ?",
+                (rs, linha) -> new ProfissionalAutenticado(rs.getLong("id"), rs.getString("login"),
+                        rs.getString("senha"), List.of(new SimpleGrantedAuthority(rs.getString("role")))),
+                login);
+
+        ProfissionalRepository repositorio = mock(ProfissionalRepository.class);
+        when(repositorio.listarVersoesToken()).thenReturn(List.<Object[]>of(new Object[]{500L, 0}));
+        VersaoTokenCache versoes = new VersaoTokenCache(repositorio);
+        JwtService jwtService = new JwtService(SEGREDO, 15);
+
+        // TTL zero: o PrincipalCache não guarda nada e toda requisição vai ao banco (como antes do cache)
+        filtroBanco = new JwtAuthenticationFilter(doBanco, jwtService, new PrincipalCache(1000, 0),
+                versoes, ModoAutenticacao.CONSULTA);
+        filtroCache = new JwtAuthenticationFilter(doBanco, jwtService, new PrincipalCache(1000, 10),
+                versoes, ModoAutenticacao.CONSULTA);
+        filtroClaims = new JwtAuthenticationFilter(doBanco, jwtService, new PrincipalCache(1000, 10),
+                versoes, ModoAutenticacao.CONSULTA);
+
+        long agora = System.currentTimeMillis();
+        tokenAntigo = Jwts.builder()
+                .setSubject("profissional500")
+                .claim(JwtService.CLAIM_ROLE, "PROFISSIONAL")
+                .setIssuedAt(new Date(agora))
+                .setExpiration(new Date(agora + TimeUnit.HOURS.toMillis(24)))
+                .signWith(Keys.hmacShaKeyFor(SEGREDO.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+
+        Profissional profissional = new Profissional();
+        profissional.setId(500L);
+        profissional.setLogin("profissional500");
+        profissional.setRole(Profissional.Role.PROFISSIONAL);
+        tokenAcesso = jwtService.gerarToken(profissional);
+    }
+
+    @TearDown
+    public void encerrar() {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public Object tokenAntigoBanco() throws Exception {
+        return autenticar(filtroBanco, tokenAntigo);
+    }
+
+    @Benchmark
+    public Object tokenAntigoPrincipalCache() throws Exception {
+        return autenticar(filtroCache, tokenAntigo);
+    }
+
+    @Benchmark
+    public Object tokenAcessoClaims() throws Exception {
+        return autenticar(filtroClaims, tokenAcesso);
+    }
+
+    private static Object autenticar(JwtAuthenticationFilter filtro, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/agendamento/dia");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filtro.doFilter(request, response, new MockFilterChain());
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AutenticacaoBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,126 @@
+package com.maestria.agenda.benchmark;
+
+import com.maestria.agenda.agendamento.AgendamentoFixo;
+import com.maestria.agenda.agendamento.AgendamentoFixo.TipoRepeticao;
+import com.maestria.agenda.agendamento.RegraRecorrencia;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara a expansão de agendamentos fixos pelo {@link RegraRecorrencia}
+ * com o loop dia a dia usado anteriormente no scheduler.
+ *
+ * Executar com: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.maestria.agenda.benchmark.RegraRecorrenciaBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegraRecorrenciaBenchmark {
+
+    @Param({"60", "730"})
+    private int diasJanela;
+
+    private List<AgendamentoFixo> fixos;
+    private LocalDate inicio;
+    private LocalDate fim;
+
+    @Setup
+    public void setup() {
+        inicio = LocalDate.of(2025, 1, 1);
+        fim = inicio.plusDays(diasJanela);
+        fixos = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            LocalDate dataInicio = inicio.minusDays(i * 3L);
+            switch (i % 4) {
+                case 0 -> fixos.add(fixo(TipoRepeticao.DIARIA, dataInicio, 1 + i % 3, null, 1));
+                case 1 -> fixos.add(fixo(TipoRepeticao.SEMANAL, dataInicio, 1 + i % 2, 0b0101010, 1));
+                case 2 -> fixos.add(fixo(TipoRepeticao.QUINZENAL, dataInicio, 1, null, 1));
+                default -> fixos.add(fixo(TipoRepeticao.MENSAL, dataInicio, 1, i % 8 == 3 ? -1 : 15, 15));
+            }
+        }
+    }
+
+    @Benchmark
+    public void motorRecorrencia(Blackhole bh) {
+        for (AgendamentoFixo fixo : fixos) {
+            RegraRecorrencia.ocorrencias(fixo, inicio, fim).forEach(bh::consume);
+        }
+    }
+
+    @Benchmark
+    public void loopDiaADia(Blackhole bh) {
+        for (AgendamentoFixo fixo : fixos) {
+            for (LocalDate data = inicio; !data.isAfter(fim); data = data.plusDays(1)) {
+                if (!data.isBefore(fixo.getDataInicio()) && deveGerarOcorrencia(fixo, data)) {
+                    bh.consume(data);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cópia da regra dia a dia que existia no AgendamentoFixoSchedulerService
+     */
+    private static boolean deveGerarOcorrencia(AgendamentoFixo fixo, LocalDate data) {
+        long diasDesdeInicio = data.toEpochDay() - fixo.getDataInicio().toEpochDay();
+        switch (fixo.getTipoRepeticao()) {
+            case DIARIA:
+                return diasDesdeInicio >= 0 && diasDesdeInicio % fixo.getIntervaloRepeticao() == 0;
+            case SEMANAL:
+                int diaDaSemana = data.getDayOfWeek().getValue() % 7 + 1;
+                boolean diaCorreto = (fixo.getValorRepeticao() & (1 << (diaDaSemana - 1))) != 0;
+                if (diaCorreto && fixo.getIntervaloRepeticao() > 1) {
+                    return (diasDesdeInicio / 7) % fixo.getIntervaloRepeticao() == 0;
+                }
+                return diaCorreto;
+            case QUINZENAL:
+                return diasDesdeInicio >= 0 && diasDesdeInicio % 15 == 0;
+            case MENSAL:
+                if (fixo.getValorRepeticao() == -1) {
+                    return data.getDayOfMonth() == data.lengthOfMonth();
+                }
+                return fixo.getDiaDoMes() == data.getDayOfMonth();
+            default:
+                return false;
+        }
+    }
+
+    private static AgendamentoFixo fixo(TipoRepeticao tipo, LocalDate dataInicio, int intervalo,
+            Integer valorRepeticao, int diaDoMes) {
+        AgendamentoFixo fixo = new AgendamentoFixo();
+        fixo.setTipoRepeticao(tipo);
+        fixo.setDataInicio(dataInicio);
+        fixo.setIntervaloRepeticao(intervalo);
+        fixo.setValorRepeticao(valorRepeticao);
+        fixo.setDiaDoMes(diaDoMes);
+        return fixo;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RegraRecorrenciaBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
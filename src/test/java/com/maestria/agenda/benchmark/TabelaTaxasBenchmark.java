@@ -0,0 +1,136 @@
+package com.maestria.agenda.benchmark;
+
+import com.maestria.agenda.financeiro.PagamentoTipo;
+import com.maestria.agenda.financeiro.TabelaTaxas;
+import com.maestria.agenda.financeiro.TaxaPagamento;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.cache.annotation.AnnotationCacheOperationSource;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.CacheInterceptor;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara a consulta de taxa por linha no laço de comissões: pelo proxy do @Cacheable
+ * (Caffeine + Optional, como era o TaxaPagamentoService.obterTaxa) e pela {@link TabelaTaxas}
+ * entregue uma vez ao cálculo.
+ *
+ * Executar com: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.maestria.agenda.benchmark.TabelaTaxasBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TabelaTaxasBenchmark {
+
+    @Param({"1000", "10000"})
+    private int linhas;
+
+    private PagamentoTipo[] formas;
+    private double[] valores;
+    private TaxasCacheaveis taxasComProxy;
+    private TabelaTaxas tabela;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        PagamentoTipo[] tipos = PagamentoTipo.values();
+        formas = new PagamentoTipo[linhas];
+        valores = new double[linhas];
+        for (int i = 0; i < linhas; i++) {
+            formas[i] = tipos[random.nextInt(tipos.length)];
+            valores[i] = 50 + random.nextInt(200);
+        }
+
+        Map<PagamentoTipo, Double> taxas = new EnumMap<>(PagamentoTipo.class);
+        for (PagamentoTipo tipo : tipos) {
+            taxas.put(tipo, 1.0 + tipo.ordinal() * 0.5);
+        }
+        tabela = TabelaTaxas.de(taxas);
+
+        // Mesmo arranjo do contexto: CacheInterceptor + Caffeine em volta da classe anotada
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager("taxasPagamento");
+        CacheInterceptor interceptor = new CacheInterceptor();
+        interceptor.setCacheOperationSources(new AnnotationCacheOperationSource());
+        interceptor.setCacheManager(cacheManager);
+        interceptor.afterPropertiesSet();
+        interceptor.afterSingletonsInstantiated();
+        ProxyFactory proxyFactory = new ProxyFactory(new TaxasCacheaveis(taxas));
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(interceptor);
+        taxasComProxy = (TaxasCacheaveis) proxyFactory.getProxy();
+    }
+
+    @Benchmark
+    public double proxyCacheable() {
+        double desconto = 0;
+        for (int i = 0; i < linhas; i++) {
+            desconto += valores[i] * (taxasComProxy.obterTaxa(formas[i]) / 100.0);
+        }
+        return desconto;
+    }
+
+    @Benchmark
+    public double tabelaTaxas() {
+        TabelaTaxas taxas = tabela;
+        double desconto = 0;
+        for (int i = 0; i < linhas; i++) {
+            desconto += valores[i] * (taxas.taxa(formas[i]) / 100.0);
+        }
+        return desconto;
+    }
+
+    /**
+     * Cópia do obterTaxa anterior, com o repositório trocado por um mapa
+     */
+    public static class TaxasCacheaveis {
+
+        private final Map<PagamentoTipo, Double> configuradas;
+
+        public TaxasCacheaveis() {
+            this(Map.of());
+        }
+
+        TaxasCacheaveis(Map<PagamentoTipo, Double> configuradas) {
+            this.configuradas = configuradas;
+        }
+
+        @Cacheable(value = "taxasPagamento", key = "#tipoPagamento")
+        public double obterTaxa(PagamentoTipo tipoPagamento) {
+            Optional<TaxaPagamento> taxaConfig = Optional.ofNullable(configuradas.get(tipoPagamento))
+                    .map(taxa -> new TaxaPagamento(tipoPagamento, taxa));
+            if (taxaConfig.isPresent()) {
+                return taxaConfig.get().getTaxa();
+            }
+            return 0.0;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TabelaTaxasBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
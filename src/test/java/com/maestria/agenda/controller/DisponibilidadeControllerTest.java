@@ -0,0 +1,92 @@
+package com.maestria.agenda.controller;
+
+import com.maestria.agenda.profissional.Profissional;
+import com.maestria.agenda.profissional.ProfissionalRepository;
+import com.maestria.agenda.service.DisponibilidadeService;
+import com.maestria.agenda.servico.Servico;
+import com.maestria.agenda.servico.ServicoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Duração pedida e validação dos parâmetros do /agendamento/disponibilidade
+ */
+class DisponibilidadeControllerTest {
+
+    private final UserDetails admin = User.withUsername("admin").password("x").authorities("ADMIN").build();
+
+    private DisponibilidadeService disponibilidadeService;
+    private ServicoRepository servicoRepository;
+    private DisponibilidadeController controller;
+
+    @BeforeEach
+    void setup() {
+        disponibilidadeService = mock(DisponibilidadeService.class);
+        servicoRepository = mock(ServicoRepository.class);
+        ProfissionalRepository profissionalRepository = mock(ProfissionalRepository.class);
+        when(profissionalRepository.findAll()).thenReturn(List.of(new Profissional()));
+        controller = new DisponibilidadeController(disponibilidadeService, profissionalRepository, servicoRepository);
+    }
+
+    @Test
+    void somaServicoRepetidoNoComboEIgnoraServicoSemDuracao() {
+        Servico corte = servico(1L, "PT30M");
+        Servico semDuracao = servico(2L, null);
+        when(servicoRepository.findAllById(any())).thenReturn(List.of(corte, semDuracao));
+
+        ResponseEntity<?> resposta = buscar("2025-03-10", "2025-03-10", List.of(1L, 1L, 2L), null);
+
+        assertEquals(200, resposta.getStatusCode().value());
+        ArgumentCaptor<Duration> duracao = ArgumentCaptor.forClass(Duration.class);
+        verify(disponibilidadeService).buscar(anyList(), any(), any(), duracao.capture(), eq(null), eq(null));
+        assertEquals(Duration.ofHours(1), duracao.getValue());
+    }
+
+    @Test
+    void servicoInexistenteResponde400() {
+        when(servicoRepository.findAllById(any())).thenReturn(List.of(servico(1L, "PT30M")));
+
+        ResponseEntity<?> resposta = buscar("2025-03-10", "2025-03-10", List.of(1L, 9L), null);
+
+        assertEquals(400, resposta.getStatusCode().value());
+        assertEquals("Serviço não encontrado.", resposta.getBody());
+    }
+
+    @Test
+    void dataOuHorarioMalformadoResponde400() {
+        for (ResponseEntity<?> resposta : List.of(
+                buscar("2025-13-01", "2025-03-10", null, null),
+                buscar("2025-03-10", "10/03/2025", null, null),
+                buscar("2025-03-10", "2025-03-10", null, "8h"))) {
+            assertEquals(400, resposta.getStatusCode().value());
+            assertEquals("Data ou horário inválido. Use AAAA-MM-DD e HH:MM.", resposta.getBody());
+        }
+    }
+
+    private ResponseEntity<?> buscar(String dataInicio, String dataFim, List<Long> servicoIds, String horaAbertura) {
+        return controller.buscarDisponibilidade(dataInicio, dataFim, null, servicoIds, null, horaAbertura, null,
+                admin, null);
+    }
+
+    private static Servico servico(Long id, String duracao) {
+        Servico servico = new Servico();
+        servico.setId(id);
+        servico.setDuracao(duracao);
+        return servico;
+    }
+}
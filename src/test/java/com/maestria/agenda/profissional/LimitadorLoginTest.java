@@ -0,0 +1,86 @@
+package com.maestria.agenda.profissional;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Baldes de tentativas de login por IP e por usuário, com relógio controlado
+ */
+class LimitadorLoginTest {
+
+    private final AtomicLong agora = new AtomicLong();
+
+    // 20 por IP (+10/min), 5 por usuário (+2/min): os padrões do application.properties
+    private final LimitadorLogin limitador = new LimitadorLogin(20, 10, 5, 2, agora::get);
+
+    @Test
+    void usuarioBloqueadoDepoisDaCapacidade() {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limitador.aguardar("10.0.0." + i, "bia"));
+        }
+
+        // 2 por minuto: a próxima ficha sai em 30 segundos
+        assertEquals(30, limitador.aguardar("10.0.0.9", "bia"));
+        // Mesmo login com outra caixa ou espaços
+        assertEquals(30, limitador.aguardar("10.0.0.9", " BIA "));
+        // Outro usuário segue liberado
+        assertEquals(0, limitador.aguardar("10.0.0.9", "ana"));
+    }
+
+    @Test
+    void usuarioRecompoeFichasComOTempo() {
+        for (int i = 0; i < 5; i++) {
+            limitador.aguardar("10.0.0.1", "bia");
+        }
+
+        avancar(20);
+        assertEquals(10, limitador.aguardar("10.0.0.1", "bia"));
+
+        avancar(10);
+        assertEquals(0, limitador.aguardar("10.0.0.1", "bia"));
+        assertEquals(30, limitador.aguardar("10.0.0.1", "bia"));
+
+        // Parado tempo suficiente, o balde volta cheio e não passa da capacidade
+        avancar(600);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limitador.aguardar("10.0.0.1", "bia"));
+        }
+        assertEquals(30, limitador.aguardar("10.0.0.1", "bia"));
+    }
+
+    @Test
+    void ipBloqueadoDepoisDaCapacidade() {
+        for (int i = 0; i < 20; i++) {
+            assertEquals(0, limitador.aguardar("10.0.0.1", "usuario" + i));
+        }
+
+        // 10 por minuto: a próxima ficha sai em 6 segundos
+        assertEquals(6, limitador.aguardar("10.0.0.1", "outro"));
+        assertEquals(0, limitador.aguardar("10.0.0.2", "outro"));
+
+        avancar(6);
+        assertEquals(0, limitador.aguardar("10.0.0.1", "mais um"));
+    }
+
+    @Test
+    void ipBloqueadoNaoConsomeFichasDoUsuario() {
+        for (int i = 0; i < 20; i++) {
+            limitador.aguardar("10.0.0.1", "usuario" + i);
+        }
+        for (int i = 0; i < 10; i++) {
+            limitador.aguardar("10.0.0.1", "bia");
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limitador.aguardar("10.0.0." + (10 + i), "bia"));
+        }
+    }
+
+    private void avancar(long segundos) {
+        agora.addAndGet(TimeUnit.SECONDS.toNanos(segundos));
+    }
+}
@@ -0,0 +1,87 @@
+package com.maestria.agenda.profissional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Respostas 401, 429 e 503 do /auth/login
+ */
+class LoginControllerTest {
+
+    private static final String CORPO = "{\"username\":\"bia\",\"senha\":\"errada\"}";
+
+    private final AtomicLong agora = new AtomicLong();
+    private LoginService loginService;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setup() {
+        loginService = mock(LoginService.class);
+        when(loginService.autenticar(anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+
+        LoginController controller = new LoginController();
+        ReflectionTestUtils.setField(controller, "loginService", loginService);
+        // 2 tentativas por usuário, recompondo 1 por minuto
+        ReflectionTestUtils.setField(controller, "limitadorLogin", new LimitadorLogin(20, 10, 2, 1, agora::get));
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void excessoDeTentativasResponde429ComRetryAfter() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(asyncDispatch(login()))
+                    .andExpect(status().isUnauthorized())
+                    .andExpect(content().string("Usuário ou senha inválidos."));
+        }
+
+        mvc.perform(asyncDispatch(login()))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "60"));
+        // A tentativa recusada nem chega a verificar a senha
+        verify(loginService, times(2)).autenticar(anyString(), any());
+
+        agora.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        mvc.perform(asyncDispatch(login())).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void poolDeLoginCheioResponde503() throws Exception {
+        when(loginService.autenticar(anyString(), any())).thenThrow(new RejectedExecutionException());
+
+        mvc.perform(asyncDispatch(login()))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
+    private MvcResult login() throws Exception {
+        return mvc.perform(post("/auth/login").contentType(MediaType.APPLICATION_JSON).content(CORPO))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+}
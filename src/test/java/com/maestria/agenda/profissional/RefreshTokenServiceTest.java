@@ -0,0 +1,132 @@
+package com.maestria.agenda.profissional;
+
+import com.maestria.agenda.DadosTeste;
+import com.maestria.agenda.TesteBancoH2;
+import com.maestria.agenda.config.JwtService;
+import io.jsonwebtoken.Claims;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rotação, detecção de reuso, expiração e logout dos refresh tokens em H2.
+ * Cada chamada ao serviço roda na própria transação, como em uma requisição.
+ */
+@TesteBancoH2
+@Import({RefreshTokenService.class, JwtService.class})
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private RefreshTokenService service;
+
+    @Autowired
+    private RefreshTokenRepository repository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private DadosTeste dados;
+
+    private Profissional profissional;
+
+    @BeforeEach
+    void setup() {
+        profissional = dados.profissional("biaa");
+    }
+
+    @Test
+    void renovarTrocaORefreshTokenEEmiteNovoAcesso() {
+        Sessao login = service.iniciar(profissional);
+
+        Sessao renovada = service.renovar(login.refreshToken()).orElseThrow();
+
+        assertNotEquals(login.refreshToken(), renovada.refreshToken());
+        Claims claims = jwtService.validar(renovada.token());
+        assertEquals("biaa", claims.getSubject());
+        assertEquals(JwtService.TIPO_ACESSO, claims.get(JwtService.CLAIM_TIPO));
+        assertEquals(jwtService.getValidadeAcessoSegundos(), renovada.expiraEm());
+
+        // Mesma família: o anterior fica revogado e o novo segue válido
+        List<RefreshToken> tokens = repository.findAll();
+        assertEquals(2, tokens.size());
+        assertEquals(1, tokens.stream().map(RefreshToken::getFamilia).distinct().count());
+        assertEquals(1, tokens.stream().filter(token -> token.getRevogadoEm() != null).count());
+        assertTrue(service.renovar(renovada.refreshToken()).isPresent());
+    }
+
+    @Test
+    void reusoRevogaAFamiliaInteira() {
+        Sessao login = service.iniciar(profissional);
+        Sessao outroDispositivo = service.iniciar(profissional);
+        Sessao renovada = service.renovar(login.refreshToken()).orElseThrow();
+
+        // O token antigo aparece de novo: a sessão cai, inclusive o token recém-emitido
+        assertTrue(service.renovar(login.refreshToken()).isEmpty());
+        assertTrue(service.renovar(renovada.refreshToken()).isEmpty());
+
+        // A sessão do primeiro login é a do token gravado primeiro
+        String familia = repository.findById(primeiroId()).orElseThrow().getFamilia();
+        assertTrue(repository.findAll().stream()
+                .filter(token -> token.getFamilia().equals(familia))
+                .allMatch(token -> token.getRevogadoEm() != null));
+        // Outra sessão do mesmo profissional não é afetada
+        assertTrue(service.renovar(outroDispositivo.refreshToken()).isPresent());
+    }
+
+    @Test
+    void versaoAlteradaEncerraASessao() {
+        Sessao login = service.iniciar(profissional);
+        dados.emTransacao(() ->
+                em.find(Profissional.class, profissional.getId()).incrementarTokenVersao());
+
+        assertTrue(service.renovar(login.refreshToken()).isEmpty());
+        assertTrue(repository.findAll().stream().allMatch(token -> token.getRevogadoEm() != null));
+    }
+
+    @Test
+    void tokenExpiradoRecusado() {
+        Sessao login = service.iniciar(profissional);
+        dados.emTransacao(() -> em
+                .createQuery("UPDATE RefreshToken r SET r.expiraEm = :passado")
+                .setParameter("passado", LocalDateTime.now().minusMinutes(1))
+                .executeUpdate());
+
+        assertTrue(service.renovar(login.refreshToken()).isEmpty());
+
+        service.excluirExpirados();
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    void encerrarRevogaASessao() {
+        Sessao login = service.iniciar(profissional);
+        Sessao renovada = service.renovar(login.refreshToken()).orElseThrow();
+
+        service.encerrar(renovada.refreshToken());
+
+        assertTrue(service.renovar(renovada.refreshToken()).isEmpty());
+        assertTrue(repository.findAll().stream().allMatch(token -> token.getRevogadoEm() != null));
+        // Token vazio ou desconhecido não faz nada
+        service.encerrar(null);
+        service.encerrar("desconhecido");
+        assertTrue(service.renovar("desconhecido").isEmpty());
+        assertTrue(service.renovar(" ").isEmpty());
+    }
+
+    private Long primeiroId() {
+        return repository.findAll().stream().map(RefreshToken::getId).min(Long::compare).orElseThrow();
+    }
+}
@@ -0,0 +1,70 @@
+package com.maestria.agenda.profissional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Versões de token em memória, com busca no banco para ids fora da última carga
+ */
+class VersaoTokenCacheTest {
+
+    private ProfissionalRepository repository;
+    private VersaoTokenCache cache;
+
+    @BeforeEach
+    void setup() {
+        repository = mock(ProfissionalRepository.class);
+        when(repository.listarVersoesToken()).thenReturn(List.<Object[]>of(new Object[]{1L, 3}));
+        when(repository.buscarVersaoToken(2L)).thenReturn(Optional.of(0));
+        when(repository.buscarVersaoToken(9L)).thenReturn(Optional.empty());
+        cache = new VersaoTokenCache(repository);
+    }
+
+    @Test
+    void carregadoNaoConsultaOBanco() {
+        assertTrue(cache.valida(1L, 3));
+        assertFalse(cache.valida(1L, 2));
+        verify(repository, never()).buscarVersaoToken(1L);
+    }
+
+    @Test
+    void criadoEmOutraInstanciaBuscadoUmaVez() {
+        assertTrue(cache.valida(2L, 0));
+        assertTrue(cache.valida(2L, 0));
+        assertFalse(cache.valida(2L, 1));
+        verify(repository, times(1)).buscarVersaoToken(2L);
+    }
+
+    @Test
+    void inexistenteRecusadoSemConsultarDeNovo() {
+        assertFalse(cache.valida(9L, 0));
+        assertFalse(cache.valida(9L, 0));
+        verify(repository, times(1)).buscarVersaoToken(9L);
+
+        // Criado nesta instância depois da consulta
+        Profissional profissional = new Profissional();
+        profissional.setId(9L);
+        cache.atualizar(profissional);
+        assertTrue(cache.valida(9L, 0));
+    }
+
+    @Test
+    void recargaDescartaAsBuscas() {
+        cache.valida(9L, 0);
+        cache.recarregar();
+
+        cache.valida(9L, 0);
+        verify(repository, times(2)).buscarVersaoToken(9L);
+    }
+}
@@ -0,0 +1,226 @@
+package com.maestria.agenda.service;
+
+import com.maestria.agenda.agendamento.AgendamentoFixo;
+import com.maestria.agenda.agendamento.AgendamentoFixo.TipoRepeticao;
+import com.maestria.agenda.agendamento.AgendamentoFixoExcecaoRepository;
+import com.maestria.agenda.agendamento.AgendamentoFixoRepository;
+import com.maestria.agenda.agendamento.AgendamentoRepository;
+import com.maestria.agenda.agendamento.ModoRecorrencia;
+import com.maestria.agenda.profissional.Profissional;
+import com.maestria.agenda.service.ConflitoAgendamentoService.Conflito;
+import com.maestria.agenda.servico.Servico;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verificação de conflito de horário do {@link ConflitoAgendamentoService}
+ */
+class ConflitoAgendamentoServiceTest {
+
+    private static final Long PROFISSIONAL_ID = 1L;
+    private static final Long FIXO_ID = 7L;
+    private static final Long AGENDAMENTO_ID = 5L;
+
+    private final LocalDate dia = LocalDate.of(2025, 3, 10);
+
+    private AgendamentoRepository agendamentoRepository;
+    private AgendamentoFixoRepository agendamentoFixoRepository;
+    private AgendamentoFixoExcecaoRepository excecaoRepository;
+
+    @BeforeEach
+    void setup() {
+        agendamentoRepository = mock(AgendamentoRepository.class);
+        agendamentoFixoRepository = mock(AgendamentoFixoRepository.class);
+        excecaoRepository = mock(AgendamentoFixoExcecaoRepository.class);
+    }
+
+    @Test
+    void materializadoIgnoraOcorrenciaFixaExcluidaAntesDoHorizonte() {
+        // Fixo diário às 10:00; a linha do dia foi excluída e o scheduler já gerou até a semana seguinte
+        fixoDiario(LocalTime.of(10, 0), "PT1H");
+        horizonte(dia.plusDays(7));
+
+        Optional<Conflito> conflito = service(ModoRecorrencia.MATERIALIZADO)
+                .verificar(PROFISSIONAL_ID, dia, LocalTime.of(10, 0), Duration.ofHours(1), null);
+
+        assertTrue(conflito.isEmpty());
+    }
+
+    @Test
+    void materializadoConsideraOcorrenciaFixaAlemDoHorizonte() {
+        fixoDiario(LocalTime.of(10, 0), "PT1H");
+        horizonte(dia.minusDays(1));
+
+        Optional<Conflito> conflito = service(ModoRecorrencia.MATERIALIZADO)
+                .verificar(PROFISSIONAL_ID, dia, LocalTime.of(10, 30), Duration.ofMinutes(30), null);
+
+        assertEquals(new Conflito(null, FIXO_ID, LocalTime.of(10, 0), LocalTime.of(11, 0)), conflito.orElseThrow());
+    }
+
+    @Test
+    void virtualConsideraOcorrenciaFixaSemLinha() {
+        fixoDiario(LocalTime.of(10, 0), "PT1H");
+        horizonte(dia.plusDays(7));
+
+        Optional<Conflito> conflito = service(ModoRecorrencia.VIRTUAL)
+                .verificar(PROFISSIONAL_ID, dia, LocalTime.of(10, 0), Duration.ofHours(1), null);
+
+        assertEquals(FIXO_ID, conflito.orElseThrow().agendamentoFixoId());
+    }
+
+    @Test
+    void horariosAdjacentesNaoConflitam() {
+        // Agendamento das 10:00 às 11:00: terminar às 10:00 ou começar às 11:00 não conflita
+        agendamentos(linha(AGENDAMENTO_ID, LocalTime.of(10, 0), "PT1H", null));
+        ConflitoAgendamentoService service = service(ModoRecorrencia.VIRTUAL);
+
+        assertTrue(service.verificar(PROFISSIONAL_ID, dia, LocalTime.of(11, 0), Duration.ofMinutes(30), null).isEmpty());
+        assertTrue(service.verificar(PROFISSIONAL_ID, dia, LocalTime.of(9, 0), Duration.ofHours(1), null).isEmpty());
+        assertTrue(service.verificar(PROFISSIONAL_ID, dia, LocalTime.of(10, 59), Duration.ofMinutes(1), null).isPresent());
+    }
+
+    @Test
+    void somaAsDuracoesDosServicosDoAgendamento() {
+        // Dois serviços (30 + 45 minutos): o agendamento das 10:00 termina às 11:15
+        agendamentos(
+                linha(AGENDAMENTO_ID, LocalTime.of(10, 0), "PT30M", "PT30M"),
+                linha(AGENDAMENTO_ID, LocalTime.of(10, 0), "PT45M", "PT30M"));
+        ConflitoAgendamentoService service = service(ModoRecorrencia.VIRTUAL);
+
+        Optional<Conflito> conflito = service.verificar(PROFISSIONAL_ID, dia, LocalTime.of(11, 0),
+                Duration.ofMinutes(30), null);
+
+        assertEquals(new Conflito(AGENDAMENTO_ID, null, LocalTime.of(10, 0), LocalTime.of(11, 15)),
+                conflito.orElseThrow());
+        assertTrue(service.verificar(PROFISSIONAL_ID, dia, LocalTime.of(11, 15), Duration.ofMinutes(30), null).isEmpty());
+    }
+
+    @Test
+    void usaServicoLegadoSemItens() {
+        // Agendamento antigo sem agendamento_servico: vale a duração do servico_id
+        agendamentos(linha(AGENDAMENTO_ID, LocalTime.of(10, 0), null, "PT1H30M"));
+
+        Optional<Conflito> conflito = service(ModoRecorrencia.VIRTUAL)
+                .verificar(PROFISSIONAL_ID, dia, LocalTime.of(11, 0), Duration.ofMinutes(30), null);
+
+        assertEquals(LocalTime.of(11, 30), conflito.orElseThrow().fim());
+    }
+
+    @Test
+    void edicaoIgnoraOProprioAgendamento() {
+        agendamentos(linha(AGENDAMENTO_ID, LocalTime.of(10, 0), "PT1H", null));
+
+        assertTrue(service(ModoRecorrencia.VIRTUAL)
+                .verificar(PROFISSIONAL_ID, dia, LocalTime.of(10, 30), Duration.ofHours(1), AGENDAMENTO_ID).isEmpty());
+    }
+
+    @Test
+    void descricaoDoConflitoDevolvidaNo409() {
+        assertEquals("Conflito de horário com agendamento ID 5 (10:00 - 11:15).",
+                new Conflito(AGENDAMENTO_ID, null, LocalTime.of(10, 0), LocalTime.of(11, 15)).descricao());
+        assertEquals("Conflito de horário com agendamento fixo ID 7 (14:00 - 15:00).",
+                new Conflito(null, FIXO_ID, LocalTime.of(14, 0), LocalTime.of(15, 0)).descricao());
+    }
+
+    @Test
+    void travaSerializaMesmoProfissionalEDia() throws Exception {
+        ConflitoAgendamentoService service = service(ModoRecorrencia.VIRTUAL);
+        CountDownLatch dentro = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        AtomicBoolean segundaExecutou = new AtomicBoolean();
+        // Outro dia em listra diferente segue em paralelo
+        LocalDate outroDia = dia.plusDays(1);
+        while ((Objects.hash(PROFISSIONAL_ID, outroDia) & 63) == (Objects.hash(PROFISSIONAL_ID, dia) & 63)) {
+            outroDia = outroDia.plusDays(1);
+        }
+        LocalDate diaParalelo = outroDia;
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<?> primeira = executor.submit(() -> service.comTrava(PROFISSIONAL_ID, dia, () -> {
+                dentro.countDown();
+                try {
+                    return liberar.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+            assertTrue(dentro.await(5, TimeUnit.SECONDS));
+
+            Future<?> segunda = executor.submit(() -> service.comTrava(PROFISSIONAL_ID, dia,
+                    () -> segundaExecutou.getAndSet(true)));
+            Future<Boolean> paralela = executor.submit(() -> service.comTrava(PROFISSIONAL_ID, diaParalelo,
+                    () -> true));
+
+            assertTrue(paralela.get(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+            assertFalse(segundaExecutou.get());
+
+            liberar.countDown();
+            primeira.get(5, TimeUnit.SECONDS);
+            segunda.get(5, TimeUnit.SECONDS);
+            assertTrue(segundaExecutou.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void agendamentos(Object[]... linhas) {
+        when(agendamentoRepository.findDuracoesPorProfissionaisEPeriodo(any(), any(), any()))
+                .thenReturn(List.of(linhas));
+    }
+
+    // Mesmo formato de findDuracoesPorProfissionaisEPeriodo: id, profissional, data, hora, item, legado
+    private Object[] linha(Long id, LocalTime hora, String duracaoItem, String duracaoLegado) {
+        return new Object[]{id, PROFISSIONAL_ID, dia, hora, duracaoItem, duracaoLegado};
+    }
+
+    private void fixoDiario(LocalTime hora, String duracao) {
+        Profissional profissional = new Profissional();
+        profissional.setId(PROFISSIONAL_ID);
+        Servico servico = new Servico();
+        servico.setDuracao(duracao);
+        AgendamentoFixo fixo = new AgendamentoFixo();
+        fixo.setId(FIXO_ID);
+        fixo.setProfissional(profissional);
+        fixo.setServico(servico);
+        fixo.setHora(hora);
+        fixo.setTipoRepeticao(TipoRepeticao.DIARIA);
+        fixo.setIntervaloRepeticao(1);
+        fixo.setDataInicio(dia.minusDays(30));
+        fixo.setAtivo(true);
+        when(agendamentoFixoRepository.findByProfissionalIdAndAtivoTrue(PROFISSIONAL_ID)).thenReturn(List.of(fixo));
+    }
+
+    private void horizonte(LocalDate ultimaGravada) {
+        when(agendamentoRepository.findUltimaOcorrenciaGravada(any()))
+                .thenReturn(List.<Object[]>of(new Object[]{FIXO_ID, ultimaGravada}));
+    }
+
+    private ConflitoAgendamentoService service(ModoRecorrencia modo) {
+        OcorrenciaFixaService ocorrenciaFixaService = new OcorrenciaFixaService(agendamentoFixoRepository,
+                agendamentoRepository, excecaoRepository, mock(ApplicationEventPublisher.class), modo);
+        return new ConflitoAgendamentoService(agendamentoRepository, agendamentoFixoRepository, ocorrenciaFixaService);
+    }
+}
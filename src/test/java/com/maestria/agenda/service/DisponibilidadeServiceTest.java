@@ -0,0 +1,144 @@
+package com.maestria.agenda.service;
+
+import com.maestria.agenda.agendamento.AgendamentoFixo;
+import com.maestria.agenda.agendamento.AgendamentoFixo.TipoRepeticao;
+import com.maestria.agenda.agendamento.AgendamentoFixoExcecaoRepository;
+import com.maestria.agenda.agendamento.AgendamentoFixoRepository;
+import com.maestria.agenda.agendamento.AgendamentoRepository;
+import com.maestria.agenda.agendamento.ModoRecorrencia;
+import com.maestria.agenda.bloqueio.BloqueioAgendaIndex;
+import com.maestria.agenda.profissional.Profissional;
+import com.maestria.agenda.servico.Servico;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ocorrências de agendamentos fixos na busca de horários livres, nos dois modos de recorrência
+ */
+class DisponibilidadeServiceTest {
+
+    private static final Long FIXO_ID = 7L;
+    private static final Long AGENDAMENTO_ID = 70L;
+
+    private final LocalDate dia = LocalDate.now().plusDays(10);
+
+    private AgendamentoRepository agendamentoRepository;
+    private AgendamentoFixoRepository agendamentoFixoRepository;
+    private AgendamentoFixoExcecaoRepository excecaoRepository;
+    private Profissional profissional;
+
+    @BeforeEach
+    void setup() {
+        agendamentoRepository = mock(AgendamentoRepository.class);
+        agendamentoFixoRepository = mock(AgendamentoFixoRepository.class);
+        excecaoRepository = mock(AgendamentoFixoExcecaoRepository.class);
+
+        profissional = new Profissional();
+        profissional.setId(1L);
+        profissional.setNome("Bia");
+
+        // Agendamento fixo diário às 10:00, 1 hora
+        Servico servico = new Servico();
+        servico.setDuracao("PT1H");
+        AgendamentoFixo fixo = new AgendamentoFixo();
+        fixo.setId(FIXO_ID);
+        fixo.setProfissional(profissional);
+        fixo.setServico(servico);
+        fixo.setHora(LocalTime.of(10, 0));
+        fixo.setTipoRepeticao(TipoRepeticao.DIARIA);
+        fixo.setIntervaloRepeticao(1);
+        fixo.setDataInicio(dia.minusDays(30));
+        fixo.setAtivo(true);
+        when(agendamentoFixoRepository.findByProfissionalIdInAndAtivoTrue(any())).thenReturn(List.of(fixo));
+    }
+
+    @Test
+    void materializadoIgnoraOcorrenciaExcluidaAntesDoHorizonte() {
+        // A linha do dia foi excluída (sem exceção gravada); o scheduler já gerou até o dia seguinte
+        horizonte(dia.plusDays(1));
+
+        List<String> horarios = horarios(ModoRecorrencia.MATERIALIZADO, dia);
+
+        assertTrue(horarios.contains("10:00"));
+        assertTrue(horarios.contains("10:30"));
+    }
+
+    @Test
+    void materializadoIgnoraOcorrenciaRemarcadaSemDataOcorrencia() {
+        // Linha antiga remarcada para dois dias depois, às 15:00, antes de existir dataOcorrencia
+        when(agendamentoRepository.findDuracoesPorProfissionaisEPeriodo(any(), any(), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{AGENDAMENTO_ID, 1L, dia.plusDays(2), LocalTime.of(15, 0),
+                        "PT1H", null}));
+        when(agendamentoRepository.findOcorrenciasFixasNoPeriodo(any(), any()))
+                .thenReturn(List.<Object[]>of(new Object[]{FIXO_ID, dia.plusDays(2)}));
+        horizonte(dia.plusDays(2));
+
+        DisponibilidadeService service = service(ModoRecorrencia.MATERIALIZADO);
+        List<DisponibilidadeService.HorariosDisponiveis> resultado =
+                service.buscar(List.of(profissional), dia, dia.plusDays(2), Duration.ofHours(1), null, null);
+
+        assertTrue(horariosDoDia(resultado, dia).contains("10:00"));
+        assertFalse(horariosDoDia(resultado, dia.plusDays(2)).contains("15:00"));
+    }
+
+    @Test
+    void materializadoOcupaOcorrenciaAlemDoHorizonte() {
+        // O scheduler ainda não gerou o dia: a ocorrência calculada ocupa o horário
+        horizonte(dia.minusDays(1));
+
+        List<String> horarios = horarios(ModoRecorrencia.MATERIALIZADO, dia);
+
+        assertFalse(horarios.contains("10:00"));
+        assertFalse(horarios.contains("09:30"));
+        assertTrue(horarios.contains("09:00"));
+        assertTrue(horarios.contains("11:00"));
+    }
+
+    @Test
+    void virtualOcupaOcorrenciaSemLinha() {
+        horizonte(dia.plusDays(1));
+
+        List<String> horarios = horarios(ModoRecorrencia.VIRTUAL, dia);
+
+        assertFalse(horarios.contains("10:00"));
+        assertTrue(horarios.contains("11:00"));
+    }
+
+    private void horizonte(LocalDate ultimaGravada) {
+        when(agendamentoRepository.findUltimaOcorrenciaGravada(any()))
+                .thenReturn(List.<Object[]>of(new Object[]{FIXO_ID, ultimaGravada}));
+    }
+
+    private List<String> horarios(ModoRecorrencia modo, LocalDate data) {
+        return horariosDoDia(service(modo).buscar(List.of(profissional), data, data, Duration.ofHours(1), null, null),
+                data);
+    }
+
+    private static List<String> horariosDoDia(List<DisponibilidadeService.HorariosDisponiveis> resultado,
+            LocalDate data) {
+        return resultado.stream()
+                .filter(h -> h.data().equals(data))
+                .findFirst()
+                .map(DisponibilidadeService.HorariosDisponiveis::horarios)
+                .orElse(List.of());
+    }
+
+    private DisponibilidadeService service(ModoRecorrencia modo) {
+        OcorrenciaFixaService ocorrenciaFixaService = new OcorrenciaFixaService(agendamentoFixoRepository,
+                agendamentoRepository, excecaoRepository, mock(ApplicationEventPublisher.class), modo);
+        return new DisponibilidadeService(agendamentoRepository, agendamentoFixoRepository, ocorrenciaFixaService,
+                mock(BloqueioAgendaIndex.class), 15, LocalTime.of(8, 0), LocalTime.of(20, 0));
+    }
+}
@@ -0,0 +1,287 @@
+package com.maestria.agenda.service;
+
+import com.maestria.agenda.DadosTeste;
+import com.maestria.agenda.TesteBancoH2;
+import com.maestria.agenda.agendamento.Agendamento;
+import com.maestria.agenda.agendamento.AgendamentoFixo;
+import com.maestria.agenda.agendamento.AgendamentoFixo.TipoRepeticao;
+import com.maestria.agenda.cliente.Cliente;
+import com.maestria.agenda.financeiro.ComissaoLancamentoRepository;
+import com.maestria.agenda.financeiro.PagamentoTipo;
+import com.maestria.agenda.financeiro.TaxaPagamentoService;
+import com.maestria.agenda.profissional.ComissaoProfissional;
+import com.maestria.agenda.profissional.Profissional;
+import com.maestria.agenda.servico.CategoriaServico;
+import com.maestria.agenda.servico.Servico;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Livro de comissões em H2: baixa, edição e exclusão de agendamentos, comparando o saldo do livro
+ * (somarPorProfissional) com o cálculo por agendamentos que ele substituiu, e a reconciliação.
+ * Sem a transação do teste, pois o livro grava em REQUIRES_NEW e precisa ver os agendamentos.
+ */
+@TesteBancoH2
+@Import({LancamentoComissaoService.class, TaxaPagamentoService.class})
+class LancamentoComissaoServiceTest {
+
+    // Consultas do ComissaoService antes do livro: [profissional, percentual, forma de pagamento, soma dos valores]
+    private static final String SQL_ANTIGO_NORMAIS =
+            "SELECT a.profissional.id, cp.percentual, a.formaPagamento, SUM(s.valor) " +
+            "FROM Agendamento a LEFT JOIN a.servicos x " +
+            "JOIN Servico s ON s.id = COALESCE(x.servico.id, a.servico.id) " +
+            "LEFT JOIN ComissaoProfissional cp ON cp.profissional = a.profissional AND cp.categoria = s.categoria " +
+            "WHERE a.data BETWEEN :inicio AND :fim AND a.pago = true " +
+            "AND a.agendamentoFixoId IS NULL AND s.valor IS NOT NULL " +
+            "GROUP BY a.profissional.id, cp.percentual, a.formaPagamento";
+
+    private static final String SQL_ANTIGO_FIXOS =
+            "SELECT f.profissional.id, cp.percentual, a.formaPagamento, SUM(s.valor) " +
+            "FROM Agendamento a JOIN AgendamentoFixo f ON f.id = a.agendamentoFixoId " +
+            "LEFT JOIN a.servicos x " +
+            "JOIN Servico s ON s.id = COALESCE(x.servico.id, f.servico.id) " +
+            "LEFT JOIN ComissaoProfissional cp ON cp.profissional = f.profissional AND cp.categoria = s.categoria " +
+            "WHERE a.data BETWEEN :inicio AND :fim AND a.pago = true " +
+            "AND f.ativo = true AND s.valor IS NOT NULL " +
+            "GROUP BY f.profissional.id, cp.percentual, a.formaPagamento";
+
+    private final LocalDate inicio = LocalDate.of(2025, 3, 1);
+    private final LocalDate fim = LocalDate.of(2025, 3, 31);
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private LancamentoComissaoService lancamentoService;
+
+    @Autowired
+    private ComissaoLancamentoRepository comissaoLancamentoRepository;
+
+    @Autowired
+    private TaxaPagamentoService taxaPagamentoService;
+
+    @Autowired
+    private DadosTeste dados;
+
+    private Cliente cliente;
+    private Profissional ana;
+    private Profissional bia;
+    private Servico corte;
+    private Servico escova;
+
+    @BeforeEach
+    void setup() {
+        cliente = dados.cliente("Carla");
+        ana = dados.profissional("anaa");
+        bia = dados.profissional("biaa");
+
+        CategoriaServico cabelo = dados.categoria("Cabelo");
+        CategoriaServico finalizacao = dados.categoria("Finalização");
+        corte = dados.servico("Corte", 100.0, cabelo);
+        escova = dados.servico("Escova", 50.0, finalizacao);
+        comissao(ana, cabelo, 40.0);
+        comissao(ana, finalizacao, 30.0);
+        // Bia sem comissão configurada: percentual 0
+    }
+
+    @Test
+    void baixaEdicaoEExclusaoBatemComOCalculoAntigo() {
+        Agendamento doisServicos = agendamento(ana, inicio.plusDays(2), PagamentoTipo.PIX, corte, escova);
+        Agendamento legado = novoAgendamento(ana, inicio.plusDays(3), PagamentoTipo.CREDITO_1X);
+        legado.setServico(corte);
+        dados.salvar(legado);
+        Agendamento daBia = agendamento(bia, inicio.plusDays(4), PagamentoTipo.DEBITO, escova);
+        Agendamento semBaixa = agendamento(ana, inicio.plusDays(5), null, corte);
+        Agendamento foraDoPeriodo = agendamento(ana, fim.plusDays(1), PagamentoTipo.PIX, corte);
+        AgendamentoFixo serieAtiva = serie(ana, true);
+        AgendamentoFixo serieInativa = serie(ana, false);
+        Agendamento ocorrencia = ocorrencia(serieAtiva, inicio.plusDays(6), PagamentoTipo.DINHEIRO);
+        Agendamento ocorrenciaInativa = ocorrencia(serieInativa, inicio.plusDays(6), PagamentoTipo.DINHEIRO);
+
+        // Baixa
+        lancamentoService.sincronizar(List.of(doisServicos.getId(), legado.getId(), daBia.getId(),
+                semBaixa.getId(), foraDoPeriodo.getId(), ocorrencia.getId(), ocorrenciaInativa.getId()));
+        assertEquals(calculoAntigo(), livro());
+        assertEquals(Map.of(
+                chave(ana, false), new Totais(250.0, 95.0, 2.0),
+                chave(bia, false), new Totais(50.0, 0.0, 0.75),
+                chave(ana, true), new Totais(100.0, 40.0, 0.0)), livro());
+
+        // Edição: tira a escova e troca a forma de pagamento
+        dados.emTransacao(() -> {
+            Agendamento editado = em.find(Agendamento.class, doisServicos.getId());
+            editado.getServicos().removeIf(item -> item.getServico().getId().equals(escova.getId()));
+            editado.setFormaPagamento(PagamentoTipo.CREDITO_2X);
+        });
+        lancamentoService.sincronizar(List.of(doisServicos.getId()));
+        assertEquals(calculoAntigo(), livro());
+
+        // Baixa desfeita e exclusão
+        dados.emTransacao(() -> {
+            em.find(Agendamento.class, legado.getId()).setPago(false);
+            em.remove(em.find(Agendamento.class, daBia.getId()));
+        });
+        lancamentoService.sincronizar(List.of(legado.getId(), daBia.getId()));
+        assertEquals(calculoAntigo(), livro());
+        assertFalse(livro().containsKey(chave(bia, false)));
+
+        // Sincronizar de novo não muda nada e nada fica para reconciliar
+        lancamentoService.sincronizar(List.of(doisServicos.getId(), legado.getId(), ocorrencia.getId()));
+        assertEquals(calculoAntigo(), livro());
+        assertEquals(0, lancamentoService.reconciliarTudo());
+    }
+
+    @Test
+    void reconciliacaoCorrigeLancamentosQueFalharam() {
+        Agendamento pago = agendamento(ana, inicio.plusDays(2), PagamentoTipo.PIX, corte, escova);
+        Agendamento excluido = agendamento(bia, inicio.plusDays(3), PagamentoTipo.DEBITO, escova);
+        AgendamentoFixo serie = serie(ana, true);
+        Agendamento ocorrencia = ocorrencia(serie, inicio.plusDays(4), PagamentoTipo.PIX);
+        lancamentoService.sincronizar(List.of(excluido.getId(), ocorrencia.getId()));
+
+        // Baixa sem lançamento (aoAlterar falhou), exclusão e série desativada sem evento
+        dados.emTransacao(() -> {
+            em.remove(em.find(Agendamento.class, excluido.getId()));
+            em.find(AgendamentoFixo.class, serie.getId()).setAtivo(false);
+        });
+
+        assertEquals(3, lancamentoService.reconciliarTudo());
+        assertEquals(calculoAntigo(), livro());
+        assertEquals(Map.of(chave(ana, false), new Totais(150.0, 55.0, 0.0)), livro());
+        assertEquals(0, lancamentoService.reconciliarTudo());
+    }
+
+    @Test
+    void reconciliacaoPeriodicaOlhaSoOsDiasRecentes() {
+        // Baixas sem lançamento: uma de ontem e uma de 40 dias atrás (janela padrão de 30 dias)
+        Agendamento recente = agendamento(ana, LocalDate.now().minusDays(1), PagamentoTipo.PIX, corte);
+        Agendamento antigo = agendamento(ana, LocalDate.now().minusDays(40), PagamentoTipo.PIX, corte);
+
+        assertEquals(1, lancamentoService.reconciliar());
+        assertEquals(0, lancamentoService.reconciliar());
+        assertEquals(List.of(recente.getId()), lancados());
+
+        assertEquals(1, lancamentoService.reconciliarTudo());
+        assertEquals(0, lancamentoService.reconciliarTudo());
+        assertEquals(List.of(recente.getId(), antigo.getId()), lancados());
+    }
+
+    private List<Long> lancados() {
+        return em.createQuery("SELECT DISTINCT l.agendamentoId FROM ComissaoLancamento l ORDER BY l.agendamentoId",
+                Long.class).getResultList();
+    }
+
+    private record Totais(double servicos, double comissao, double descontoTaxa) {
+
+        Totais somar(double valor, double percentual, double taxa) {
+            return new Totais(servicos + valor, comissao + valor * percentual / 100, descontoTaxa + valor * taxa / 100);
+        }
+
+        Totais arredondado() {
+            return new Totais(centavos(servicos), centavos(comissao), centavos(descontoTaxa));
+        }
+
+        private static double centavos(double valor) {
+            return Math.round(valor * 100) / 100.0;
+        }
+    }
+
+    private static String chave(Profissional profissional, boolean fixo) {
+        return profissional.getId() + (fixo ? "/fixo" : "/normal");
+    }
+
+    // Saldo do livro no período, por profissional e tipo
+    private Map<String, Totais> livro() {
+        Map<String, Totais> totais = new HashMap<>();
+        for (Object[] linha : comissaoLancamentoRepository.somarPorProfissional(null, inicio, fim)) {
+            Totais saldo = new Totais(((Number) linha[2]).doubleValue(), ((Number) linha[3]).doubleValue(),
+                    ((Number) linha[4]).doubleValue()).arredondado();
+            if (saldo.servicos() != 0 || saldo.comissao() != 0) {
+                totais.put(linha[0] + (Boolean.TRUE.equals(linha[1]) ? "/fixo" : "/normal"), saldo);
+            }
+        }
+        return totais;
+    }
+
+    // Mesmo acumulado que o ComissaoService fazia sobre as consultas agrupadas
+    private Map<String, Totais> calculoAntigo() {
+        Map<String, Totais> totais = new HashMap<>();
+        acumular(SQL_ANTIGO_NORMAIS, "/normal", totais);
+        acumular(SQL_ANTIGO_FIXOS, "/fixo", totais);
+        totais.replaceAll((chave, total) -> total.arredondado());
+        return totais;
+    }
+
+    private void acumular(String jpql, String tipo, Map<String, Totais> totais) {
+        List<Object[]> linhas = em.createQuery(jpql, Object[].class)
+                .setParameter("inicio", inicio)
+                .setParameter("fim", fim)
+                .getResultList();
+        for (Object[] linha : linhas) {
+            double percentual = linha[1] != null ? ((Number) linha[1]).doubleValue() : 0.0;
+            PagamentoTipo forma = (PagamentoTipo) linha[2];
+            double taxa = forma != null ? taxaPagamentoService.obterTaxa(forma) : 0.0;
+            totais.merge(linha[0] + tipo, new Totais(0, 0, 0).somar(((Number) linha[3]).doubleValue(), percentual, taxa),
+                    (a, b) -> new Totais(a.servicos() + b.servicos(), a.comissao() + b.comissao(),
+                            a.descontoTaxa() + b.descontoTaxa()));
+        }
+    }
+
+    private Agendamento agendamento(Profissional profissional, LocalDate data, PagamentoTipo forma,
+            Servico... servicos) {
+        return dados.salvar(novoAgendamento(profissional, data, forma, servicos));
+    }
+
+    private Agendamento novoAgendamento(Profissional profissional, LocalDate data, PagamentoTipo forma,
+            Servico... servicos) {
+        Agendamento agendamento = new Agendamento();
+        agendamento.setCliente(cliente);
+        agendamento.setProfissional(profissional);
+        agendamento.setData(data);
+        agendamento.setPago(forma != null);
+        agendamento.setFormaPagamento(forma);
+        agendamento.setDataPagamento(forma != null ? LocalDateTime.now() : null);
+        for (int i = 0; i < servicos.length; i++) {
+            agendamento.addServico(servicos[i], i);
+        }
+        return agendamento;
+    }
+
+    private AgendamentoFixo serie(Profissional profissional, boolean ativo) {
+        AgendamentoFixo fixo = new AgendamentoFixo();
+        fixo.setCliente(cliente);
+        fixo.setProfissional(profissional);
+        fixo.setServico(corte);
+        fixo.setTipoRepeticao(TipoRepeticao.SEMANAL);
+        fixo.setDataInicio(inicio);
+        fixo.setAtivo(ativo);
+        return dados.salvar(fixo);
+    }
+
+    // Ocorrência gravada com o profissional da série e sem itens: vale o serviço da série
+    private Agendamento ocorrencia(AgendamentoFixo fixo, LocalDate data, PagamentoTipo forma) {
+        Agendamento agendamento = novoAgendamento(fixo.getProfissional(), data, forma);
+        agendamento.setAgendamentoFixoId(fixo.getId());
+        return dados.salvar(agendamento);
+    }
+
+    private void comissao(Profissional profissional, CategoriaServico categoria, double percentual) {
+        ComissaoProfissional comissao = new ComissaoProfissional();
+        comissao.setProfissional(profissional);
+        comissao.setCategoria(categoria);
+        comissao.setPercentual(percentual);
+        dados.salvar(comissao);
+    }
+}
@@ -0,0 +1,89 @@
+package com.maestria.agenda.service;
+
+import com.maestria.agenda.DadosTeste;
+import com.maestria.agenda.TesteBancoH2;
+import com.maestria.agenda.agendamento.Agendamento;
+import com.maestria.agenda.cliente.Cliente;
+import com.maestria.agenda.financeiro.MetricaDiariaRepository;
+import com.maestria.agenda.profissional.Profissional;
+import com.maestria.agenda.servico.Servico;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Recálculo das métricas diárias em H2, com agendamentos de vários serviços e legados
+ */
+@TesteBancoH2
+@Import(MetricaDiariaService.class)
+class MetricaDiariaServiceTest {
+
+    private final LocalDate dia = LocalDate.of(2025, 3, 10);
+
+    @Autowired
+    private MetricaDiariaService service;
+
+    @Autowired
+    private MetricaDiariaRepository metricaDiariaRepository;
+
+    @Autowired
+    private DadosTeste dados;
+
+    private Cliente cliente;
+    private Profissional profissional;
+    private Servico corte;
+    private Servico escova;
+
+    @BeforeEach
+    void setup() {
+        cliente = dados.cliente("Carla");
+        profissional = dados.profissional("biaa");
+        corte = dados.servico("Corte", 100.0, null);
+        escova = dados.servico("Escova", 50.0, null);
+    }
+
+    @Test
+    void contaCadaServicoDosAgendamentosPagos() {
+        agendamento(true, null, corte, escova);
+        agendamento(true, null, escova);
+        agendamento(true, corte);
+        agendamento(false, null, corte);
+
+        service.recalcular(dia, dia);
+
+        assertEquals(Map.of("Corte", 2L, "Escova", 2L), porServico());
+        // O faturamento usa a mesma regra: 150 + 50 + 100
+        Object[] totais = metricaDiariaRepository.somarPeriodo(dia, dia).get(0);
+        assertEquals(300.0, ((Number) totais[0]).doubleValue(), 0.001);
+        assertEquals(3L, ((Number) totais[1]).longValue());
+    }
+
+    private Map<String, Long> porServico() {
+        Map<String, Long> totais = new HashMap<>();
+        for (Object[] linha : metricaDiariaRepository.somarPorServico(dia, dia)) {
+            totais.put((String) linha[0], ((Number) linha[1]).longValue());
+        }
+        return totais;
+    }
+
+    // Sem itens, o serviço legado (servico_id) vale para o agendamento
+    private void agendamento(boolean pago, Servico legado, Servico... itens) {
+        Agendamento agendamento = new Agendamento();
+        agendamento.setCliente(cliente);
+        agendamento.setProfissional(profissional);
+        agendamento.setData(dia);
+        agendamento.setPago(pago);
+        agendamento.setServico(legado);
+        for (int i = 0; i < itens.length; i++) {
+            agendamento.addServico(itens[i], i);
+        }
+        dados.salvar(agendamento);
+    }
+}
@@ -0,0 +1,110 @@
+package com.maestria.agenda.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tempo limite, cancelamento e recusa das consultas paralelas do dashboard
+ */
+class PainelMetricasServiceTest {
+
+    private final LocalDate inicio = LocalDate.of(2025, 1, 1);
+    private final LocalDate fim = LocalDate.of(2025, 1, 31);
+
+    private MetricsService metricsService;
+    private PlatformTransactionManager transactionManager;
+    private PainelMetricasService service;
+
+    @BeforeEach
+    void setup() {
+        metricsService = mock(MetricsService.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+    }
+
+    @AfterEach
+    void encerrar() {
+        if (service != null) {
+            service.encerrar();
+        }
+    }
+
+    @Test
+    void consultaLentaECanceladaEListadaEmFalhas() throws Exception {
+        CountDownLatch interrompida = new CountDownLatch(1);
+        when(metricsService.obterFaturamentoMensal(any(), any())).thenAnswer(invocacao -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrompida.countDown();
+            }
+            return List.of();
+        });
+        service = new PainelMetricasService(metricsService, transactionManager, 5, 0, 200, 10);
+
+        Map<String, Object> painel = service.montarPainel(inicio, fim);
+
+        assertEquals(true, painel.get("parcial"));
+        assertEquals(List.of("faturamentoMensal"), painel.get("falhas"));
+        assertEquals(List.of(), painel.get("servicosAgendados"));
+        assertTrue(interrompida.await(2, TimeUnit.SECONDS), "consulta não foi cancelada");
+    }
+
+    @Test
+    void consultaRodaEmTransacaoSomenteLeituraComTimeout() {
+        service = new PainelMetricasService(metricsService, transactionManager, 2, 0, 2500, 10);
+
+        service.montarPainel(inicio, fim);
+
+        ArgumentCaptor<TransactionDefinition> definicao = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, atLeastOnce()).getTransaction(definicao.capture());
+        assertEquals(3, definicao.getValue().getTimeout());
+        assertTrue(definicao.getValue().isReadOnly());
+    }
+
+    @Test
+    void poolCheioRecusaConsultas() throws Exception {
+        CountDownLatch iniciou = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        when(metricsService.obterMetricasGerais(any(), any())).thenAnswer(invocacao -> {
+            iniciou.countDown();
+            liberar.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+        // Uma thread e uma vaga na fila: o primeiro painel ocupa as duas e tem as outras 3 consultas recusadas
+        service = new PainelMetricasService(metricsService, transactionManager, 1, 1, 5000, 10);
+
+        CompletableFuture<Map<String, Object>> primeiro =
+                CompletableFuture.supplyAsync(() -> service.montarPainel(inicio, fim));
+        assertTrue(iniciou.await(2, TimeUnit.SECONDS));
+        Thread.sleep(100);
+
+        assertThrows(RejectedExecutionException.class, () -> service.montarPainel(inicio, fim));
+
+        liberar.countDown();
+        Map<String, Object> painel = primeiro.get(5, TimeUnit.SECONDS);
+        assertEquals(true, painel.get("parcial"));
+        assertEquals(List.of("servicosAgendados", "clientesNovosRecorrentes", "horariosMaisProcurados"),
+                painel.get("falhas"));
+    }
+}